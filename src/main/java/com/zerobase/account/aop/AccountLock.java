@@ -8,6 +8,10 @@ import java.lang.annotation.*;
 @Inherited
 public @interface AccountLock {
 
+    // lock 을 얻기 위해 기다리는 최대 시간(ms)
     long tryLockTime() default 5000L;
 
+    // lock 을 잡은 서버가 죽었을 때 lock 이 자동으로 풀리기까지의 최대 시간(ms)
+    long leaseTime() default 15000L;
+
 }
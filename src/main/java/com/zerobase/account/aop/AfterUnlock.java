@@ -0,0 +1,58 @@
+package com.zerobase.account.aop;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 계좌 lock 을 잡은 스레드에서 할 일을 lock 을 푼 뒤로 미룬다. (LockAopAspect)
+ * - lock 밖에서 부르면 바로 실행한다.
+ * - lock 안에서 다시 lock 을 잡으면 가장 바깥 lock 을 풀 때 실행한다.
+ */
+@Slf4j
+public final class AfterUnlock {
+
+    private static final ThreadLocal<List<Runnable>> PENDING = new ThreadLocal<>();
+
+    private AfterUnlock() {
+    }
+
+    public static void run(Runnable task) {
+        List<Runnable> pending = PENDING.get();
+        if (pending == null) {
+            task.run();
+            return;
+        }
+        pending.add(task);
+    }
+
+    /**
+     * lock 을 잡은 직후에 부른다.
+     *
+     * @return 가장 바깥 lock 이면 true. 이때만 풀고 나서 runPending 을 부른다.
+     */
+    public static boolean open() {
+        if (PENDING.get() != null) {
+            return false;
+        }
+        PENDING.set(new ArrayList<>());
+        return true;
+    }
+
+    public static void runPending() {
+        List<Runnable> pending = PENDING.get();
+        PENDING.remove();
+        if (pending == null) {
+            return;
+        }
+        for (Runnable task : pending) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // 응답은 이미 정해졌으므로 남은 일을 계속한다.
+                log.error("Failed to run task after unlock", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.zerobase.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * 같은 인자로 동시에 들어온 조회를 한 번만 실행하고 결과(또는 예외)를 나눠 갖는다.
+ * 인자의 equals 로 같은 요청인지 판단하므로 조회 결과를 바꾸지 않는 메서드에만 붙인다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+}
@@ -0,0 +1,215 @@
+package com.zerobase.account.cache;
+
+import com.zerobase.account.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 계좌번호로 찾는 계좌 캐시 (서버 메모리)
+ * - 없으면 DB 에서 읽어서 채운다. 잔액을 바꾼 요청은 commit 뒤에 새 값을 넣는다. (write-through)
+ * - 항목은 version 이 더 큰 값으로만 바뀐다. 늦게 도착한 옛 값이 새 값을 덮지 않는다.
+ * - commit 된 변경은 Redis topic 으로 다른 서버에 알리고, 알림을 받은 서버는 그 항목을 버린다.
+ * 알림은 늦게 올 수 있으므로 캐시 값은 검증에만 쓰고, 잔액 변경은 version 조건 UPDATE 로 확인한다.
+ * - 없는 계좌번호는 missingAccounts 에 짧게 기억한다. 계좌를 만들면 evictAfterCommit 으로 지운다.
+ */
+@Slf4j
+public class AccountCache {
+
+    private static final String SEPARATOR = ":";
+
+    private final Cache<String, AccountSnapshot> cache;
+    private final NegativeCache<String> missingAccounts;
+    private final AccountRepository accountRepository;
+    private final RTopic invalidationTopic;
+    private final boolean enabled;
+
+    // 자기 서버가 보낸 알림은 무시한다.
+    private final String nodeId = UUID.randomUUID().toString();
+    private int listenerId = -1;
+
+    private final Counter reloaded;
+    private final Counter invalidated;
+
+    public AccountCache(Cache<String, AccountSnapshot> cache,
+                        NegativeCache<String> missingAccounts,
+                        AccountRepository accountRepository,
+                        RTopic invalidationTopic,
+                        MeterRegistry meterRegistry,
+                        boolean enabled) {
+        this.cache = cache;
+        this.missingAccounts = missingAccounts;
+        this.accountRepository = accountRepository;
+        this.invalidationTopic = invalidationTopic;
+        this.enabled = enabled;
+
+        this.reloaded = meterRegistry.counter("account.cache.reload");
+        this.invalidated = meterRegistry.counter("account.cache.invalidation.received");
+    }
+
+    public void subscribe() {
+        if (enabled && invalidationTopic != null) {
+            listenerId = invalidationTopic.addListener(String.class, (channel, message) -> onInvalidation(message));
+        }
+    }
+
+    public void close() {
+        if (listenerId != -1) {
+            invalidationTopic.removeListener(listenerId);
+        }
+    }
+
+    public Optional<AccountSnapshot> get(String accountNumber) {
+        if (!enabled) {
+            return accountRepository.findSnapshotByAccountNumber(accountNumber);
+        }
+
+        AccountSnapshot cached = cache.get(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (missingAccounts.isMissing(accountNumber)) {
+            return Optional.empty();
+        }
+
+        return load(accountNumber);
+    }
+
+    private Optional<AccountSnapshot> load(String accountNumber) {
+        Optional<AccountSnapshot> loaded = accountRepository.findSnapshotByAccountNumber(accountNumber);
+        if (loaded.isPresent()) {
+            putIfNewer(loaded.get());
+        } else {
+            missingAccounts.markMissing(accountNumber);
+        }
+        return loaded;
+    }
+
+    /**
+     * 캐시 값으로 한 검증이나 version 조건 UPDATE 가 실패했을 때 DB 값을 다시 읽는다.
+     */
+    public Optional<AccountSnapshot> reload(String accountNumber) {
+        reloaded.increment();
+        if (!enabled) {
+            return accountRepository.findSnapshotByAccountNumber(accountNumber);
+        }
+        cache.remove(accountNumber);
+        return load(accountNumber);
+    }
+
+    /**
+     * 캐시에 없는 계좌만 한 번에 조회한다. 없는 계좌는 결과에서 빠진다.
+     */
+    public Map<String, AccountSnapshot> getAll(Collection<String> accountNumbers) {
+        Map<String, AccountSnapshot> snapshots = new HashMap<>();
+        Set<String> misses = new HashSet<>(accountNumbers);
+        if (enabled) {
+            snapshots.putAll(cache.getAll(misses));
+            misses.removeAll(snapshots.keySet());
+            misses.removeIf(missingAccounts::isMissing);
+        }
+
+        if (!misses.isEmpty()) {
+            for (AccountSnapshot loaded : accountRepository.findSnapshotsByAccountNumberIn(misses)) {
+                if (enabled) {
+                    putIfNewer(loaded);
+                }
+                snapshots.put(loaded.getAccountNumber(), loaded);
+            }
+            if (enabled) {
+                misses.stream()
+                        .filter(accountNumber -> !snapshots.containsKey(accountNumber))
+                        .forEach(missingAccounts::markMissing);
+            }
+        }
+        return snapshots;
+    }
+
+    // 트랜잭션이 rollback 되면 DB 도 캐시도 바뀌지 않는다.
+    public void putAfterCommit(AccountSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            putIfNewer(snapshot);
+            publish(snapshot.getAccountNumber());
+        });
+    }
+
+    // 새 값을 모르는 변경(조건부 UPDATE 등)이나 새로 만든 계좌는 항목을 버린다.
+    public void evictAfterCommit(String accountNumber) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            evict(accountNumber);
+            publish(accountNumber);
+        });
+    }
+
+    void onInvalidation(String message) {
+        int separator = message.indexOf(SEPARATOR);
+        if (separator < 0 || nodeId.equals(message.substring(0, separator))) {
+            return;
+        }
+        invalidated.increment();
+        evict(message.substring(separator + 1));
+    }
+
+    private void evict(String accountNumber) {
+        cache.remove(accountNumber);
+        missingAccounts.evict(accountNumber);
+    }
+
+    private void putIfNewer(AccountSnapshot snapshot) {
+        String accountNumber = snapshot.getAccountNumber();
+        while (true) {
+            AccountSnapshot current = cache.get(accountNumber);
+            if (current == null) {
+                if (cache.putIfAbsent(accountNumber, snapshot)) {
+                    return;
+                }
+            } else if (current.getVersion() >= snapshot.getVersion()
+                    || cache.replace(accountNumber, current, snapshot)) {
+                return;
+            }
+        }
+    }
+
+    private void publish(String accountNumber) {
+        if (invalidationTopic == null) {
+            return;
+        }
+        try {
+            invalidationTopic.publishAsync(nodeId + SEPARATOR + accountNumber);
+        } catch (RuntimeException e) {
+            // 다른 서버는 TTL 이 지나거나 version 조건 UPDATE 가 실패할 때 새 값을 읽는다.
+            log.warn("Failed to publish account cache invalidation : {}", accountNumber, e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.zerobase.account.cache;
+
+import com.zerobase.account.domain.Account;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+
+/**
+ * 엔티티로 바꾼 계좌(취소, 일괄 사용, 해지)도 commit 뒤에 캐시에 반영한다.
+ * 새로 만든 계좌는 없는 계좌 캐시에서 지운다.
+ * hibernate 가 스프링 빈으로 만든다. AccountCache 는 EntityManagerFactory 뒤에 만들어지므로 나중에 꺼낸다.
+ */
+@RequiredArgsConstructor
+public class AccountCacheListener {
+
+    private final ObjectProvider<AccountCache> accountCache;
+
+    // 없는 계좌로 기억한 서버가 있을 수 있다.
+    @PostPersist
+    public void postPersist(Account account) {
+        accountCache.ifAvailable(cache -> cache.evictAfterCommit(account.getAccountNumber()));
+    }
+
+    // version 은 UPDATE 전에 이미 올라가 있다.
+    @PostUpdate
+    public void postUpdate(Account account) {
+        accountCache.ifAvailable(cache -> cache.putAfterCommit(AccountSnapshot.from(account)));
+    }
+}
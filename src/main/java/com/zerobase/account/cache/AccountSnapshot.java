@@ -0,0 +1,34 @@
+package com.zerobase.account.cache;
+
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.type.AccountStatus;
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * 잔액 사용/검증에 필요한 계좌 값만 담은 캐시 항목
+ * version 은 Account.version 과 같다. 잔액 변경은 이 version 이 DB 와 같을 때만 성공한다.
+ */
+@Value
+public class AccountSnapshot implements Serializable {
+
+    Long id;
+    String accountNumber;
+    Long ownerId;
+    AccountStatus accountStatus;
+    Long balance;
+    Long version;
+
+    // accountUser 프록시를 초기화하지 않고 FK 값만 읽는다.
+    public static AccountSnapshot from(Account account) {
+        return new AccountSnapshot(account.getId(), account.getAccountNumber(),
+                account.getAccountUser().getId(), account.getAccountStatus(),
+                account.getBalance(), account.getVersion());
+    }
+
+    // version 조건 UPDATE 가 성공한 뒤의 값
+    public AccountSnapshot withBalance(Long balance) {
+        return new AccountSnapshot(id, accountNumber, ownerId, accountStatus, balance, version + 1);
+    }
+}
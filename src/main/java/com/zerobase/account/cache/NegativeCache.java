@@ -0,0 +1,36 @@
+package com.zerobase.account.cache;
+
+import javax.cache.Cache;
+
+/**
+ * 없다고 확인한 키를 짧은 TTL 동안 기억한다. 같은 없는 키를 다시 찾으면 DB 에 가지 않는다.
+ * - 키가 새로 생기면 evict 로 지운다. 다른 서버에는 TTL 이 지나야 보일 수 있으므로 TTL 을 짧게 둔다.
+ * - enabled=false 면 아무것도 기억하지 않는다.
+ */
+public class NegativeCache<K> {
+
+    private final Cache<K, Boolean> cache;
+    private final boolean enabled;
+
+    public NegativeCache(Cache<K, Boolean> cache, boolean enabled) {
+        this.cache = cache;
+        this.enabled = enabled;
+    }
+
+    public boolean isMissing(K key) {
+        // containsKey 는 적중 통계에 잡히지 않는다.
+        return enabled && cache.get(key) != null;
+    }
+
+    public void markMissing(K key) {
+        if (enabled) {
+            cache.put(key, Boolean.TRUE);
+        }
+    }
+
+    public void evict(K key) {
+        if (enabled) {
+            cache.remove(key);
+        }
+    }
+}
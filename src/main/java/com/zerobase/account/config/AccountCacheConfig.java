@@ -0,0 +1,119 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.cache.NegativeCache;
+import com.zerobase.account.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * 계좌번호로 찾는 계좌 캐시 (AccountCache)
+ * - account.cache.account.enabled=false 면 매번 DB 에서 읽는다.
+ * - 서버 간 무효화 알림은 account:cache:invalidation topic 으로 주고받는다.
+ * - 적중/실패/eviction 수는 cache.* 지표(cache=account)로 내보낸다.
+ * 없는 계좌번호와 사용자 ID 는 account.cache.negative.ttl-seconds 동안 기억한다. (cache=missingAccount, missingAccountUser)
+ */
+@Configuration
+public class AccountCacheConfig {
+
+    public static final String ACCOUNT_CACHE = "account";
+    public static final String MISSING_ACCOUNT_CACHE = "missingAccount";
+    public static final String MISSING_ACCOUNT_USER_CACHE = "missingAccountUser";
+    private static final String INVALIDATION_TOPIC = "account:cache:invalidation";
+
+    @Value("${account.cache.account.enabled:true}")
+    private boolean enabled;
+
+    @Value("${account.cache.account.max-entries:100000}")
+    private long maxEntries;
+
+    @Value("${account.cache.account.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${account.cache.negative.enabled:true}")
+    private boolean negativeEnabled;
+
+    @Value("${account.cache.negative.max-entries:100000}")
+    private long negativeMaxEntries;
+
+    @Value("${account.cache.negative.ttl-seconds:5}")
+    private long negativeTtlSeconds;
+
+    @Bean
+    public Cache<String, AccountSnapshot> accountSnapshotCache(CacheManager hibernateCacheManager) {
+        Cache<String, AccountSnapshot> cache = hibernateCacheManager.createCache(ACCOUNT_CACHE,
+                Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(String.class, AccountSnapshot.class,
+                                ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)))));
+        hibernateCacheManager.enableStatistics(ACCOUNT_CACHE, true);
+        return cache;
+    }
+
+    @Bean
+    public NegativeCache<String> missingAccountCache(CacheManager hibernateCacheManager) {
+        return new NegativeCache<>(createNegativeCache(hibernateCacheManager, MISSING_ACCOUNT_CACHE, String.class),
+                negativeEnabled);
+    }
+
+    @Bean
+    public NegativeCache<Long> missingAccountUserCache(CacheManager hibernateCacheManager) {
+        return new NegativeCache<>(createNegativeCache(hibernateCacheManager, MISSING_ACCOUNT_USER_CACHE, Long.class),
+                negativeEnabled);
+    }
+
+    private <K> Cache<K, Boolean> createNegativeCache(CacheManager cacheManager, String name, Class<K> keyType) {
+        Cache<K, Boolean> cache = cacheManager.createCache(name,
+                Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(keyType, Boolean.class,
+                                ResourcePoolsBuilder.heap(negativeMaxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(negativeTtlSeconds)))));
+        cacheManager.enableStatistics(name, true);
+        return cache;
+    }
+
+    @Bean(initMethod = "subscribe", destroyMethod = "close")
+    public AccountCache accountCache(Cache<String, AccountSnapshot> accountSnapshotCache,
+                                     NegativeCache<String> missingAccountCache,
+                                     AccountRepository accountRepository,
+                                     RedissonClient redissonClient,
+                                     MeterRegistry meterRegistry) {
+        return new AccountCache(accountSnapshotCache, missingAccountCache, accountRepository,
+                redissonClient.getTopic(INVALIDATION_TOPIC, StringCodec.INSTANCE),
+                meterRegistry, enabled);
+    }
+
+    @Bean
+    public MeterBinder accountCacheMetrics(Cache<String, AccountSnapshot> accountSnapshotCache) {
+        return new JCacheMetrics<>(accountSnapshotCache, Collections.emptyList());
+    }
+
+    // 캐시를 먼저 만들도록 NegativeCache 빈을 받는다.
+    @Bean
+    public MeterBinder negativeCacheMetrics(CacheManager hibernateCacheManager,
+                                            NegativeCache<String> missingAccountCache,
+                                            NegativeCache<Long> missingAccountUserCache) {
+        return registry -> {
+            new JCacheMetrics<>(hibernateCacheManager.getCache(MISSING_ACCOUNT_CACHE), Collections.emptyList())
+                    .bindTo(registry);
+            new JCacheMetrics<>(hibernateCacheManager.getCache(MISSING_ACCOUNT_USER_CACHE), Collections.emptyList())
+                    .bindTo(registry);
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.lane.AccountLaneExecutor;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * lane 모드(TransactionMode.LANE)에서 계좌번호 해시로 정해진 단일 스레드 lane 에서 잔액 변경을 실행한다.
+ */
+@Configuration
+@ConditionalOnTransactionMode(TransactionMode.LANE)
+public class AccountLaneConfig {
+
+    @Value("${account.lane.count:0}")
+    private int laneCount;
+
+    @Value("${account.lane.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Bean(destroyMethod = "shutdown")
+    public AccountLaneExecutor accountLaneExecutor(MeterRegistry meterRegistry) {
+        // 0 이면 CPU 코어 수만큼 lane 을 만든다.
+        int lanes = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        return new AccountLaneExecutor(lanes, queueCapacity, meterRegistry);
+    }
+}
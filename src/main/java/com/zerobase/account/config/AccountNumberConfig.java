@@ -0,0 +1,31 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.id.AccountNumberAllocator;
+import com.zerobase.account.id.JpaAccountNumberBlockStore;
+import com.zerobase.account.repository.AccountNumberSequenceRepository;
+import com.zerobase.account.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 계좌번호는 DB 시퀀스 테이블에서 account.account-number.block-size 개씩 예약해서 서버 메모리에서 나눠준다.
+ * 블록이 클수록 예약 횟수는 줄지만, 서버가 재시작하면 쓰지 않은 번호만큼 건너뛴다.
+ */
+@Configuration
+public class AccountNumberConfig {
+
+    @Value("${account.account-number.block-size:100}")
+    private int blockSize;
+
+    @Bean
+    public AccountNumberAllocator accountNumberAllocator(AccountNumberSequenceRepository sequenceRepository,
+                                                         AccountRepository accountRepository,
+                                                         PlatformTransactionManager transactionManager) {
+        return new AccountNumberAllocator(
+                new JpaAccountNumberBlockStore(sequenceRepository, accountRepository,
+                        transactionManager, AccountNumberAllocator.FIRST_ACCOUNT_NUMBER),
+                blockSize);
+    }
+}
@@ -0,0 +1,62 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.engine.AccountIndex;
+import com.zerobase.account.engine.BalanceEngine;
+import com.zerobase.account.engine.BalanceJournal;
+import com.zerobase.account.engine.BalancePersister;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.id.TransactionIdGenerator;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.TransactionRepository;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Paths;
+
+/**
+ * account.transaction.mode=memory 일 때 메모리 잔액 엔진을 만든다.
+ * - 저널 디렉터리는 서버마다 따로 두고, 재시작해도 남아 있는 디스크에 둔다.
+ * - index.expected-accounts 는 이 서버가 메모리에 올릴 계좌 수의 상한이다. 인덱스는 늘어나지 않으므로
+ *   넘으면 ACCOUNT_INDEX_FULL 로 실패한다. (account.engine.index.full 지표, 기동 시 계좌 수가 더 많으면 경고)
+ * - flush-interval-ms 는 DB 저장 묶음을 기다리는 최대 시간이다. 저널 fsync 는 기다리지 않고 바로 모아서 한다.
+ */
+@Configuration
+@ConditionalOnTransactionMode(TransactionMode.MEMORY)
+public class BalanceEngineConfig {
+
+    @Value("${account.engine.journal.directory:journal}")
+    private String journalDirectory;
+
+    @Value("${account.engine.journal.segment-size:67108864}")
+    private int segmentSize;
+
+    @Value("${account.engine.index.expected-accounts:1000000}")
+    private int expectedAccounts;
+
+    @Value("${account.engine.persist.batch-size:500}")
+    private int batchSize;
+
+    @Value("${account.engine.persist.flush-interval-ms:10}")
+    private long flushIntervalMillis;
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public BalanceEngine balanceEngine(TransactionTemplate transactionTemplate,
+                                       TransactionRepository transactionRepository,
+                                       AccountRepository accountRepository,
+                                       AccountCache accountCache,
+                                       TransactionIdGenerator transactionIdGenerator,
+                                       TransactionIdFilter transactionIdFilter,
+                                       MeterRegistry meterRegistry) {
+        return new BalanceEngine(
+                new AccountIndex(expectedAccounts),
+                new BalanceJournal(Paths.get(journalDirectory), segmentSize),
+                new BalancePersister(transactionTemplate, transactionRepository, accountRepository, accountCache),
+                accountRepository, transactionIdGenerator, transactionIdFilter, meterRegistry,
+                batchSize, flushIntervalMillis);
+    }
+}
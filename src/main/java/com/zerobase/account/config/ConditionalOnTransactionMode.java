@@ -0,0 +1,23 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.type.TransactionMode;
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * account.transaction.mode 가 value 중 하나일 때만 빈을 등록한다.
+ * TransactionModeConfig 와 같은 방식으로 읽으므로 대소문자를 구분하지 않고, 값이 없으면 lock 이다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnTransactionModeCondition.class)
+public @interface ConditionalOnTransactionMode {
+
+    TransactionMode[] value();
+}
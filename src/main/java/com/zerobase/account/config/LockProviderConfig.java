@@ -0,0 +1,93 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.DatabaseAccountLockProvider;
+import com.zerobase.account.lock.LeaseWatchdog;
+import com.zerobase.account.lock.LocalAccountLock;
+import com.zerobase.account.lock.LocalAccountLockProvider;
+import com.zerobase.account.lock.LockTimingPolicy;
+import com.zerobase.account.lock.LockWaitPolicy;
+import com.zerobase.account.lock.RedissonAccountLockProvider;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+/**
+ * account.lock.provider 설정으로 계좌 lock 구현체를 고른다.
+ * - local    : 서버 한 대(또는 테스트)용 메모리 lock
+ * - redisson : Redis 분산 lock (기본값)
+ * - database : Account 행에 대한 SELECT ... FOR UPDATE
+ *
+ * account.lock.wait-mode 로 lock 대기 방식을 고른다. (local, redisson 에 적용)
+ * - try   : 1초 안에 못 얻으면 실패 (기본값)
+ * - queue : 계좌별 FIFO 대기열, 대기열이 가득 차면 바로 실패
+ *           DB lock 은 DB 의 행 lock 대기열을 그대로 사용한다.
+ *
+ * account.lock.timing 으로 대기/임대 시간을 정하는 방식을 고른다.
+ * - static   : @AccountLock 의 tryLockTime, leaseTime 사용 (기본값)
+ * - adaptive : 최근 lock 보유 시간으로 대기/임대 시간을 줄이고, 오래 걸리는 요청은 임대를 갱신
+ */
+@Configuration
+public class LockProviderConfig {
+
+    @Value("${account.lock.wait-mode:try}")
+    private String waitMode;
+
+    @Value("${account.lock.queue.max-depth:32}")
+    private int maxQueueDepth;
+
+    @Value("${account.lock.timing:static}")
+    private String timing;
+
+    @Bean
+    public LockWaitPolicy lockWaitPolicy() {
+        if ("queue".equalsIgnoreCase(waitMode)) {
+            return LockWaitPolicy.queue(maxQueueDepth);
+        }
+        return LockWaitPolicy.tryOnce();
+    }
+
+    @Bean
+    public LockTimingPolicy lockTimingPolicy() {
+        return new LockTimingPolicy("adaptive".equalsIgnoreCase(timing));
+    }
+
+    @Bean
+    public LocalAccountLock localAccountLock(LockWaitPolicy lockWaitPolicy) {
+        return new LocalAccountLock(lockWaitPolicy.isQueued());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "local")
+    public AccountLockProvider localAccountLockProvider(LocalAccountLock localAccountLock,
+                                                        LockWaitPolicy lockWaitPolicy) {
+        return new LocalAccountLockProvider(localAccountLock, lockWaitPolicy);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "redisson", matchIfMissing = true)
+    public LeaseWatchdog leaseWatchdog(RedissonClient redissonClient) {
+        return new LeaseWatchdog(redissonClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "redisson", matchIfMissing = true)
+    public AccountLockProvider redissonAccountLockProvider(RedissonClient redissonClient,
+                                                           LocalAccountLock localAccountLock,
+                                                           LockWaitPolicy lockWaitPolicy,
+                                                           LeaseWatchdog leaseWatchdog) {
+        return new RedissonAccountLockProvider(redissonClient, localAccountLock, lockWaitPolicy, leaseWatchdog);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.provider", havingValue = "database")
+    public AccountLockProvider databaseAccountLockProvider(PlatformTransactionManager transactionManager,
+                                                           EntityManager entityManager) {
+        return new DatabaseAccountLockProvider(transactionManager, entityManager);
+    }
+}
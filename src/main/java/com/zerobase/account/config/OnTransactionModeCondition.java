@@ -0,0 +1,20 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.type.TransactionMode;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Arrays;
+import java.util.Map;
+
+class OnTransactionModeCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes =
+                metadata.getAnnotationAttributes(ConditionalOnTransactionMode.class.getName());
+        TransactionMode transactionMode = TransactionModeConfig.bind(context.getEnvironment());
+        return Arrays.asList((TransactionMode[]) attributes.get("value")).contains(transactionMode);
+    }
+}
@@ -0,0 +1,71 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.domain.AccountUser;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * hibernate 2차 캐시는 서버 메모리(ehcache)에 둔다.
+ * - 영역별 최대 개수와 TTL 은 account.cache.* 로 정한다. 설정하지 않은 영역은 기동 시 실패한다.
+ * - 적중/실패/put/eviction 수는 micrometer 의 cache.* 지표로 내보낸다. (/actuator/metrics/cache.gets)
+ * 서버마다 따로 캐시하므로, 다른 서버에서 바뀐 사용자 정보는 TTL 이 지나야 보인다.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${account.cache.account-user.max-entries:10000}")
+    private long accountUserMaxEntries;
+
+    @Value("${account.cache.account-user.ttl-seconds:600}")
+    private long accountUserTtlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // redisson 도 JCache 구현체를 들고 있으므로 ehcache 를 직접 지정한다.
+        EhcacheCachingProvider provider = (EhcacheCachingProvider)
+                Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+
+        // 기본 URI 의 CacheManager 는 JVM 안에서 공유되므로 컨텍스트마다 따로 만든다.
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:account:second-level-cache:" + UUID.randomUUID()),
+                ConfigurationBuilder.newConfigurationBuilder()
+                        .withCache(AccountUser.CACHE_REGION, CacheConfigurationBuilder
+                                .newCacheConfigurationBuilder(Object.class, Object.class,
+                                        ResourcePoolsBuilder.heap(accountUserMaxEntries))
+                                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(
+                                        Duration.ofSeconds(accountUserTtlSeconds))))
+                        .build());
+        cacheManager.enableStatistics(AccountUser.CACHE_REGION, true);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> new JCacheMetrics<>(hibernateCacheManager.getCache(AccountUser.CACHE_REGION),
+                Collections.singletonList(Tag.of("region", AccountUser.CACHE_REGION)))
+                .bindTo(registry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.id.SnowflakeNodeIdLease;
+import com.zerobase.account.id.SnowflakeTransactionIdGenerator;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.id.TransactionIdGenerator;
+import com.zerobase.account.id.UuidTransactionIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * account.transaction-id.generator 로 거래 ID 생성 방식을 고른다.
+ * - snowflake : 시간 순서 + 노드 ID + 순번, 11자리 base62 (기본값)
+ * - uuid      : 32자리 랜덤 UUID (기존 방식)
+ * snowflake 노드 ID 는 Redis 에서 임대한다. (SnowflakeNodeIdLease)
+ * account.transaction-id.node-id 를 지정하면 그 번호만 임대하고, 다른 서버가 쓰고 있으면 기동에 실패한다. (0 ~ 1023)
+ * 없는 거래 ID 조회는 TransactionIdFilter (account.transaction-id.filter.*) 로 메모리에서 거절한다.
+ */
+@Configuration
+public class TransactionIdConfig {
+
+    @Value("${account.transaction-id.generator:snowflake}")
+    private String generator;
+
+    @Value("${account.transaction-id.node-id:#{null}}")
+    private Long nodeId;
+
+    @Value("${account.transaction-id.node-lease-seconds:30}")
+    private long nodeLeaseSeconds;
+
+    @Value("${account.transaction-id.filter.expected-insertions:1000000}")
+    private long filterExpectedInsertions;
+
+    @Value("${account.transaction-id.filter.fpp:0.01}")
+    private double filterFpp;
+
+    @Value("${account.transaction-id.filter.margin-seconds:60}")
+    private long filterMarginSeconds;
+
+    @Value("${account.transaction-id.filter.refresh-interval-seconds:600}")
+    private long filterRefreshIntervalSeconds;
+
+    @Value("${account.transaction-id.filter.fetch-size:1000}")
+    private int filterFetchSize;
+
+    @Bean(destroyMethod = "close")
+    public SnowflakeNodeIdLease snowflakeNodeIdLease(RedissonClient redissonClient) {
+        return new SnowflakeNodeIdLease(redissonClient, nodeLeaseSeconds);
+    }
+
+    @Bean
+    public TransactionIdGenerator transactionIdGenerator(SnowflakeNodeIdLease snowflakeNodeIdLease) {
+        if ("uuid".equalsIgnoreCase(generator)) {
+            return new UuidTransactionIdGenerator();
+        }
+        return new SnowflakeTransactionIdGenerator(snowflakeNodeIdLease.acquire(nodeId));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public TransactionIdFilter transactionIdFilter(JdbcTemplate jdbcTemplate,
+                                                   TransactionIdGenerator transactionIdGenerator,
+                                                   SnowflakeNodeIdLease snowflakeNodeIdLease,
+                                                   MeterRegistry meterRegistry) {
+        return new TransactionIdFilter(jdbcTemplate, transactionIdGenerator, snowflakeNodeIdLease::isHeld,
+                meterRegistry, filterExpectedInsertions, filterFpp, filterMarginSeconds,
+                filterRefreshIntervalSeconds, filterFetchSize);
+    }
+}
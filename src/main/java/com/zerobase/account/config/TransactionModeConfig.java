@@ -0,0 +1,28 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.type.TransactionMode;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * account.transaction.mode 를 한 번만 읽어서 TransactionMode 빈으로 둔다. 모드마다 다른 빈은 이 값을 주입받는다.
+ */
+@Configuration
+public class TransactionModeConfig {
+
+    public static final String PROPERTY = "account.transaction.mode";
+
+    @Bean
+    public TransactionMode transactionMode(Environment environment) {
+        return bind(environment);
+    }
+
+    // enum 변환은 대소문자와 '-', '_' 를 구분하지 않는다. 없는 값이면 BindException
+    public static TransactionMode bind(Environment environment) {
+        return Binder.get(environment)
+                .bind(PROPERTY, TransactionMode.class)
+                .orElse(TransactionMode.LOCK);
+    }
+}
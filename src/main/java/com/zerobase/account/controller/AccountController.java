@@ -1,15 +1,21 @@
 package com.zerobase.account.controller;
 
 import com.zerobase.account.domain.Account;
+import com.zerobase.account.dto.AccountDto;
 import com.zerobase.account.dto.AccountInfo;
+import com.zerobase.account.dto.AccountListVersion;
 import com.zerobase.account.dto.CreateAccount;
 import com.zerobase.account.dto.DeleteAccount;
 import com.zerobase.account.service.AccountService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -40,10 +46,21 @@ public class AccountController {
         );
     }
 
+    // 계좌 목록이 그대로면 304 로 응답한다. (If-None-Match)
     @GetMapping("/account")
     public List<AccountInfo> getAccountsByUserId(
-            @RequestParam("user_id") Long userId
+            @RequestParam("user_id") Long userId,
+            ServletWebRequest webRequest
     ) {
+        Optional<AccountListVersion> version = accountService.getAccountListVersion(userId);
+        if (version.isPresent() && ConditionalGet.notModified(webRequest,
+                ConditionalGet.eTag(version.get().getCount(), version.get().getVersionSum(),
+                        version.get().getModeVersion(),
+                        ConditionalGet.toEpochMillis(version.get().getLastModified())),
+                version.get().getLastModified())) {
+            return null;
+        }
+
         // 이렇게 하는게 성능이 떨어질 수는 있다!
         // 진짜 성능으로 인해 심각한 문제가 발생할 때는 리팩토링 하면 됨
         return accountService.getAccountsByUserId(userId)
@@ -56,6 +73,19 @@ public class AccountController {
 
     }
 
+    // 원장 모드에서 at 시점의 잔액
+    @GetMapping("/account/{accountNumber}/balance")
+    public AccountInfo getBalanceAt(
+            @PathVariable String accountNumber,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        AccountDto accountDto = accountService.getBalanceAt(accountNumber, at);
+        return AccountInfo.builder()
+                .accountNumber(accountDto.getAccountNumber())
+                .balance(accountDto.getBalance())
+                .build();
+    }
+
     @GetMapping("/account/{id}")
     public Account getAccount(@PathVariable Long id) {
         return accountService.getAccount(id);
@@ -0,0 +1,42 @@
+package com.zerobase.account.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 조건부 GET. If-None-Match 가 현재 ETag 와 같으면 본문 없이 304 로 응답한다.
+ * - ETag 는 응답 본문이 아니라 DB 에서 가볍게 읽은 값(수정 시각, version 등)으로 만든다.
+ * - Last-Modified 는 초 단위라 1초 안에 여러 번 바뀌면 구분할 수 없으므로 알려주기만 하고
+ *   If-Modified-Since 로는 304 를 판단하지 않는다.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // 부분마다 36진수로 줄여서 '.' 으로 잇는다.
+    static String eTag(long... parts) {
+        return Arrays.stream(parts)
+                .mapToObj(part -> Long.toString(part, 36))
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? 0L : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * ETag/Last-Modified 헤더를 쓰고, 304 로 응답해야 하면 true
+     */
+    static boolean notModified(ServletWebRequest request, String eTag, LocalDateTime lastModified) {
+        if (lastModified != null && request.getResponse() != null) {
+            request.getResponse().setDateHeader(HttpHeaders.LAST_MODIFIED, toEpochMillis(lastModified));
+        }
+        return request.checkNotModified(eTag);
+    }
+}
@@ -3,20 +3,34 @@ package com.zerobase.account.controller;
 import com.zerobase.account.aop.AccountLock;
 import com.zerobase.account.dto.CancelBalance;
 import com.zerobase.account.dto.QueryTransactionResponse;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.TransactionHistory;
 import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.service.FailedTransactionRecorder;
 import com.zerobase.account.service.TransactionService;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * 잔액 관련 컨트롤러
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 일괄 사용
+ * 5. 계좌 거래 내역
  */
 @Slf4j
 @RestController
@@ -24,6 +38,7 @@ import javax.validation.Valid;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
 
     @PostMapping("/transaction/use")
     @AccountLock
@@ -39,13 +54,52 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use balance.");
 
-            transactionService.saveFailedUseTransaction(request.getAccountNumber(), request.getAmount());
+            // 실패 기록은 lock 밖에서 모아서 저장한다.
+            failedTransactionRecorder.record(TransactionType.USE, request.getAccountNumber(), request.getAmount());
 
             throw e;
         }
 
     }
 
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @RequestBody @Valid UseBalanceBatch.Request request) {
+
+        UseBalanceBatch.Item[] results = new UseBalanceBatch.Item[request.getRequests().size()];
+
+        // 계좌별로 lock 을 한 번만 잡고, 결과는 요청 순서대로 돌려준다.
+        for (UseBalanceBatch.AccountRequests accountRequests : request.groupByAccount()) {
+            List<Integer> indexes = accountRequests.getIndexes();
+            try {
+                List<TransactionDto> transactionDtos = transactionService.useBalanceBatch(accountRequests);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = UseBalanceBatch.Item.from(transactionDtos.get(i));
+                }
+            } catch (AccountException e) {
+                log.error("Failed to use balance. accountNumber : {}", accountRequests.getAccountNumber());
+
+                fail(results, accountRequests, e.getErrorCode());
+            } catch (RuntimeException e) {
+                // 한 계좌의 예상 못 한 오류로 다른 계좌 결과까지 500 으로 잃지 않는다.
+                log.error("Failed to use balance. accountNumber : {}", accountRequests.getAccountNumber(), e);
+
+                fail(results, accountRequests, ErrorCode.INTERNAL_SERVER_ERROR);
+            }
+        }
+
+        return new UseBalanceBatch.Response(Arrays.asList(results));
+    }
+
+    private static void fail(UseBalanceBatch.Item[] results,
+                             UseBalanceBatch.AccountRequests accountRequests, ErrorCode errorCode) {
+        List<Integer> indexes = accountRequests.getIndexes();
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = UseBalanceBatch.Item.fail(
+                    accountRequests.getRequests().get(i), errorCode);
+        }
+    }
+
     @PostMapping("/transaction/cancel")
     @AccountLock
     public CancelBalance.Response cancelBalance(
@@ -58,16 +112,24 @@ public class TransactionController {
         } catch (AccountException e) {
             log.error("Failed to use balance.");
 
-            transactionService.saveFailedCancelTransaction(request.getAccountNumber(), request.getAmount());
+            failedTransactionRecorder.record(TransactionType.CANCEL, request.getAccountNumber(), request.getAmount());
 
             throw e;
         }
 
     }
 
+    // 거래가 그대로면 304 로 응답한다. (If-None-Match)
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(
-            @PathVariable String transactionId) {
+            @PathVariable String transactionId,
+            ServletWebRequest webRequest) {
+
+        Optional<LocalDateTime> lastModified = transactionService.getTransactionLastModified(transactionId);
+        if (lastModified.isPresent() && ConditionalGet.notModified(webRequest,
+                ConditionalGet.eTag(ConditionalGet.toEpochMillis(lastModified.get())), lastModified.get())) {
+            return null;
+        }
 
         return QueryTransactionResponse.from(
                 transactionService.queryTransaction(transactionId)
@@ -75,4 +137,17 @@ public class TransactionController {
 
     }
 
+    // 다음 페이지는 응답의 nextCursor 를 cursor 로 넘겨서 조회한다.
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "transaction_type", required = false) TransactionType transactionType,
+            @RequestParam(value = "transaction_result", required = false) TransactionResultType transactionResult,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        return transactionService.getTransactionHistory(accountNumber,
+                transactionType, transactionResult, cursor, size);
+    }
+
 }
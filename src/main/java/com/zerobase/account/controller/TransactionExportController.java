@@ -0,0 +1,43 @@
+package com.zerobase.account.controller;
+
+import com.zerobase.account.export.ExportFormat;
+import com.zerobase.account.export.TransactionExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * 기간 내 거래 내보내기 (NDJSON / CSV)
+ * 응답 본문은 DB 에서 읽는 대로 바로 흘려보낸다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class TransactionExportController {
+
+    private final TransactionExporter transactionExporter;
+
+    @GetMapping("/transaction/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+
+        // 스트리밍이 시작되면 에러 응답을 보낼 수 없으므로 요청 값은 먼저 검사한다.
+        TransactionExporter.checkRange(from, to);
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions-"
+                        + from + "-" + to + "." + exportFormat.getExtension() + "\"")
+                .body(outputStream -> transactionExporter.export(from, to, exportFormat, outputStream));
+    }
+}
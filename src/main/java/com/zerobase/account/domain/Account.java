@@ -1,14 +1,21 @@
 package com.zerobase.account.domain;
 
+import com.zerobase.account.cache.AccountCacheListener;
 import com.zerobase.account.exception.AccountException;
 import com.zerobase.account.type.AccountStatus;
 import com.zerobase.account.type.ErrorCode;
 import lombok.*;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 // @CreatedDate, @LastModifiedDate를 사용하기 위해서
@@ -21,10 +28,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+// 계좌번호가 겹치면 저장 단계에서 실패하도록 유니크 인덱스를 둔다.
+@Table(indexes = @Index(name = "uk_account_account_number", columnList = "accountNumber", unique = true))
+// 엔티티로 바꾼 계좌는 commit 뒤에 계좌 캐시에도 반영한다.
+@EntityListeners(AccountCacheListener.class)
 public class Account extends BaseEntity{
 
     // 그냥 user일 경우 DB에 user라는 테이블과 충돌이 일어날 수 있기 때문이다.
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
     private String accountNumber;
 
@@ -36,6 +47,15 @@ public class Account extends BaseEntity{
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    // 원장 모드에서 balance 에 반영한 마지막 LedgerEntry 순번 (balance 는 이 순번까지의 스냅샷)
+    @Builder.Default
+    @Column(nullable = false)
+    private Long ledgerSequence = 0L;
+
+    // 낙관적 lock : 읽은 뒤에 다른 트랜잭션이 계좌를 바꿨으면 commit 시점에 실패한다.
+    @Version
+    private Long version;
+
     public void useBalance(Long amount) {
         if(amount > this.balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
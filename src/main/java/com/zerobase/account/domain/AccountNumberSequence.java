@@ -0,0 +1,22 @@
+package com.zerobase.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+// 계좌번호 블록 예약용 시퀀스 테이블. nextValue 는 아직 아무 서버에도 나눠주지 않은 첫 번호다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class AccountNumberSequence {
+
+    @Id
+    private String name;
+
+    private Long nextValue;
+
+}
@@ -0,0 +1,37 @@
+package com.zerobase.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * 분할 잔액 모드(account.transaction.mode=split)에서 계좌 잔액을 나눠 담는 슬롯
+ * - 한 계좌에 슬롯 번호 0 ~ slots-1 행이 있고, 사용은 한 슬롯 행만 잠그고 바꾼다.
+ * - 현재 잔액 = Account.balance + 슬롯 잔액 합 (나눈 뒤에는 Account.balance 가 0)
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "uk_account_slot_account_slot", columnList = "accountId, slot", unique = true))
+public class AccountSlot {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    // 계좌를 읽지 않도록 FK 값만 둔다.
+    private Long accountId;
+    private Integer slot;
+    private Long balance;
+
+    // 목록 조회 ETag 에 쓴다. (모든 UPDATE 가 올림)
+    @Version
+    private Long version;
+}
@@ -1,7 +1,14 @@
 package com.zerobase.account.domain;
 
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
 import lombok.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 
 @Getter
@@ -10,9 +17,30 @@ import javax.persistence.Entity;
 @NoArgsConstructor
 @Builder
 @Entity
+// 거의 바뀌지 않고 모든 계좌 요청이 읽으므로 hibernate 2차 캐시에 둔다. (SecondLevelCacheConfig 의 accountUser 영역)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = AccountUser.CACHE_REGION)
 public class AccountUser extends BaseEntity {
 
+    public static final String CACHE_REGION = "accountUser";
+
     private String name;
 
+    // 해지되지 않은 계좌 수. 계좌 개설/해지 시 사용자 행 lock 을 잡은 상태에서만 바꾼다.
+    // 벌크 UPDATE 는 2차 캐시 영역 전체를 비우므로 쓰지 않는다.
+    @ColumnDefault("0")
+    private Integer accountCount;
+
+    public void increaseAccountCount(int max) {
+        if (accountCount >= max) {
+            throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
+        }
+        this.accountCount++;
+    }
 
+    public void decreaseAccountCount() {
+        if (accountCount > 0) {
+            this.accountCount--;
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package com.zerobase.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 원장 모드(account.transaction.mode=ledger)의 잔액 변경 기록. INSERT 만 하고 고치거나 지우지 않는다.
+ * - 계좌별 순번(sequence)은 1 부터 빈틈없이 올라간다. (accountId, sequence) 유니크 인덱스 때문에
+ *   같은 잔액을 보고 동시에 기록하면 하나만 성공하고, 나머지는 다시 읽어서 재시도한다.
+ * - 현재 잔액 = Account.balance (스냅샷) + Account.ledgerSequence 이후 기록의 amount 합
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "uk_ledger_entry_account_sequence", columnList = "accountId, sequence", unique = true),
+        @Index(name = "idx_ledger_entry_account_created_at", columnList = "accountId, createdAt")
+})
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    // 계좌를 읽지 않도록 FK 값만 둔다.
+    private Long accountId;
+    private Long sequence;
+
+    // 사용은 음수, 취소는 양수. 개설 잔액은 기록하지 않고 Account.balance 에 들어 있다.
+    private Long amount;
+
+    private String transactionId;
+
+    private LocalDateTime createdAt;
+}
@@ -7,7 +7,10 @@ import lombok.*;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 @Getter
@@ -16,6 +19,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+// 거래 ID 로 조회하므로 유니크 인덱스를 둔다.
+// 계좌별 거래 내역은 (계좌, 거래 시각, id) 순서로 읽으므로 같은 순서의 인덱스를 둔다.
+// 한 페이지(최대 101행)만 읽어서 행을 찾아가는 비용이 작으므로 covering 으로 만들지 않는다. (내역 컬럼을 다 넣으면 테이블 크기에 가깝다)
+// 기간 내보내기(TransactionExporter)는 (거래 시각, id) 순서로 읽는다.
+@Table(indexes = {
+        @Index(name = "uk_transaction_transaction_id", columnList = "transactionId", unique = true),
+        @Index(name = "idx_transaction_account_history", columnList = "account_id, transactedAt, id"),
+        @Index(name = "idx_transaction_transacted_at", columnList = "transactedAt, id")
+})
 public class Transaction extends BaseEntity{
 
     @Enumerated(EnumType.STRING)
@@ -23,7 +35,7 @@ public class Transaction extends BaseEntity{
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
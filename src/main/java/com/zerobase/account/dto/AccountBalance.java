@@ -0,0 +1,11 @@
+package com.zerobase.account.dto;
+
+/**
+ * 계좌의 id 와 잔액만 조회하는 projection
+ */
+public interface AccountBalance {
+
+    Long getId();
+
+    Long getBalance();
+}
@@ -0,0 +1,37 @@
+package com.zerobase.account.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사용자 계좌 목록이 바뀌었는지 판단하는 값
+ * - 계좌를 만들면 count 가, 잔액이나 상태가 바뀌면 versionSum 이 커진다. (모든 UPDATE 가 version 을 올림)
+ * - 계좌 행을 바꾸지 않는 잔액 변경은 modeVersion 이 커진다.
+ *   (원장 모드는 계좌별 마지막 원장 순번 합, 분할 잔액 모드는 슬롯 version 합,
+ *   memory 모드는 이 서버의 저널 위치 - 다른 사용자의 거래에도 커진다, 그 외 모드는 0)
+ */
+@Value
+public class AccountListVersion {
+
+    Long count;
+    Long versionSum;
+    LocalDateTime lastModified;
+    Long modeVersion;
+
+    // 계좌 행 집계 쿼리용
+    public AccountListVersion(Long count, Long versionSum, LocalDateTime lastModified) {
+        this(count, versionSum, lastModified, 0L);
+    }
+
+    public AccountListVersion(Long count, Long versionSum, LocalDateTime lastModified, Long modeVersion) {
+        this.count = count;
+        this.versionSum = versionSum;
+        this.lastModified = lastModified;
+        this.modeVersion = modeVersion;
+    }
+
+    public AccountListVersion withModeVersion(Long modeVersion) {
+        return new AccountListVersion(count, versionSum, lastModified, modeVersion);
+    }
+}
@@ -0,0 +1,11 @@
+package com.zerobase.account.dto;
+
+/**
+ * 계좌별 슬롯 잔액 합 projection (분할 잔액 모드)
+ */
+public interface AccountSlotBalance {
+
+    Long getAccountId();
+
+    Long getBalance();
+}
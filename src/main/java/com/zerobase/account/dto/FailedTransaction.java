@@ -0,0 +1,22 @@
+package com.zerobase.account.dto;
+
+import com.zerobase.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 나중에 FAIL 거래로 기록할 실패 요청
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+public class FailedTransaction {
+
+    private TransactionType transactionType;
+    private String accountNumber;
+    private Long amount;
+
+    // 실패한 시각 (기록 시각이 아니라 요청이 실패한 시각으로 저장한다.)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,28 @@
+package com.zerobase.account.dto;
+
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.type.AccountStatus;
+import lombok.Value;
+
+/**
+ * 원장 모드의 현재 잔액 (스냅샷 + 이후 원장 기록 합)과 마지막 원장 순번
+ */
+@Value
+public class LedgerBalance {
+
+    Long accountId;
+    String accountNumber;
+    Long ownerId;
+    AccountStatus accountStatus;
+    Long balance;
+    Long sequence;
+
+    public LedgerBalance append(Long amount) {
+        return new LedgerBalance(accountId, accountNumber, ownerId, accountStatus, balance + amount, sequence + 1);
+    }
+
+    // 잔액 사용 검증과 거래 기록에 쓴다. 원장 모드에서는 Account.version 을 보지 않는다.
+    public AccountSnapshot toAccountSnapshot() {
+        return new AccountSnapshot(accountId, accountNumber, ownerId, accountStatus, balance, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.zerobase.account.dto;
+
+/**
+ * 스냅샷에 아직 반영하지 않은 계좌별 원장 기록 요약 projection
+ */
+public interface LedgerPending {
+
+    Long getAccountId();
+
+    String getAccountNumber();
+
+    // 스냅샷의 마지막 순번
+    Long getFromSequence();
+
+    Long getToSequence();
+
+    Long getAmount();
+
+    Long getEntries();
+}
@@ -1,6 +1,7 @@
 package com.zerobase.account.dto;
 
 import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.type.ErrorCode;
 import com.zerobase.account.type.TransactionResultType;
 import com.zerobase.account.type.TransactionType;
 import lombok.*;
@@ -24,6 +25,9 @@ public class TransactionDto {
     private String transactionId;
     private LocalDateTime transactedAt;
 
+    // 실패한 거래의 사유 (일괄 처리 결과에서 사용)
+    private ErrorCode errorCode;
+
     public static TransactionDto fromEntity(Transaction transaction) {
         return  TransactionDto.builder()
                 .accountNumber(transaction.getAccount().getAccountNumber())
@@ -35,4 +39,23 @@ public class TransactionDto {
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    // 계좌 프록시를 초기화하지 않도록 계좌번호를 따로 받는다.
+    public static TransactionDto fromEntity(Transaction transaction, String accountNumber) {
+        return  TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    public static TransactionDto fromEntity(Transaction transaction, ErrorCode errorCode) {
+        TransactionDto transactionDto = fromEntity(transaction);
+        transactionDto.setErrorCode(errorCode);
+        return transactionDto;
+    }
 }
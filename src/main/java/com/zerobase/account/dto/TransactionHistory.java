@@ -0,0 +1,82 @@
+package com.zerobase.account.dto;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+public class TransactionHistory {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private List<Item> transactions;
+        // 다음 페이지가 없으면 null
+        private String nextCursor;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private String transactionId;
+        private TransactionType transactionType;
+        private TransactionResultType transactionResult;
+        private Long amount;
+        private Long balanceSnapshot;
+        private LocalDateTime transactedAt;
+
+        public static Item from(TransactionSummary transactionSummary) {
+            return Item.builder()
+                    .transactionId(transactionSummary.getTransactionId())
+                    .transactionType(transactionSummary.getTransactionType())
+                    .transactionResult(transactionSummary.getTransactionResultType())
+                    .amount(transactionSummary.getAmount())
+                    .balanceSnapshot(transactionSummary.getBalanceSnapshot())
+                    .transactedAt(transactionSummary.getTransactedAt())
+                    .build();
+        }
+    }
+
+    /**
+     * 마지막으로 돌려준 거래의 (transactedAt, id). 다음 페이지는 이 값보다 오래된 거래부터 읽는다.
+     * 클라이언트에는 불투명한 문자열로 내보낸다.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final LocalDateTime transactedAt;
+        private final Long id;
+
+        public static Cursor of(TransactionSummary transactionSummary) {
+            return new Cursor(transactionSummary.getTransactedAt(), transactionSummary.getId());
+        }
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (transactedAt + "," + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String[] values = new String(Base64.getUrlDecoder().decode(cursor),
+                        StandardCharsets.UTF_8).split(",");
+                return new Cursor(LocalDateTime.parse(values[0]), Long.parseLong(values[1]));
+            } catch (RuntimeException e) {
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+        }
+    }
+}
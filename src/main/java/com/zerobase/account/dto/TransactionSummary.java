@@ -0,0 +1,26 @@
+package com.zerobase.account.dto;
+
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 거래 내역 목록용 projection (계좌/사용자 엔티티를 읽지 않음)
+ */
+public interface TransactionSummary {
+
+    Long getId();
+
+    String getTransactionId();
+
+    TransactionType getTransactionType();
+
+    TransactionResultType getTransactionResultType();
+
+    Long getAmount();
+
+    Long getBalanceSnapshot();
+
+    LocalDateTime getTransactedAt();
+}
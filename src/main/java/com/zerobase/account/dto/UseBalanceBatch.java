@@ -0,0 +1,104 @@
+package com.zerobase.account.dto;
+
+import com.zerobase.account.aop.AccountLockIdInterface;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UseBalanceBatch {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = 1000)
+        @Valid
+        private List<UseBalance.Request> requests;
+
+        // 요청 순서를 유지한 채로 계좌번호별로 묶는다.
+        public List<AccountRequests> groupByAccount() {
+            Map<String, AccountRequests> groups = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                UseBalance.Request request = requests.get(i);
+                groups.computeIfAbsent(request.getAccountNumber(), AccountRequests::new)
+                        .add(i, request);
+            }
+            return new ArrayList<>(groups.values());
+        }
+    }
+
+    /**
+     * 한 계좌에 대한 사용 요청 묶음 (계좌 lock 은 묶음 단위로 한 번만 잡는다.)
+     */
+    @Getter
+    public static class AccountRequests implements AccountLockIdInterface {
+        private final String accountNumber;
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<UseBalance.Request> requests = new ArrayList<>();
+
+        public AccountRequests(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        public void add(int index, UseBalance.Request request) {
+            indexes.add(index);
+            requests.add(request);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<Item> results;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private String accountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+        private ErrorCode errorCode;
+
+        // DTO -> Item
+        public static Item from(TransactionDto transactionDto) {
+            return Item.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .errorCode(transactionDto.getErrorCode())
+                    .build();
+        }
+
+        // 거래 기록 없이 실패한 경우 (lock 실패, 계좌 없음)
+        public static Item fail(UseBalance.Request request, ErrorCode errorCode) {
+            return Item.builder()
+                    .accountNumber(request.getAccountNumber())
+                    .transactionResult(TransactionResultType.FAIL)
+                    .amount(request.getAmount())
+                    .errorCode(errorCode)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.type.AccountStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 계좌번호(10자리 숫자)를 long 키로 바꿔서 계좌 id, 소유주 id, 상태, 잔액을 찾는 open addressing 해시 테이블
+ * - 값은 JVM 힙 밖(direct ByteBuffer)에 슬롯 하나당 long 4개(32 byte, 캐시 라인 하나 안)로 둔다.
+ *   계좌 객체나 String 을 만들지 않는다.
+ * - 조회와 잔액 CAS 는 lock 없이, 추가는 한 번에 하나씩 한다. 슬롯을 지우거나 옮기지 않으므로
+ *   슬롯 번호는 한 번 정해지면 바뀌지 않는다.
+ * - 크기를 늘리지 않는다. capacity 는 계좌 수보다 넉넉하게 잡는다. (사용률 75% 를 넘으면 추가 실패, FULL)
+ */
+public final class AccountIndex {
+
+    public static final int ABSENT = -1;
+    public static final int FULL = -2;
+    // 슬롯 버퍼는 ByteBuffer 하나(int 위치, 2GB 미만)이므로 capacity 는 2^25 (1GB) 까지고, 그 75% 까지 넣을 수 있다.
+    // offset 도 이 범위 안이라 int 로 계산한다.
+    public static final int MAX_EXPECTED_ACCOUNTS = (1 << 25) / 4 * 3;
+
+    private static final int SLOT_BYTES = Long.BYTES * 4;
+    private static final int KEY = 0;
+    private static final int ID = Long.BYTES;
+    // 소유주 id << 8 | 상태
+    private static final int OWNER_STATUS = Long.BYTES * 2;
+    private static final int BALANCE = Long.BYTES * 3;
+    private static final int STATUS_BITS = 8;
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+    private static final int ACCOUNT_NUMBER_LENGTH = 10;
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int maxSize;
+    private volatile int size;
+
+    public AccountIndex(int expectedAccounts) {
+        if (expectedAccounts < 1 || expectedAccounts > MAX_EXPECTED_ACCOUNTS) {
+            throw new IllegalArgumentException("Expected accounts must be between 1 and " + MAX_EXPECTED_ACCOUNTS
+                    + " (one direct ByteBuffer of 32 byte slots must stay under 2GB) : " + expectedAccounts);
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expectedAccounts / 0.75)) - 1) << 1;
+        this.mask = capacity - 1;
+        this.maxSize = (int) (capacity * 0.75);
+        // CAS 는 8 byte 정렬된 위치에서만 된다. 슬롯이 캐시 라인을 걸치지 않도록 64 byte 에 맞춘다.
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES + 64).alignedSlice(64);
+    }
+
+    /**
+     * @return 10자리 숫자가 아니면 -1
+     */
+    public static long toKey(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != ACCOUNT_NUMBER_LENGTH) {
+            return -1L;
+        }
+        long key = 0L;
+        for (int i = 0; i < ACCOUNT_NUMBER_LENGTH; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * @return 슬롯 번호, 없으면 ABSENT
+     */
+    public int find(long key) {
+        if (key < 0) {
+            return ABSENT;
+        }
+        // 빈 슬롯과 구분하려고 key + 1 을 저장한다.
+        long stored = key + 1;
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            long current = (long) LONGS.getAcquire(slots, offset(slot, KEY));
+            if (current == stored) {
+                return slot;
+            }
+            if (current == 0L) {
+                return ABSENT;
+            }
+        }
+    }
+
+    /**
+     * 이미 있으면 그 슬롯을 그대로 돌려준다.
+     *
+     * @return 슬롯 번호, 더 넣을 수 없으면 FULL
+     */
+    public synchronized int putIfAbsent(long key, long id, long ownerId, AccountStatus status, long balance) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Account number must be 10 digits");
+        }
+        long stored = key + 1;
+        int slot = slotOf(key);
+        for (; ; slot = (slot + 1) & mask) {
+            long current = (long) LONGS.getAcquire(slots, offset(slot, KEY));
+            if (current == stored) {
+                return slot;
+            }
+            if (current == 0L) {
+                break;
+            }
+        }
+        if (size >= maxSize) {
+            return FULL;
+        }
+        LONGS.set(slots, offset(slot, ID), id);
+        LONGS.set(slots, offset(slot, OWNER_STATUS), ownerId << STATUS_BITS | status.ordinal());
+        LONGS.set(slots, offset(slot, BALANCE), balance);
+        // 키를 마지막에 써서, 키가 보이면 나머지 값도 보이게 한다.
+        LONGS.setRelease(slots, offset(slot, KEY), stored);
+        size++;
+        return slot;
+    }
+
+    public long key(int slot) {
+        return (long) LONGS.getAcquire(slots, offset(slot, KEY)) - 1;
+    }
+
+    public long id(int slot) {
+        return (long) LONGS.get(slots, offset(slot, ID));
+    }
+
+    public long ownerId(int slot) {
+        return (long) LONGS.getVolatile(slots, offset(slot, OWNER_STATUS)) >> STATUS_BITS;
+    }
+
+    public AccountStatus status(int slot) {
+        return STATUSES[(int) ((long) LONGS.getVolatile(slots, offset(slot, OWNER_STATUS)) & STATUS_MASK)];
+    }
+
+    // 소유주는 바뀌지 않으므로 상태만 바꿔 쓴다. (putIfAbsent 와 같이 한 번에 하나씩)
+    public synchronized void setStatus(int slot, AccountStatus status) {
+        long ownerStatus = (long) LONGS.getVolatile(slots, offset(slot, OWNER_STATUS));
+        LONGS.setVolatile(slots, offset(slot, OWNER_STATUS), ownerStatus & ~STATUS_MASK | status.ordinal());
+    }
+
+    public long balance(int slot) {
+        return (long) LONGS.getVolatile(slots, offset(slot, BALANCE));
+    }
+
+    public boolean compareAndSetBalance(int slot, long expected, long balance) {
+        return LONGS.compareAndSet(slots, offset(slot, BALANCE), expected, balance);
+    }
+
+    public long addBalance(int slot, long delta) {
+        return (long) LONGS.getAndAdd(slots, offset(slot, BALANCE), delta) + delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 넣을 수 있는 계좌 수
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // 힙 밖에 잡은 바이트 수
+    public long memoryBytes() {
+        return (long) capacity() * SLOT_BYTES;
+    }
+
+    private int slotOf(long key) {
+        // 계좌번호는 순서대로 발급되므로 섞어서 흩뜨린다. (fmix64)
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private static int offset(int slot, int field) {
+        return slot * SLOT_BYTES + field;
+    }
+}
@@ -0,0 +1,363 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.id.TransactionIdGenerator;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.type.AccountStatus;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌 잔액을 메모리에 두고 CAS 로 바꾸는 잔액 엔진 (account.transaction.mode=memory)
+ * - 계좌는 처음 쓸 때 DB 에서 한 번 읽고, 그 뒤로는 메모리 값(AccountIndex)이 기준이다.
+ * - 잔액을 바꾸면 저널(BalanceJournal)에 기록하고 fsync 될 때까지 기다린 뒤 성공으로 답한다.
+ *   DB 의 Transaction / Account 는 writer 스레드가 모아서 나중에 저장한다. (BalancePersister)
+ * - 기동 시 checkpoint 이후의 저널 기록을 모두 DB 에 저장한 뒤에 요청을 받는다.
+ *   그래서 처음 읽는 계좌의 DB 잔액은 항상 최신이다.
+ * - 서버마다 따로 잔액을 들고 있으므로 한 계좌의 요청이 한 서버로 라우팅되는 환경에서만 쓴다.
+ */
+@Slf4j
+public class BalanceEngine {
+
+    private final AccountIndex accounts;
+    private final BalanceJournal journal;
+    private final BalancePersister persister;
+    private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionIdFilter transactionIdFilter;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    // 아직 DB 에 저장하지 않은 거래 (거래 조회/취소용)
+    private final Map<String, JournalRecord> unpersisted = new ConcurrentHashMap<>();
+
+    private final Counter casRetries;
+    private final Counter persisted;
+    private final Counter persistFailed;
+    private final Counter indexFull;
+    private final Timer durableWait;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public BalanceEngine(AccountIndex accounts,
+                         BalanceJournal journal,
+                         BalancePersister persister,
+                         AccountRepository accountRepository,
+                         TransactionIdGenerator transactionIdGenerator,
+                         TransactionIdFilter transactionIdFilter,
+                         MeterRegistry meterRegistry,
+                         int batchSize,
+                         long flushIntervalMillis) {
+        this.accounts = accounts;
+        this.journal = journal;
+        this.persister = persister;
+        this.accountRepository = accountRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionIdFilter = transactionIdFilter;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+
+        this.casRetries = meterRegistry.counter("account.engine.cas.retries");
+        this.persisted = meterRegistry.counter("account.engine.persisted");
+        this.persistFailed = meterRegistry.counter("account.engine.persist.error");
+        this.indexFull = meterRegistry.counter("account.engine.index.full");
+        this.durableWait = meterRegistry.timer("account.engine.journal.fsync.wait");
+        Gauge.builder("account.engine.accounts", accounts, AccountIndex::size)
+                .register(meterRegistry);
+        Gauge.builder("account.engine.index.max-size", accounts, AccountIndex::maxSize)
+                .register(meterRegistry);
+        Gauge.builder("account.engine.index.memory", accounts, AccountIndex::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("account.engine.unpersisted", unpersisted, Map::size)
+                .description("저널에만 있고 DB 에 저장하지 않은 거래 수")
+                .register(meterRegistry);
+        Gauge.builder("account.engine.journal.lag", journal, BalanceJournal::lag)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void start() throws IOException, InterruptedException {
+        List<BalanceJournal.Entry> entries = journal.open();
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<BalanceJournal.Entry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            persist(batch);
+        }
+        if (!entries.isEmpty()) {
+            log.info("Recovered {} journal records", entries.size());
+        }
+        // 인덱스는 늘어나지 않으므로 계좌가 이미 더 많으면 기동할 때 알린다.
+        long accountCount = accountRepository.count();
+        if (accountCount > accounts.maxSize()) {
+            log.warn("Account index holds only {} of {} accounts. Raise account.engine.index.expected-accounts",
+                    accounts.maxSize(), accountCount);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "balance-engine-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        journal.close();
+    }
+
+    /**
+     * 메모리의 계좌 값. 잔액 검증 전에 소유주/상태를 확인할 때 쓴다.
+     */
+    public Optional<AccountSnapshot> getAccount(String accountNumber) {
+        int slot = slot(accountNumber);
+        if (slot == AccountIndex.ABSENT) {
+            return Optional.empty();
+        }
+        // 메모리 값은 version 을 쓰지 않는다.
+        return Optional.of(new AccountSnapshot(accounts.id(slot), accountNumber, accounts.ownerId(slot),
+                accounts.status(slot), accounts.balance(slot), null));
+    }
+
+    /**
+     * 잔액 사용 요청을 객체를 만들지 않고 검증한다. (이미 메모리에 올라온 계좌)
+     *
+     * @return 통과하면 null. ACCOUNT_NOT_FOUND / USER_ACCOUNT_UN_MATCH 는 사용자 존재 여부를 확인한 뒤 응답한다.
+     */
+    public ErrorCode checkUse(Long userId, String accountNumber, Long amount) {
+        int slot = slot(accountNumber);
+        if (slot == AccountIndex.ABSENT) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        if (userId == null || accounts.ownerId(slot) != userId) {
+            return ErrorCode.USER_ACCOUNT_UN_MATCH;
+        }
+        if (accounts.status(slot) != AccountStatus.IN_USE) {
+            return ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        }
+        if (accounts.balance(slot) < amount) {
+            return ErrorCode.AMOUNT_EXCEED_BALANCE;
+        }
+        return null;
+    }
+
+    /**
+     * 이미 메모리에 올라온 계좌의 잔액. 없으면 DB 값이 최신이다.
+     */
+    public Optional<Long> getBalance(String accountNumber) {
+        int slot = accounts.find(AccountIndex.toKey(accountNumber));
+        return slot == AccountIndex.ABSENT ? Optional.empty() : Optional.of(accounts.balance(slot));
+    }
+
+    public void unregister(String accountNumber) {
+        int slot = accounts.find(AccountIndex.toKey(accountNumber));
+        if (slot != AccountIndex.ABSENT) {
+            accounts.setStatus(slot, AccountStatus.UNREGISTERED);
+        }
+    }
+
+    public JournalRecord use(String accountNumber, Long amount) {
+        int slot = existingSlot(accountNumber);
+        if (accounts.status(slot) != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        long balance;
+        while (true) {
+            balance = accounts.balance(slot);
+            if (balance < amount) {
+                throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+            }
+            if (accounts.compareAndSetBalance(slot, balance, balance - amount)) {
+                break;
+            }
+            casRetries.increment();
+        }
+        return record(TransactionType.USE, slot, accountNumber, amount, balance - amount);
+    }
+
+    public JournalRecord cancel(String accountNumber, Long amount) {
+        int slot = existingSlot(accountNumber);
+        return record(TransactionType.CANCEL, slot, accountNumber, amount, accounts.addBalance(slot, amount));
+    }
+
+    /**
+     * 아직 DB 에 저장하지 않은 거래를 엔티티 모양으로 돌려준다. (저장되지 않는 값)
+     */
+    public Optional<Transaction> findUnpersisted(String transactionId) {
+        JournalRecord record = unpersisted.get(transactionId);
+        if (record == null) {
+            return Optional.empty();
+        }
+        Account account = Account.builder()
+                .accountNumber(record.getAccountNumber())
+                .build();
+        account.setId(record.getAccountId());
+        return Optional.of(Transaction.builder()
+                .transactionResultType(TransactionResultType.SUCCESS)
+                .transactionType(record.getTransactionType())
+                .account(account)
+                .amount(record.getAmount())
+                .balanceSnapshot(record.getBalanceSnapshot())
+                .transactionId(record.getTransactionId())
+                .transactedAt(record.getTransactedAt())
+                .build());
+    }
+
+    /**
+     * 계좌의 아직 DB 에 저장하지 않은 거래 (거래 내역용, 순서 없음)
+     */
+    public List<JournalRecord> findUnpersisted(Long accountId) {
+        return unpersisted.values().stream()
+                .filter(record -> record.getAccountId().equals(accountId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 이 서버의 잔액 변경 위치. 계좌 행을 바꾸기 전에도 커지므로 계좌 목록 ETag 에 넣는다.
+     * (잔액을 먼저 바꾸고 저널에 쓰므로, 이 값이 커졌으면 바뀐 잔액이 보인다)
+     */
+    public long journalOffset() {
+        return journal.writtenOffset();
+    }
+
+    private JournalRecord record(TransactionType transactionType, int slot, String accountNumber,
+                                 Long amount, long balanceSnapshot) {
+        String transactionId = transactionIdGenerator.nextId();
+        transactionIdFilter.add(transactionId);
+        JournalRecord record = new JournalRecord(transactionType, accounts.id(slot), accountNumber,
+                amount, balanceSnapshot, transactionId, LocalDateTime.now());
+
+        unpersisted.put(transactionId, record);
+        long offset;
+        try {
+            offset = journal.append(record);
+        } catch (RuntimeException e) {
+            log.error("Failed to append balance journal", e);
+            unpersisted.remove(transactionId);
+            accounts.addBalance(slot, -record.delta());
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+        // 저널에 들어간 기록은 되돌리지 않으므로 실패로 답하지 않는다. (close 도 마지막 기록까지 내린다)
+        long waitStart = System.nanoTime();
+        awaitDurableUninterruptibly(offset);
+        durableWait.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        return record;
+    }
+
+    // 인터럽트가 와도 내려갈 때까지 기다리고, 인터럽트 상태는 돌려놓는다.
+    private void awaitDurableUninterruptibly(long offset) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    journal.awaitDurable(offset);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int existingSlot(String accountNumber) {
+        int slot = slot(accountNumber);
+        if (slot == AccountIndex.ABSENT) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return slot;
+    }
+
+    // 없는 계좌는 메모리에 올리지 않는다. 인덱스가 가득 차면 ACCOUNT_INDEX_FULL
+    private int slot(String accountNumber) {
+        long key = AccountIndex.toKey(accountNumber);
+        if (key < 0) {
+            return AccountIndex.ABSENT;
+        }
+        int slot = accounts.find(key);
+        if (slot != AccountIndex.ABSENT) {
+            return slot;
+        }
+        // 동시에 읽어도 먼저 넣은 값을 쓴다. 기동 후 DB 잔액은 이 서버만 바꾸므로 어느 쪽이든 같다.
+        slot = accountRepository.findSnapshotByAccountNumber(accountNumber)
+                .map(account -> accounts.putIfAbsent(key, account.getId(), account.getOwnerId(),
+                        account.getAccountStatus(), account.getBalance()))
+                .orElse(AccountIndex.ABSENT);
+        if (slot == AccountIndex.FULL) {
+            indexFull.increment();
+            throw new AccountException(ErrorCode.ACCOUNT_INDEX_FULL);
+        }
+        return slot;
+    }
+
+    private void writeLoop() {
+        List<BalanceJournal.Entry> batch = null;
+        while (running || batch != null || journal.hasAppended()) {
+            try {
+                if (batch == null) {
+                    batch = journal.drainAppended(batchSize, flushIntervalMillis);
+                    if (batch.isEmpty()) {
+                        batch = null;
+                        continue;
+                    }
+                }
+                persist(batch);
+                batch = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                // 같은 묶음을 다시 저장한다. 저장이 계속 실패하면 저널이 그만큼 길어진다.
+                persistFailed.increment();
+                log.warn("Failed to persist balance journal", e);
+                if (!running) {
+                    return;
+                }
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void persist(List<BalanceJournal.Entry> batch) throws IOException, InterruptedException {
+        // fsync 를 마치지 못한 기록은 요청이 실패할 수 있으므로 DB 에 먼저 저장하지 않는다.
+        journal.awaitDurable(batch.get(batch.size() - 1).getOffset());
+        persisted.increment(persister.persist(batch.stream()
+                .map(BalanceJournal.Entry::getRecord)
+                .collect(Collectors.toList())));
+        journal.checkpoint(batch.get(batch.size() - 1).getOffset());
+        batch.forEach(entry -> unpersisted.remove(entry.getRecord().getTransactionId()));
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(flushIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.type.TransactionType;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 잔액 사용/취소 기록을 memory-mapped 파일에 이어 쓰는 write-ahead 저널
+ * - 기록 형식 : [길이 int][CRC32 int][내용]. 길이가 0 이면 그 세그먼트의 끝이다.
+ * - 세그먼트 파일(journal-{시작 offset}.log)은 segmentSize 로 미리 만들고, 다 차면 다음 파일로 넘어간다.
+ *   offset 은 모든 세그먼트에 걸쳐 이어지는 위치이다. (세그먼트 시작 offset + 파일 안 위치)
+ * - group commit : 쓰는 스레드는 버퍼에 쓰고 돌아오고, flusher 스레드 하나가 그때까지 쓴 기록을
+ *   한 번의 force(fsync)로 내린다. awaitDurable 은 자기 기록이 내려갈 때까지 기다린다.
+ * - checkpoint 파일에는 DB 에 저장을 마친 offset 을 남긴다. 기동 시 그 뒤의 기록만 다시 읽는다.
+ * - 기록 도중 죽어서 CRC 가 맞지 않는 기록을 만나면 거기를 끝으로 보고, 뒤를 0 으로 지운 뒤 이어 쓴다.
+ *   (fsync 를 마치지 못한 기록이므로 요청에 성공으로 답한 적이 없다)
+ */
+@Slf4j
+public class BalanceJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // 저장을 기다리는 기록. 쓰는 순서(offset 순서)대로 들어간다.
+    private final BlockingQueue<Entry> appended = new LinkedBlockingQueue<>();
+
+    private final Object durableMonitor = new Object();
+    private long writtenOffset;
+    private long durableOffset;
+    // close 가 마지막 force 를 마쳤다. 그 뒤로는 내려갈 기록이 없다.
+    private boolean closed;
+    private volatile long checkpointOffset;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentStart;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public BalanceJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * checkpoint 이후의 기록을 읽어서 돌려주고, 마지막 기록 뒤에서 이어 쓸 준비를 한다.
+     */
+    public synchronized List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        checkpointOffset = readCheckpoint();
+
+        List<Long> segments = segmentStarts();
+        List<Entry> entries = new ArrayList<>();
+        if (segments.isEmpty()) {
+            openSegment(checkpointOffset, checkpointOffset);
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            long start = segments.get(i);
+            boolean hasNext = i + 1 < segments.size();
+            if (hasNext && start + segmentSize <= checkpointOffset) {
+                Files.delete(segmentPath(start));
+                continue;
+            }
+
+            long stop = readSegment(start, Math.max(checkpointOffset - start, 0), entries);
+            if (stop >= 0 && hasNext) {
+                continue;
+            }
+
+            // 끝 이후의 세그먼트는 fsync 를 마치지 못한 기록이다.
+            for (int j = i + 1; j < segments.size(); j++) {
+                Files.delete(segmentPath(segments.get(j)));
+            }
+            openSegment(start, start + (stop >= 0 ? stop : -(stop + 1)));
+            break;
+        }
+
+        clearAfterPosition();
+        writtenOffset = segmentStart + buffer.position();
+        durableOffset = writtenOffset;
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "balance-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        log.info("Opened balance journal at {} (checkpoint {}, end {}, {} records to replay)",
+                directory, checkpointOffset, writtenOffset, entries.size());
+        return entries;
+    }
+
+    /**
+     * @return 끝 표시(길이 0)나 파일 끝에서 멈췄으면 그 위치, 잘린 기록에서 멈췄으면 -(위치 + 1)
+     */
+    private long readSegment(long start, long position, List<Entry> entries) throws IOException {
+        try (FileChannel segment = FileChannel.open(segmentPath(start), StandardOpenOption.READ)) {
+            ByteBuffer data = segment.map(FileChannel.MapMode.READ_ONLY, 0, segment.size());
+            int pos = (int) position;
+            while (pos + HEADER_SIZE <= data.limit()) {
+                int length = data.getInt(pos);
+                if (length == 0) {
+                    return pos;
+                }
+                if (length < 0 || pos + HEADER_SIZE + length > data.limit()) {
+                    return -(pos + 1);
+                }
+                byte[] payload = new byte[length];
+                data.position(pos + HEADER_SIZE);
+                data.get(payload);
+                if (data.getInt(pos + Integer.BYTES) != crc(payload)) {
+                    log.warn("Torn journal record at offset {}", start + pos);
+                    return -(pos + 1);
+                }
+                pos += HEADER_SIZE + length;
+                entries.add(new Entry(decode(payload), start + pos));
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * 기록을 버퍼에 쓰고 그 기록의 끝 offset 을 돌려준다. 디스크에 내려간 것은 아니다. (awaitDurable)
+     */
+    public synchronized long append(JournalRecord record) {
+        if (!running) {
+            throw new IllegalStateException("Balance journal is closed");
+        }
+        byte[] payload = encode(record);
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal record is larger than a segment : " + size);
+        }
+        try {
+            if (buffer.position() + size > segmentSize) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int position = buffer.position();
+        buffer.putInt(position + Integer.BYTES, crc(payload));
+        buffer.position(position + HEADER_SIZE);
+        buffer.put(payload);
+        // 길이를 마지막에 써서, 쓰다 만 기록은 길이 0(끝)으로 보이게 한다.
+        buffer.putInt(position, payload.length);
+
+        long end = segmentStart + buffer.position();
+        appended.add(new Entry(record, end));
+        synchronized (durableMonitor) {
+            writtenOffset = end;
+            durableMonitor.notifyAll();
+        }
+        return end;
+    }
+
+    public void awaitDurable(long offset) throws InterruptedException {
+        synchronized (durableMonitor) {
+            while (durableOffset < offset) {
+                if (closed) {
+                    throw new IllegalStateException("Balance journal is closed");
+                }
+                durableMonitor.wait();
+            }
+        }
+    }
+
+    /**
+     * 저장을 기다리는 기록을 최대 maxEntries 건 꺼낸다. 없으면 timeoutMillis 만큼 기다린다.
+     */
+    public List<Entry> drainAppended(int maxEntries, long timeoutMillis) throws InterruptedException {
+        List<Entry> entries = new ArrayList<>();
+        Entry first = appended.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (first != null) {
+            entries.add(first);
+            appended.drainTo(entries, maxEntries - 1);
+        }
+        return entries;
+    }
+
+    public boolean hasAppended() {
+        return !appended.isEmpty();
+    }
+
+    /**
+     * offset 이전의 기록은 모두 DB 에 저장했다. 다 지난 세그먼트는 지운다.
+     */
+    public synchronized void checkpoint(long offset) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            file.write(data);
+            file.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointOffset = offset;
+
+        for (Long start : segmentStarts()) {
+            if (start + segmentSize <= offset && start != segmentStart) {
+                Files.deleteIfExists(segmentPath(start));
+            }
+        }
+    }
+
+    public long checkpointOffset() {
+        return checkpointOffset;
+    }
+
+    // 마지막으로 쓴 기록의 끝. 잔액이 바뀔 때마다 커진다.
+    public long writtenOffset() {
+        synchronized (durableMonitor) {
+            return writtenOffset;
+        }
+    }
+
+    // 쓰고 아직 DB 에 저장하지 않은 바이트 수
+    public long lag() {
+        synchronized (durableMonitor) {
+            return writtenOffset - checkpointOffset;
+        }
+    }
+
+    public void close() throws InterruptedException, IOException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // running 을 내린 뒤에는 append 가 없으므로, 여기서 내린 위치까지가 마지막 기록이다.
+        long forcedOffset = 0;
+        synchronized (this) {
+            if (buffer != null) {
+                buffer.force();
+                forcedOffset = segmentStart + buffer.position();
+                channel.close();
+            }
+        }
+        synchronized (durableMonitor) {
+            durableOffset = Math.max(durableOffset, forcedOffset);
+            closed = true;
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            long target;
+            MappedByteBuffer current;
+            try {
+                synchronized (durableMonitor) {
+                    while (running && writtenOffset == durableOffset) {
+                        durableMonitor.wait();
+                    }
+                    target = writtenOffset;
+                }
+                synchronized (this) {
+                    current = buffer;
+                }
+                // 그 사이 더 쓴 기록도 함께 내려간다.
+                current.force();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            synchronized (durableMonitor) {
+                durableOffset = Math.max(durableOffset, target);
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    // 이전 세그먼트는 닫기 전에 fsync 하므로 flusher 는 현재 세그먼트만 내리면 된다.
+    private void rollSegment() throws IOException {
+        if (buffer.position() + Integer.BYTES <= segmentSize) {
+            buffer.putInt(buffer.position(), 0);
+        }
+        buffer.force();
+        channel.close();
+        openSegment(segmentStart + segmentSize, segmentStart + segmentSize);
+    }
+
+    private void openSegment(long start, long position) throws IOException {
+        channel = FileChannel.open(segmentPath(start), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentStart = start;
+        buffer.position((int) (position - start));
+    }
+
+    // 끝 이후에 남은 잘린 기록을 지운다. 새 기록 뒤에 남아 있으면 다음 기동 때 다시 읽힐 수 있다.
+    private void clearAfterPosition() {
+        for (int i = buffer.position(); i < segmentSize; i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        buffer.force();
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong();
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long start) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    static byte[] encode(JournalRecord record) {
+        byte[] accountNumber = record.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        byte[] transactionId = record.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer data = ByteBuffer.allocate(1 + Long.BYTES * 4 + Integer.BYTES
+                + Short.BYTES * 2 + accountNumber.length + transactionId.length);
+        data.put((byte) record.getTransactionType().ordinal());
+        data.putLong(record.getAccountId());
+        data.putLong(record.getAmount());
+        data.putLong(record.getBalanceSnapshot());
+        data.putLong(record.getTransactedAt().toEpochSecond(ZoneOffset.UTC));
+        data.putInt(record.getTransactedAt().getNano());
+        data.putShort((short) accountNumber.length);
+        data.put(accountNumber);
+        data.putShort((short) transactionId.length);
+        data.put(transactionId);
+        return data.array();
+    }
+
+    static JournalRecord decode(byte[] payload) {
+        ByteBuffer data = ByteBuffer.wrap(payload);
+        TransactionType transactionType = TransactionType.values()[data.get()];
+        long accountId = data.getLong();
+        long amount = data.getLong();
+        long balanceSnapshot = data.getLong();
+        LocalDateTime transactedAt = LocalDateTime.ofEpochSecond(data.getLong(), data.getInt(), ZoneOffset.UTC);
+        byte[] accountNumber = new byte[data.getShort()];
+        data.get(accountNumber);
+        byte[] transactionId = new byte[data.getShort()];
+        data.get(transactionId);
+        return new JournalRecord(transactionType, accountId, new String(accountNumber, StandardCharsets.UTF_8),
+                amount, balanceSnapshot, new String(transactionId, StandardCharsets.UTF_8), transactedAt);
+    }
+
+    /**
+     * 저널의 기록과 그 기록이 끝나는 offset
+     */
+    @Value
+    public static class Entry {
+        JournalRecord record;
+        long offset;
+    }
+}
@@ -0,0 +1,74 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.TransactionRepository;
+import com.zerobase.account.type.TransactionResultType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 저널 기록을 Transaction / Account 테이블에 한 트랜잭션으로 저장한다.
+ * - 이미 저장된 거래 ID 는 건너뛰므로 같은 기록을 다시 저장해도 잔액이 두 번 바뀌지 않는다.
+ *   (저장 후 checkpoint 전에 죽으면 기동 시 같은 기록을 다시 읽는다)
+ * - 계좌 잔액은 계좌별 변경량 합으로 UPDATE 한 번씩 바꾼다. 계좌 id 순서로 바꿔서 교착을 피한다.
+ */
+@RequiredArgsConstructor
+public class BalancePersister {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+
+    /**
+     * @return 새로 저장한 거래 수
+     */
+    public int persist(List<JournalRecord> records) {
+        Set<String> accountNumbers = new HashSet<>();
+        Integer saved = transactionTemplate.execute(status -> {
+            Set<String> existing = new HashSet<>(transactionRepository.findTransactionIdsIn(
+                    records.stream()
+                            .map(JournalRecord::getTransactionId)
+                            .collect(Collectors.toList())));
+
+            List<Transaction> transactions = new ArrayList<>();
+            Map<Long, Long> deltas = new TreeMap<>();
+            for (JournalRecord record : records) {
+                if (!existing.add(record.getTransactionId())) {
+                    continue;
+                }
+                transactions.add(Transaction.builder()
+                        .transactionResultType(TransactionResultType.SUCCESS)
+                        .transactionType(record.getTransactionType())
+                        .account(accountRepository.getReferenceById(record.getAccountId()))
+                        .amount(record.getAmount())
+                        .balanceSnapshot(record.getBalanceSnapshot())
+                        .transactionId(record.getTransactionId())
+                        .transactedAt(record.getTransactedAt())
+                        .build());
+                deltas.merge(record.getAccountId(), record.delta(), Long::sum);
+                accountNumbers.add(record.getAccountNumber());
+            }
+
+            transactionRepository.saveAll(transactions);
+            LocalDateTime now = LocalDateTime.now();
+            deltas.forEach((accountId, delta) -> accountRepository.credit(accountId, delta, now));
+            return transactions.size();
+        });
+
+        // 계좌 행의 version 이 바뀌었으므로 캐시 항목을 버린다.
+        accountNumbers.forEach(accountCache::evictAfterCommit);
+        return saved == null ? 0 : saved;
+    }
+}
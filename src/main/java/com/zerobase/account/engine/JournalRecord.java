@@ -0,0 +1,27 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.type.TransactionType;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 저널에 남기는 잔액 사용/취소 한 건. DB 에 저장할 거래(Transaction)와 같은 값을 가진다.
+ */
+@Value
+public class JournalRecord {
+
+    TransactionType transactionType;
+    Long accountId;
+    String accountNumber;
+    Long amount;
+    // 이 거래 직후의 잔액
+    Long balanceSnapshot;
+    String transactionId;
+    LocalDateTime transactedAt;
+
+    // 계좌 잔액 변경량 (사용은 음수)
+    public long delta() {
+        return transactionType == TransactionType.USE ? -amount : amount;
+    }
+}
@@ -0,0 +1,25 @@
+package com.zerobase.account.export;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    public static ExportFormat from(String format) {
+        for (ExportFormat exportFormat : values()) {
+            if (exportFormat.name().equalsIgnoreCase(format)) {
+                return exportFormat;
+            }
+        }
+        throw new AccountException(ErrorCode.INVALID_REQUEST);
+    }
+}
@@ -0,0 +1,61 @@
+package com.zerobase.account.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * 거래 내보내기를 명령줄에서 실행하고 끝낸다. (야간 대사 배치용)
+ * account.export.output 이 있을 때만 동작한다.
+ *
+ * java -jar account.jar --spring.main.web-application-type=none \
+ *   --account.export.output=/data/transactions.csv --account.export.format=csv \
+ *   --account.export.from=2023-03-01 --account.export.to=2023-03-01
+ *
+ * 같은 서버에서 API 서버가 떠 있으면 내장 redis 포트가 겹치므로 --spring.redis.port 도 다르게 준다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.export.output")
+public class TransactionExportRunner implements ApplicationRunner {
+
+    private final TransactionExporter transactionExporter;
+    private final ConfigurableApplicationContext applicationContext;
+
+    @Value("${account.export.output}")
+    private String output;
+
+    @Value("${account.export.from}")
+    private String from;
+
+    @Value("${account.export.to}")
+    private String to;
+
+    @Value("${account.export.format:ndjson}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long count;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)))) {
+            count = transactionExporter.export(LocalDate.parse(from), LocalDate.parse(to),
+                    ExportFormat.from(format), outputStream);
+        }
+        log.info("Wrote {} transactions to {}", count, output);
+
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
@@ -0,0 +1,216 @@
+package com.zerobase.account.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * 기간 안의 거래를 한 행씩 읽어서 바로 출력 스트림에 쓴다. (대사용 내보내기)
+ * - JPA 를 거치지 않고 JDBC 로 읽으므로 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+ * - forward-only, read-only 커서에 fetch size 를 지정해서 DB 에서 조금씩 받아온다.
+ *   (커서를 유지하도록 read-only 트랜잭션 안에서 읽는다. 예: PostgreSQL 은 autocommit 이 꺼져 있어야 함)
+ * - 행을 모으지 않고 바로 쓰므로 행 수와 관계없이 메모리 사용량이 일정하다.
+ * - (transacted_at, id) 인덱스로 기간 안의 행만 찾고, 인덱스 순서대로 읽어서 DB 에서도 정렬하지 않는다.
+ */
+@Slf4j
+@Component
+public class TransactionExporter {
+
+    private static final String EXPORT_SQL = "select t.transaction_id, a.account_number,"
+            + " t.transaction_type, t.transaction_result_type, t.amount, t.balance_snapshot, t.transacted_at"
+            + " from transaction t join account a on a.id = t.account_id"
+            + " where t.transacted_at >= ? and t.transacted_at < ?"
+            + " order by t.transacted_at, t.id";
+
+    static final String[] COLUMNS = {"transactionId", "accountNumber", "transactionType",
+            "transactionResult", "amount", "balanceSnapshot", "transactedAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public TransactionExporter(JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${account.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public static void checkRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    /**
+     * from ~ to (둘 다 포함하는 날짜) 사이의 거래를 format 으로 쓴다. 출력 스트림은 닫지 않는다.
+     *
+     * @return 내보낸 거래 수
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, ExportFormat format, OutputStream outputStream)
+            throws IOException {
+        checkRange(from, to);
+
+        RowWriter rowWriter = format == ExportFormat.CSV
+                ? new CsvRowWriter(outputStream)
+                : new NdjsonRowWriter(objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8));
+
+        long begin = System.nanoTime();
+        long[] count = {0L};
+        try {
+            rowWriter.writeHeader();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                preparedStatement.setFetchSize(fetchSize);
+                preparedStatement.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                preparedStatement.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+                return preparedStatement;
+            }, (ResultSet resultSet) -> {
+                try {
+                    rowWriter.writeRow(resultSet);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+            rowWriter.flush();
+        } catch (UncheckedIOException e) {
+            // 클라이언트가 연결을 끊은 경우 등
+            throw e.getCause();
+        }
+
+        log.info("Exported {} transactions ({} ~ {}, {}) in {} ms", count[0], from, to, format,
+                (System.nanoTime() - begin) / 1_000_000);
+        return count[0];
+    }
+
+    private interface RowWriter {
+
+        void writeHeader() throws IOException;
+
+        void writeRow(ResultSet resultSet) throws SQLException, IOException;
+
+        void flush() throws IOException;
+    }
+
+    // 한 줄에 거래 하나씩 JSON 객체로 쓴다.
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString(""));
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(ResultSet resultSet) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeStringField(COLUMNS[0], resultSet.getString(1));
+            generator.writeStringField(COLUMNS[1], resultSet.getString(2));
+            generator.writeStringField(COLUMNS[2], resultSet.getString(3));
+            generator.writeStringField(COLUMNS[3], resultSet.getString(4));
+            writeLong(COLUMNS[4], resultSet, 5);
+            writeLong(COLUMNS[5], resultSet, 6);
+            Timestamp transactedAt = resultSet.getTimestamp(7);
+            generator.writeStringField(COLUMNS[6],
+                    transactedAt == null ? null : transactedAt.toLocalDateTime().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeLong(String name, ResultSet resultSet, int index) throws SQLException, IOException {
+            long value = resultSet.getLong(index);
+            if (resultSet.wasNull()) {
+                generator.writeNullField(name);
+            } else {
+                generator.writeNumberField(name, value);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    // 첫 줄은 헤더. 줄 끝은 CRLF, 값에 쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싼다. (RFC 4180)
+    private static class CsvRowWriter implements RowWriter {
+
+        private static final String RECORD_END = "\r\n";
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream outputStream) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write(RECORD_END);
+        }
+
+        @Override
+        public void writeRow(ResultSet resultSet) throws SQLException, IOException {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                Object value = i == 7 ? resultSet.getTimestamp(i) : resultSet.getObject(i);
+                if (value instanceof Timestamp) {
+                    value = ((Timestamp) value).toLocalDateTime();
+                }
+                if (value != null) {
+                    writeValue(value.toString());
+                }
+            }
+            writer.write(RECORD_END);
+        }
+
+        private void writeValue(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.zerobase.account.id;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * hi/lo 방식 계좌번호 발급기
+ * - 저장소에서 blockSize 개의 번호를 한 번에 예약하고, 그 안에서는 AtomicLong 으로 lock 없이 나눠준다.
+ * - 블록을 다 쓰면 한 스레드만 다음 블록을 예약하고, 나머지는 새 블록이 걸릴 때까지 기다린다.
+ * - 블록은 서버마다 따로 예약하므로 서버 간 번호가 겹치지 않는다. 대신 서버별로 번호가 건너뛸 수 있다.
+ * - 번호는 long 으로 다루고, 10자리(MAX_ACCOUNT_NUMBER)를 넘기면 발급하지 않는다.
+ */
+public class AccountNumberAllocator {
+
+    public static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+    static final long MAX_ACCOUNT_NUMBER = 9_999_999_999L;
+
+    private final AccountNumberBlockStore blockStore;
+    private final int blockSize;
+
+    private volatile Block current = Block.EMPTY;
+
+    public AccountNumberAllocator(AccountNumberBlockStore blockStore, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.blockStore = blockStore;
+        this.blockSize = blockSize;
+    }
+
+    public String nextAccountNumber() {
+        return String.valueOf(nextLong());
+    }
+
+    long nextLong() {
+        while (true) {
+            Block block = current;
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+            refill(block);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        // 기다리는 동안 다른 스레드가 이미 새 블록을 걸었다.
+        if (current != exhausted) {
+            return;
+        }
+
+        long start = blockStore.reserve(blockSize);
+        if (start < FIRST_ACCOUNT_NUMBER || start > MAX_ACCOUNT_NUMBER) {
+            throw new AccountException(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED);
+        }
+        current = new Block(start, Math.min(start + blockSize, MAX_ACCOUNT_NUMBER + 1));
+    }
+
+    private static class Block {
+
+        static final Block EMPTY = new Block(0L, 0L);
+
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
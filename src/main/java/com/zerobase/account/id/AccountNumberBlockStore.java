@@ -0,0 +1,13 @@
+package com.zerobase.account.id;
+
+/**
+ * 계좌번호 블록을 예약하는 저장소.
+ * 여러 서버가 동시에 호출해도 서로 겹치지 않는 [시작, 시작 + blockSize) 구간을 돌려줘야 한다.
+ */
+public interface AccountNumberBlockStore {
+
+    /**
+     * @return 예약한 블록의 첫 번호
+     */
+    long reserve(int blockSize);
+}
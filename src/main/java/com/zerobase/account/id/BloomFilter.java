@@ -0,0 +1,115 @@
+package com.zerobase.account.id;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 문자열 Bloom filter
+ * - 없다고 답하면 확실히 없고, 있다고 답하면 설정한 오탐률(fpp) 안에서 있다.
+ * - 비트는 켜기만 하므로 lock 없이 여러 스레드가 넣고 조회할 수 있다.
+ * - 해시 k 개는 64bit 해시 두 개를 섞어서 만든다. (h1 + i * h2)
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray(Math.toIntExact(bitSize / Long.SIZE));
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+    }
+
+    static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and 0 < fpp < 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2));
+        bits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * LN2));
+        return new BloomFilter(bits, hashes);
+    }
+
+    /**
+     * @return 새로 켠 비트가 있으면 true (처음 넣는 값으로 본다)
+     */
+    boolean put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            if ((words.get(index) & mask) == 0
+                    && (words.getAndUpdate(index, word -> word | mask) & mask) == 0) {
+                changed = true;
+            }
+        }
+        // 같은 ID 를 다시 읽어도 세지 않는다.
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    // 서로 다른 값의 수 (오탐으로 겹친 값은 빠지므로 조금 적게 센다)
+    long insertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * 지금 켜진 비트 비율로 계산한 오탐률. 넣은 수가 예상보다 많아지면 설정값보다 커진다.
+     */
+    double expectedFpp() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitSize, hashCount);
+    }
+
+    // FNV-1a 64bit 뒤에 murmur3 의 fmix64 로 비트를 섞는다.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e7f4a7c15L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
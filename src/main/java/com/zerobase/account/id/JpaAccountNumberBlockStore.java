@@ -0,0 +1,74 @@
+package com.zerobase.account.id;
+
+import com.zerobase.account.domain.AccountNumberSequence;
+import com.zerobase.account.repository.AccountNumberSequenceRepository;
+import com.zerobase.account.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * account_number_sequence 행 하나를 잠그고 nextValue 를 blockSize 만큼 올려서 블록을 예약한다.
+ * - 계좌 생성 트랜잭션과 별도(REQUIRES_NEW)로 바로 commit 하므로 시퀀스 행 lock 은 예약하는 순간에만 잡힌다.
+ *   계좌 생성이 rollback 되어도 예약한 블록은 돌려받지 않는다. (번호에 빈 구간이 생길 수 있음)
+ * - 행이 없으면 기존 계좌번호의 최댓값 다음 번호로 만든다.
+ *   두 서버가 동시에 만들면 한쪽은 PK 충돌로 실패하므로 다시 읽어서 예약한다.
+ */
+@Slf4j
+public class JpaAccountNumberBlockStore implements AccountNumberBlockStore {
+
+    static final String SEQUENCE_NAME = "account_number";
+
+    private final AccountNumberSequenceRepository sequenceRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long firstValue;
+
+    public JpaAccountNumberBlockStore(AccountNumberSequenceRepository sequenceRepository,
+                                      AccountRepository accountRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      long firstValue) {
+        this.sequenceRepository = sequenceRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.firstValue = firstValue;
+    }
+
+    @Override
+    public long reserve(int blockSize) {
+        try {
+            return reserveInNewTransaction(blockSize);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Account number sequence was created concurrently. retry reserve.");
+            return reserveInNewTransaction(blockSize);
+        }
+    }
+
+    private long reserveInNewTransaction(int blockSize) {
+        Long start = transactionTemplate.execute(status -> {
+            AccountNumberSequence sequence = sequenceRepository.findForUpdateByName(SEQUENCE_NAME)
+                    .orElseGet(() -> sequenceRepository.saveAndFlush(
+                            AccountNumberSequence.builder()
+                                    .name(SEQUENCE_NAME)
+                                    .nextValue(initialValue())
+                                    .build()));
+
+            long nextValue = sequence.getNextValue();
+            sequence.setNextValue(nextValue + blockSize);
+            return nextValue;
+        });
+        log.debug("Reserved account number block : {} ~ {}", start, start + blockSize - 1);
+        return start;
+    }
+
+    private long initialValue() {
+        String maxAccountNumber = accountRepository.findMaxAccountNumber();
+        if (maxAccountNumber == null) {
+            return firstValue;
+        }
+        return Math.max(firstValue, Long.parseLong(maxAccountNumber) + 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.zerobase.account.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * snowflake 노드 ID 를 Redis 에서 임대해서 서버끼리 같은 노드 ID 로 거래 ID 를 만들지 않게 한다.
+ * - transaction-id:node:{노드 ID} 키를 이 프로세스 값으로 SET NX PX 한다. 다른 서버가 잡고 있으면 다음 번호를 본다.
+ * - 임대 시간의 1/3 마다 아직 내 키인지 확인하고 TTL 을 늘린다. (LeaseWatchdog 과 같은 방식)
+ *   오래 멈춰서 다른 서버가 가져갔으면 isHeld 가 false 가 되고 오류를 남긴다.
+ * - 노드 ID 를 지정하면 그 번호만 잡는다. 다른 서버가 잡고 있으면 기동에 실패한다.
+ * - 죽은 서버의 키는 임대 시간이 지나야 풀리므로, 그 사이 같은 노드 ID 로 만든 ID 와 겹치지 않는다.
+ */
+@Slf4j
+public class SnowflakeNodeIdLease {
+
+    static final String KEY_PREFIX = "transaction-id:node:";
+
+    private static final String ACQUIRE_SCRIPT =
+            "return redis.call('set', KEYS[1], ARGV[1], 'nx', 'px', ARGV[2]) and 1 or 0;";
+
+    // 내 키일 때만 TTL 을 늘린다.
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]); "
+                    + "end; "
+                    + "return 0;";
+
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]); "
+                    + "end; "
+                    + "return 0;";
+
+    private final RedissonClient redissonClient;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    private long nodeId = -1L;
+    private volatile boolean held;
+    private ScheduledExecutorService scheduler;
+
+    public SnowflakeNodeIdLease(RedissonClient redissonClient, long leaseSeconds) {
+        this.redissonClient = redissonClient;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+    }
+
+    /**
+     * @param requestedNodeId null 이면 비어 있는 번호 중 하나
+     * @return 임대한 노드 ID
+     * @throws IllegalStateException 지정한 번호를 다른 서버가 잡고 있거나 빈 번호가 없는 경우
+     */
+    public synchronized long acquire(Long requestedNodeId) {
+        if (held) {
+            return nodeId;
+        }
+        if (requestedNodeId != null) {
+            if (!tryAcquire(requestedNodeId)) {
+                throw new IllegalStateException("Snowflake node id is already used by another server : "
+                        + requestedNodeId);
+            }
+        } else {
+            long candidate = 0;
+            while (candidate <= SnowflakeTransactionIdGenerator.MAX_NODE_ID && !tryAcquire(candidate)) {
+                candidate++;
+            }
+            if (candidate > SnowflakeTransactionIdGenerator.MAX_NODE_ID) {
+                throw new IllegalStateException("No free snowflake node id");
+            }
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snowflake-node-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1L, leaseMillis / 3);
+        scheduler.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        log.info("Acquired snowflake node id {}", nodeId);
+        return nodeId;
+    }
+
+    /**
+     * true 면 지금 이 노드 ID 로 거래 ID 를 만드는 서버는 이 프로세스뿐이다.
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (held) {
+            held = false;
+            try {
+                eval(RELEASE_SCRIPT, nodeId, owner);
+            } catch (RuntimeException e) {
+                // 임대 시간이 지나면 풀린다.
+                log.warn("Failed to release snowflake node id {}", nodeId, e);
+            }
+        }
+    }
+
+    private boolean tryAcquire(long candidate) {
+        if (eval(ACQUIRE_SCRIPT, candidate, owner, String.valueOf(leaseMillis)) == 0L) {
+            return false;
+        }
+        nodeId = candidate;
+        held = true;
+        return true;
+    }
+
+    private void renew() {
+        try {
+            if (eval(RENEW_SCRIPT, nodeId, owner, String.valueOf(leaseMillis)) == 0L && held) {
+                held = false;
+                log.error("Lost snowflake node id lease {}. Transaction ids may collide with another server", nodeId);
+            }
+        } catch (RuntimeException e) {
+            // 임대 시간 안에 다시 늘리면 된다.
+            log.warn("Failed to renew snowflake node id lease {}", nodeId, e);
+        }
+    }
+
+    private long eval(String script, long candidate, Object... values) {
+        Long result = redissonClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, script, RScript.ReturnType.INTEGER,
+                        Collections.singletonList(KEY_PREFIX + candidate), values);
+        return result == null ? 0L : result;
+    }
+}
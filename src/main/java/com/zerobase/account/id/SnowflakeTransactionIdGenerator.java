@@ -0,0 +1,111 @@
+package com.zerobase.account.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 순서대로 정렬되는 64bit ID 를 11자리 base62 문자열로 만든다.
+ * - 41bit : EPOCH 이후 밀리초 (약 69년)
+ * - 10bit : 노드 ID (서버마다 달라야 함, 0 ~ 1023)
+ * - 12bit : 같은 밀리초 안에서의 순번 (밀리초당 4096개)
+ * - (밀리초, 순번)을 AtomicLong 하나에 담아 CAS 로 올리므로 스레드 간 lock 이 없다.
+ *   순번이 넘치거나 시계가 뒤로 가면 마지막 값에서 1씩 올려서 순서와 유일성을 유지한다.
+ * - base62 문자를 ASCII 순서(0-9, A-Z, a-z)로 쓰고 11자리로 맞추므로 문자열 순서가 생성 순서와 같다.
+ */
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+
+    // 2023-01-01T00:00:00Z
+    static final long EPOCH = 1672531200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final int LENGTH = 11;
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final long nodeId;
+
+    // (EPOCH 이후 밀리초 << SEQUENCE_BITS) | 순번
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextLong());
+    }
+
+    long nodeId() {
+        return nodeId;
+    }
+
+    long nextLong() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long next;
+        long current;
+        do {
+            current = state.get();
+            next = Math.max(current + 1, now);
+        } while (!state.compareAndSet(current, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) Long.remainderUnsigned(value, 62)];
+            value = Long.divideUnsigned(value, 62);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 11자리 base62 문자열을 다시 64bit 값으로 바꾼다. 이 형식이 아니면 -1
+     */
+    static long decode(String id) {
+        if (id == null || id.length() != LENGTH) {
+            return -1L;
+        }
+        long value = 0L;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = digitOf(id.charAt(i));
+            if (digit < 0) {
+                return -1L;
+            }
+            value = value * 62 + digit;
+        }
+        // 11자리 base62 는 64bit 를 넘을 수 있다. (생성기가 만들 수 없는 값)
+        return encode(value).equals(id) ? value : -1L;
+    }
+
+    static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    // Unix epoch 밀리초
+    static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    private static int digitOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,221 @@
+package com.zerobase.account.id;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 발급된 거래 ID 의 Bloom filter. 없는 거래 ID 조회를 DB 에 가지 않고 메모리에서 거절한다.
+ * - 기동 시 transaction 테이블 전체로 만들고, refresh 주기마다 다시 읽어서 다른 서버가 만든 ID 를 더한다.
+ * - 이 서버가 만든 ID 는 저장하기 전에 넣는다. (add)
+ * 서버마다 따로 들고 있으므로 Bloom filter 가 "없다"고 해도 아래 경우에만 믿는다.
+ * - 생성기가 만들 수 없는 형식이거나, snowflake 시각이 지금보다 margin 이상 뒤인 ID
+ * - 이 서버의 노드 ID 로 만든 snowflake ID. 노드 ID 를 이 서버만 쓰고 있을 때만 믿는다. (SnowflakeNodeIdLease)
+ *   (이전 프로세스가 만든 ID 는 기동 후 읽을 때 이미 commit 되어 있다)
+ * - 다른 서버의 snowflake ID 중 마지막으로 다 읽은 시각(시작 시각 - margin)보다 먼저 만든 ID
+ * 그 밖의 ID (최근에 다른 서버가 만든 ID, uuid 형식, 처음 읽기 전)는 DB 에서 찾는다.
+ * margin 은 ID 를 만들고 commit 할 때까지 걸리는 시간보다 길어야 한다.
+ */
+@Slf4j
+public class TransactionIdFilter {
+
+    private static final String SCAN_SQL = "select transaction_id from transaction";
+    private static final int UUID_LENGTH = 32;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BloomFilter bloomFilter;
+    // uuid 생성기면 -1
+    private final long ownNodeId;
+    // false 면 다른 서버도 같은 노드 ID 로 만들 수 있으므로 최근 ID 는 DB 에서 찾는다.
+    private final BooleanSupplier ownNodeIdUnique;
+    private final long marginMillis;
+    private final long refreshIntervalSeconds;
+    private final int fetchSize;
+
+    // 이 시각(Unix epoch 밀리초) 이전에 만든 ID 는 모두 들어 있다. 처음 읽기 전에는 -1
+    private volatile long completeUntil = -1L;
+
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter unknown;
+    private final Counter falsePositive;
+
+    private ScheduledExecutorService scheduler;
+
+    public TransactionIdFilter(JdbcTemplate jdbcTemplate,
+                               TransactionIdGenerator transactionIdGenerator,
+                               BooleanSupplier ownNodeIdUnique,
+                               MeterRegistry meterRegistry,
+                               long expectedInsertions,
+                               double fpp,
+                               long marginSeconds,
+                               long refreshIntervalSeconds,
+                               int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bloomFilter = BloomFilter.create(expectedInsertions, fpp);
+        this.ownNodeId = transactionIdGenerator instanceof SnowflakeTransactionIdGenerator
+                ? ((SnowflakeTransactionIdGenerator) transactionIdGenerator).nodeId()
+                : -1L;
+        this.ownNodeIdUnique = ownNodeIdUnique;
+        this.marginMillis = TimeUnit.SECONDS.toMillis(marginSeconds);
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+        this.fetchSize = fetchSize;
+
+        this.absent = lookups(meterRegistry, "absent");
+        this.maybe = lookups(meterRegistry, "maybe");
+        this.unknown = lookups(meterRegistry, "unknown");
+        this.falsePositive = meterRegistry.counter("transaction.id.filter.false.positives");
+
+        Gauge.builder("transaction.id.filter.memory", bloomFilter, filter -> filter.bitSize() / Byte.SIZE)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("transaction.id.filter.insertions", bloomFilter, BloomFilter::insertions)
+                .register(meterRegistry);
+        Gauge.builder("transaction.id.filter.fpp.expected", bloomFilter, BloomFilter::expectedFpp)
+                .register(meterRegistry);
+        // Bloom filter 를 믿은 조회 중 DB 에 없었던 비율
+        Gauge.builder("transaction.id.filter.fpp.observed", this, TransactionIdFilter::observedFpp)
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return meterRegistry.counter("transaction.id.filter.lookups", "result", result);
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-id-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // 다 읽지 못하면 completeUntil 이 그대로라 DB 조회로 답한다.
+                log.warn("Failed to refresh transaction id filter", e);
+            }
+        }, 0, refreshIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 거래를 저장하기 전에 부른다. 저장이 rollback 되면 오탐이 하나 늘 뿐이다.
+     */
+    public void add(String transactionId) {
+        bloomFilter.put(transactionId);
+    }
+
+    /**
+     * false 면 이 거래 ID 는 DB 에 없다.
+     */
+    public boolean mightExist(String transactionId) {
+        if (transactionId == null) {
+            absent.increment();
+            return false;
+        }
+        Boolean trusted = trust(transactionId);
+        if (trusted == null) {
+            unknown.increment();
+            return true;
+        }
+        if (!trusted) {
+            absent.increment();
+            return false;
+        }
+        if (!bloomFilter.mightContain(transactionId)) {
+            absent.increment();
+            return false;
+        }
+        maybe.increment();
+        return true;
+    }
+
+    /**
+     * mightExist 가 true 였는데 DB 에 없었을 때 부른다. Bloom filter 를 믿은 경우만 오탐으로 센다.
+     */
+    public void recordNotFound(String transactionId) {
+        if (transactionId != null && Boolean.TRUE.equals(trust(transactionId))) {
+            falsePositive.increment();
+        }
+    }
+
+    /**
+     * @return true : Bloom filter 결과를 믿는다 / false : 확실히 없다 / null : DB 에서 찾아야 한다
+     */
+    private Boolean trust(String transactionId) {
+        if (transactionId.length() == UUID_LENGTH && isLowerHex(transactionId)) {
+            return null;
+        }
+        long id = SnowflakeTransactionIdGenerator.decode(transactionId);
+        if (id < 0) {
+            return false;
+        }
+        long createdAt = SnowflakeTransactionIdGenerator.timestampOf(id);
+        if (createdAt > System.currentTimeMillis() + marginMillis) {
+            return false;
+        }
+        long until = completeUntil;
+        if (until < 0) {
+            return null;
+        }
+        if (createdAt < until) {
+            return true;
+        }
+        if (SnowflakeTransactionIdGenerator.nodeIdOf(id) == ownNodeId && ownNodeIdUnique.getAsBoolean()) {
+            return true;
+        }
+        return null;
+    }
+
+    private static boolean isLowerHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * transaction 테이블의 거래 ID 를 모두 읽어서 넣는다. 이미 들어 있는 비트는 그대로 둔다.
+     */
+    void refresh() {
+        long startedAt = System.currentTimeMillis();
+        long[] count = {0L};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement(SCAN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            return preparedStatement;
+        }, (ResultSet resultSet) -> {
+            bloomFilter.put(resultSet.getString(1));
+            count[0]++;
+        });
+        completeUntil = startedAt - marginMillis;
+
+        log.info("Refreshed transaction id filter with {} ids in {} ms ({} bytes, expected fpp {})",
+                count[0], System.currentTimeMillis() - startedAt, bloomFilter.bitSize() / Byte.SIZE,
+                bloomFilter.expectedFpp());
+    }
+
+    private double observedFpp() {
+        double trusted = maybe.count();
+        return trusted == 0 ? 0 : falsePositive.count() / trusted;
+    }
+}
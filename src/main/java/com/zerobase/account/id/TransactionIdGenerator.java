@@ -0,0 +1,10 @@
+package com.zerobase.account.id;
+
+/**
+ * 거래 ID 생성기
+ * - 생성 방식이 바뀌어도 기존 거래 ID 는 문자열 그대로 조회하므로 형식이 섞여 있어도 된다.
+ */
+public interface TransactionIdGenerator {
+
+    String nextId();
+}
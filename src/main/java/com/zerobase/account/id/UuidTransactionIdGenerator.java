@@ -0,0 +1,14 @@
+package com.zerobase.account.id;
+
+import java.util.UUID;
+
+/**
+ * 기존 방식 : 하이픈을 뺀 32자리 랜덤 UUID
+ */
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,159 @@
+package com.zerobase.account.lane;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 계좌번호 해시로 고정된 개수의 단일 스레드 lane 에 작업을 나눠 실행한다.
+ * - 같은 계좌의 작업은 항상 같은 lane 에서 들어온 순서대로 실행되므로 lock 없이 직렬화된다.
+ * - 다른 계좌의 작업은 서로 다른 lane 에서 병렬로 실행된다.
+ * - lane 대기열이 가득 차면 ACCOUNT_LOCK_QUEUE_FULL, 대기열에서 maxWaitMillis 를 넘기면
+ *   실행하지 않고 ACCOUNT_TRANSACTION_LOCK 으로 실패한다. (lock 대기 시간과 같은 의미)
+ * - 기다리던 스레드가 interrupt 되면 시작 전인 작업은 취소하고 실패하고, 실행 중인 작업은 결과를 받을 때까지 기다린다.
+ * - 서버 간 직렬화는 보장하지 않으므로 한 계좌의 요청이 한 서버로 라우팅되는 환경에서 사용한다.
+ */
+@Slf4j
+public class AccountLaneExecutor {
+
+    private final Lane[] lanes;
+
+    // lane 스레드 안에서 다시 같은 lane 에 작업을 넣으면 자기 자신을 기다리게 되므로 바로 실행한다.
+    private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+    public AccountLaneExecutor(int laneCount, int queueCapacity, MeterRegistry meterRegistry) {
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueCapacity, meterRegistry);
+        }
+    }
+
+    public <T> T execute(String accountNumber, long maxWaitMillis, Task<T> task) throws Throwable {
+        Lane lane = laneOf(accountNumber);
+        if (currentLane.get() == lane) {
+            return task.run();
+        }
+
+        long enqueuedAt = System.nanoTime();
+        // lane 스레드와 기다리다 interrupt 된 호출 스레드 중 먼저 잡은 쪽이 실행 여부를 정한다.
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = lane.executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                if (System.nanoTime() - enqueuedAt > TimeUnit.MILLISECONDS.toNanos(maxWaitMillis)) {
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                currentLane.set(lane);
+                try {
+                    return task.run();
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new ExecutionException(t);
+                } finally {
+                    currentLane.remove();
+                    lane.completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("============== Account lane queue is full ===============");
+            throw new AccountException(ErrorCode.ACCOUNT_LOCK_QUEUE_FULL);
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof ExecutionException ? cause.getCause() : cause;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    // 아직 시작하지 않았으면 빼고 실패한다. 이미 실행 중이면 결과와 다르게 응답하지 않도록 끝까지 기다린다.
+                    if (claimed.compareAndSet(false, true)) {
+                        future.cancel(false);
+                        lane.executor.remove((Runnable) future);
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneIndex(String accountNumber) {
+        return laneOf(accountNumber).index;
+    }
+
+    public int queueDepth(int laneIndex) {
+        return lanes[laneIndex].executor.getQueue().size();
+    }
+
+    public long completed(int laneIndex) {
+        return (long) lanes[laneIndex].completed.count();
+    }
+
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+    }
+
+    private Lane laneOf(String accountNumber) {
+        return lanes[Math.floorMod(accountNumber.hashCode(), lanes.length)];
+    }
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws Throwable;
+    }
+
+    private static class Lane {
+        private final int index;
+        private final ThreadPoolExecutor executor;
+        private final Counter completed;
+
+        private Lane(int index, int queueCapacity, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "account-lane-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+            String lane = String.valueOf(index);
+            Gauge.builder("account.lane.queue.depth", executor, e -> e.getQueue().size())
+                    .description("lane 대기열에 쌓인 작업 수")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.completed = Counter.builder("account.lane.completed")
+                    .description("lane 에서 처리한 작업 수")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+    }
+}
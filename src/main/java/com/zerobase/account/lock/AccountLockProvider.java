@@ -0,0 +1,15 @@
+package com.zerobase.account.lock;
+
+/**
+ * 계좌 단위 lock 구현체가 따라야 하는 규약
+ * - lock 과 unlock 은 같은 스레드에서 짝을 맞춰 호출된다. (LockAopAspect)
+ * - lock 을 얻지 못하면 ACCOUNT_TRANSACTION_LOCK 으로 AccountException 을 던진다.
+ * - 대기/임대 시간은 호출마다 LockTiming 으로 전달된다. (@AccountLock, LockTimingPolicy)
+ * - 어떤 구현체를 쓸지는 account.lock.provider 설정으로 고른다. (LockProviderConfig)
+ */
+public interface AccountLockProvider {
+
+    void lock(String accountNumber, LockTiming timing);
+
+    void unlock(String accountNumber);
+}
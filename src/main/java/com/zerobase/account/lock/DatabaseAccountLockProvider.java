@@ -0,0 +1,87 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * DB 비관적 lock (SELECT ... FOR UPDATE)
+ * - lock 시점에 트랜잭션을 열고 Account 행을 잠근 뒤, unlock 시점에 트랜잭션을 끝낸다.
+ * - 그 사이에 호출되는 @Transactional 메서드는 이 트랜잭션에 참여하므로 같은 커넥션에서 행 lock 을 공유한다.
+ * - 참여한 메서드가 예외로 끝나 rollback-only 가 되면 unlock 시점에 commit 대신 rollback 한다.
+ * - 대기 시간은 lock timeout 힌트로 전달한다. (DB 가 지원하지 않으면 DB 설정값을 따른다.)
+ *   행 lock 은 트랜잭션이 끝날 때 풀리므로 임대 시간은 쓰지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DatabaseAccountLockProvider implements AccountLockProvider {
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    // lock 과 unlock 은 같은 스레드에서 호출되므로 트랜잭션 상태를 스레드에 묶어 둔다.
+    private final ThreadLocal<Deque<TransactionStatus>> transactions =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void lock(String accountNumber, LockTiming timing) {
+        log.debug("Trying row lock for accountNumber : {}", accountNumber);
+
+        TransactionStatus status = transactionManager.getTransaction(
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED));
+        try {
+            // 계좌가 없으면 잠글 행도 없다. 계좌 검증은 이후 비즈니스 로직에 맡긴다.
+            entityManager.createQuery(
+                            "select a from Account a where a.accountNumber = :accountNumber", Account.class)
+                    .setParameter("accountNumber", accountNumber)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .setHint("javax.persistence.lock.timeout", timing.getWaitTimeMillis())
+                    .getResultList();
+        } catch (PessimisticLockException | LockTimeoutException
+                 | PessimisticLockingFailureException | QueryTimeoutException e) {
+            transactionManager.rollback(status);
+            log.error("============== Row lock acquisition failed ===============");
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+
+        transactions.get().push(status);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Row unlock for accountNumber : {}", accountNumber);
+
+        Deque<TransactionStatus> statuses = transactions.get();
+        TransactionStatus status = statuses.poll();
+        if (statuses.isEmpty()) {
+            transactions.remove();
+        }
+        if (status == null) {
+            return;
+        }
+
+        if (status.isRollbackOnly()) {
+            transactionManager.rollback(status);
+        } else {
+            transactionManager.commit(status);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.zerobase.account.lock;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 WINDOW 개의 lock 보유 시간(ns)을 담아두는 링 버퍼
+ * - 기록은 lock 없이 순번으로 칸을 정해 덮어쓴다.
+ * - 백분위 계산용 정렬 스냅샷은 RECOMPUTE_EVERY 번 기록할 때마다 한 번씩만 새로 만든다.
+ */
+class HoldTimeHistogram {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long[] sorted = new long[0];
+
+    void record(long heldNanos) {
+        long sequence = recorded.getAndIncrement();
+        samples.set((int) (sequence % WINDOW), heldNanos);
+
+        if (sequence < RECOMPUTE_EVERY || (sequence + 1) % RECOMPUTE_EVERY == 0) {
+            refresh();
+        }
+    }
+
+    long count() {
+        return recorded.get();
+    }
+
+    long percentileNanos(double percentile) {
+        long[] snapshot = sorted;
+        if (snapshot.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(percentile * snapshot.length) - 1;
+        return snapshot[Math.max(0, Math.min(snapshot.length - 1, index))];
+    }
+
+    private void refresh() {
+        int size = (int) Math.min(recorded.get(), WINDOW);
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        sorted = snapshot;
+    }
+}
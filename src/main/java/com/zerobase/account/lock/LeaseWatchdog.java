@@ -0,0 +1,84 @@
+package com.zerobase.account.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 짧은 임대 시간으로 잡은 Redis lock 을 오래 잡고 있을 때 임대를 갱신한다.
+ * - 임대 시간의 1/3 마다 아직 내가 잡고 있는 lock 인지 확인하고 TTL 을 다시 늘린다. (Redisson watchdog 과 같은 방식)
+ * - 짧게 끝나는 요청은 첫 갱신 전에 unlock 하므로 Redis 를 추가로 호출하지 않는다.
+ * - maxHoldMillis 를 넘기면 더 이상 갱신하지 않아서, 멈춘 스레드가 계좌를 무한정 잡고 있지 못한다.
+ */
+@Slf4j
+public class LeaseWatchdog {
+
+    // 내가 잡은 lock 일 때만 TTL 을 늘린다. (Redisson lock 은 hash 필드에 "클라이언트ID:스레드ID"를 저장)
+    private static final String RENEW_SCRIPT =
+            "if redis.call('hexists', KEYS[1], ARGV[2]) == 1 then "
+                    + "redis.call('pexpire', KEYS[1], ARGV[1]); "
+                    + "return 1; "
+                    + "end; "
+                    + "return 0;";
+
+    private final RedissonClient redissonClient;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentHashMap<String, ScheduledFuture<?>> renewals = new ConcurrentHashMap<>();
+
+    public LeaseWatchdog(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void watch(String lockKey, LockTiming timing) {
+        if (!timing.isRenewable()) {
+            return;
+        }
+
+        String owner = redissonClient.getId() + ":" + Thread.currentThread().getId();
+        long period = Math.max(1L, timing.getLeaseTimeMillis() / 3);
+        long giveUpAt = System.currentTimeMillis() + timing.getMaxHoldMillis() - timing.getLeaseTimeMillis();
+
+        renewals.computeIfAbsent(lockKey, key -> scheduler.scheduleAtFixedRate(
+                () -> renew(lockKey, owner, timing.getLeaseTimeMillis(), giveUpAt),
+                period, period, TimeUnit.MILLISECONDS));
+    }
+
+    public void stop(String lockKey) {
+        ScheduledFuture<?> renewal = renewals.remove(lockKey);
+        if (renewal != null) {
+            renewal.cancel(false);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void renew(String lockKey, String owner, long leaseTimeMillis, long giveUpAt) {
+        try {
+            boolean renewed = System.currentTimeMillis() < giveUpAt && (Boolean) redissonClient
+                    .getScript(StringCodec.INSTANCE)
+                    .eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.BOOLEAN,
+                            Collections.singletonList(lockKey), String.valueOf(leaseTimeMillis), owner);
+            if (!renewed) {
+                log.warn("Stop renewing lock lease : {}", lockKey);
+                stop(lockKey);
+            }
+        } catch (Exception e) {
+            log.error("Lock lease renewal failed : {}", lockKey, e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 같은 서버(JVM) 안에서 lock 키별로 줄을 세우는 메모리 lock
+ * - 키마다 ReentrantLock 을 하나씩 만들고, 잡고 있거나 기다리는 스레드가 없으면 바로 제거한다.
+ * - Redis lock 앞단에 두면 한 계좌에 대해 서버당 하나의 스레드만 Redis 에 접근하게 된다.
+ * - fair 로 만들면 먼저 기다린 스레드가 먼저 lock 을 얻는다. (FIFO)
+ */
+public class LocalAccountLock {
+
+    private final ConcurrentHashMap<String, Entry> locks = new ConcurrentHashMap<>();
+    private final boolean fair;
+
+    public LocalAccountLock() {
+        this(false);
+    }
+
+    public LocalAccountLock(boolean fair) {
+        this.fair = fair;
+    }
+
+    public boolean tryLock(String key, long waitTime, TimeUnit unit) throws InterruptedException {
+        return tryLock(key, Integer.MAX_VALUE, waitTime, unit);
+    }
+
+    /**
+     * 이미 maxWaiters 만큼의 스레드가 기다리고 있으면 기다리지 않고 바로 ACCOUNT_LOCK_QUEUE_FULL 로 실패한다.
+     */
+    public boolean tryLock(String key, int maxWaiters, long waitTime, TimeUnit unit) throws InterruptedException {
+        Entry entry = retain(key, maxWaiters);
+        if (entry == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_LOCK_QUEUE_FULL);
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = entry.lock.tryLock(waitTime, unit);
+            return acquired;
+        } finally {
+            if (!acquired) {
+                release(key);
+            }
+        }
+    }
+
+    public void unlock(String key) {
+        Entry entry = locks.get(key);
+
+        // lock 을 잡지 못한 상태에서 unlock 이 호출돼도 다른 스레드의 lock 은 건드리지 않는다.
+        if (entry == null || !entry.lock.isHeldByCurrentThread()) {
+            return;
+        }
+
+        entry.lock.unlock();
+        release(key);
+    }
+
+    public boolean isHeldByCurrentThread(String key) {
+        Entry entry = locks.get(key);
+        return entry != null && entry.lock.isHeldByCurrentThread();
+    }
+
+    public int holdCount(String key) {
+        Entry entry = locks.get(key);
+        return entry == null ? 0 : entry.lock.getHoldCount();
+    }
+
+    int size() {
+        return locks.size();
+    }
+
+    int waiters(String key) {
+        Entry entry = locks.get(key);
+        return entry == null ? 0 : entry.lock.getQueueLength();
+    }
+
+    // compute 는 키 단위로 원자적으로 실행되므로 참조 카운트를 별도 동기화 없이 관리할 수 있다.
+    // 참조 카운트 = lock 보유자 1 + 대기자 수 이므로, 대기자가 maxWaiters 이상이면 null 을 돌려준다.
+    private Entry retain(String key, int maxWaiters) {
+        Entry[] retained = new Entry[1];
+        locks.compute(key, (k, entry) -> {
+            Entry target = entry == null ? new Entry(fair) : entry;
+            if (entry != null && !entry.lock.isHeldByCurrentThread() && entry.references - 1 >= maxWaiters) {
+                return target;
+            }
+            target.references++;
+            retained[0] = target;
+            return target;
+        });
+        return retained[0];
+    }
+
+    private void release(String key) {
+        locks.computeIfPresent(key, (k, entry) -> --entry.references == 0 ? null : entry);
+    }
+
+    private static class Entry {
+        private final ReentrantLock lock;
+        private int references;
+
+        private Entry(boolean fair) {
+            this.lock = new ReentrantLock(fair);
+        }
+    }
+}
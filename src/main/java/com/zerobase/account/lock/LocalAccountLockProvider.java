@@ -0,0 +1,44 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버 한 대(또는 테스트)에서만 쓰는 메모리 lock
+ * - Redis, DB 를 전혀 거치지 않으므로 가장 빠르지만 서버 간에는 동시성을 보장하지 않는다.
+ * - lock 을 잡은 스레드는 같은 JVM 안에 있으므로 임대 시간은 쓰지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LocalAccountLockProvider implements AccountLockProvider {
+
+    private final LocalAccountLock localAccountLock;
+    private final LockWaitPolicy waitPolicy;
+
+    @Override
+    public void lock(String accountNumber, LockTiming timing) {
+        log.debug("Trying local lock for accountNumber : {}", accountNumber);
+
+        try {
+            if (!localAccountLock.tryLock(accountNumber, waitPolicy.getMaxQueueDepth(),
+                    timing.getWaitTimeMillis(), TimeUnit.MILLISECONDS)) {
+                log.error("============== Local lock acquisition failed ===============");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Local unlock for accountNumber : {}", accountNumber);
+
+        localAccountLock.unlock(accountNumber);
+    }
+}
@@ -0,0 +1,28 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.aop.AccountLock;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * lock 한 번에 적용할 대기/임대 시간(ms)
+ * - waitTimeMillis  : lock 을 얻기 위해 기다리는 최대 시간
+ * - leaseTimeMillis : 갱신하지 않으면 lock 이 자동으로 풀리는 시간
+ * - maxHoldMillis   : 임대를 갱신하면서 최대로 잡고 있을 수 있는 시간 (leaseTimeMillis 와 같으면 갱신하지 않는다.)
+ */
+@Getter
+@AllArgsConstructor
+public class LockTiming {
+
+    private final long waitTimeMillis;
+    private final long leaseTimeMillis;
+    private final long maxHoldMillis;
+
+    public static LockTiming of(AccountLock accountLock) {
+        return new LockTiming(accountLock.tryLockTime(), accountLock.leaseTime(), accountLock.leaseTime());
+    }
+
+    public boolean isRenewable() {
+        return maxHoldMillis > leaseTimeMillis;
+    }
+}
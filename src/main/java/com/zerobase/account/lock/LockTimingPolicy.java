@@ -0,0 +1,56 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.aop.AccountLock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * endpoint 별 lock 대기/임대 시간을 정한다.
+ * - static   : @AccountLock 에 적힌 tryLockTime, leaseTime 을 그대로 사용
+ * - adaptive : 최근 lock 보유 시간의 p99 를 기준으로 대기/임대 시간을 줄인다.
+ *              임대 시간이 짧아진 대신 오래 잡고 있는 요청은 watchdog 이 @AccountLock.leaseTime 까지 임대를 갱신한다.
+ *              그래서 서버가 죽었을 때 계좌가 묶이는 시간이 leaseTime 이 아니라 짧아진 임대 시간이 된다.
+ */
+public class LockTimingPolicy {
+
+    // 표본이 충분히 모이기 전에는 @AccountLock 값을 그대로 쓴다.
+    private static final long MIN_SAMPLES = 50L;
+
+    // 임대 시간 = p99 * 3 (최소 1초), 대기 시간 = p99 * 8 (최소 100ms) - 둘 다 @AccountLock 값을 넘지 않는다.
+    private static final long LEASE_FACTOR = 3L;
+    private static final long MIN_LEASE_MILLIS = 1000L;
+    private static final long WAIT_FACTOR = 8L;
+    private static final long MIN_WAIT_MILLIS = 100L;
+
+    private final boolean adaptive;
+    private final ConcurrentHashMap<String, HoldTimeHistogram> histograms = new ConcurrentHashMap<>();
+
+    public LockTimingPolicy(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public LockTiming timingFor(String endpoint, AccountLock accountLock) {
+        HoldTimeHistogram histogram = histograms.get(endpoint);
+        if (!adaptive || histogram == null || histogram.count() < MIN_SAMPLES) {
+            return LockTiming.of(accountLock);
+        }
+
+        long p99Millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(histogram.percentileNanos(0.99)));
+
+        return new LockTiming(
+                clamp(p99Millis * WAIT_FACTOR, MIN_WAIT_MILLIS, accountLock.tryLockTime()),
+                clamp(p99Millis * LEASE_FACTOR, MIN_LEASE_MILLIS, accountLock.leaseTime()),
+                accountLock.leaseTime());
+    }
+
+    public void record(String endpoint, long heldNanos) {
+        if (adaptive) {
+            histograms.computeIfAbsent(endpoint, key -> new HoldTimeHistogram()).record(heldNanos);
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.min(max, Math.max(Math.min(min, max), value));
+    }
+}
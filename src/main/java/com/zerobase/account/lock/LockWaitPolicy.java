@@ -0,0 +1,27 @@
+package com.zerobase.account.lock;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * lock 을 바로 얻지 못했을 때 어떻게 기다릴지에 대한 정책
+ * - tryOnce : 기존 방식, 대기 시간 동안 시도해 보고 실패
+ * - queue   : 계좌별 FIFO 대기열에 줄을 서고 unlock 알림으로 깨어난다.
+ *             대기열이 maxQueueDepth 만큼 차 있으면 기다리지 않고 바로 실패한다.
+ * 대기 시간 자체는 호출마다 LockTiming 으로 정해진다.
+ */
+@Getter
+@AllArgsConstructor
+public class LockWaitPolicy {
+
+    private final boolean queued;
+    private final int maxQueueDepth;
+
+    public static LockWaitPolicy tryOnce() {
+        return new LockWaitPolicy(false, Integer.MAX_VALUE);
+    }
+
+    public static LockWaitPolicy queue(int maxQueueDepth) {
+        return new LockWaitPolicy(true, maxQueueDepth);
+    }
+}
@@ -0,0 +1,121 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis(Redisson) 분산 lock
+ * - 여러 서버가 같은 계좌를 다룰 때 사용하는 기본 구현체
+ * - 같은 서버 안의 경쟁자는 LocalAccountLock 에서 먼저 줄을 세운다.
+ * - queue 정책이면 Redisson fair lock 을 사용한다. 서버 간에도 FIFO 로 줄을 서고,
+ *   앞사람이 unlock 하면 pub/sub 알림으로 다음 대기자가 깨어난다.
+ *   (같은 계좌에 대해 서버마다 다른 정책을 섞어 쓰면 안 된다.)
+ * - 임대 시간보다 오래 잡을 수 있는 lock 은 LeaseWatchdog 이 임대를 갱신한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedissonAccountLockProvider implements AccountLockProvider {
+
+    private final RedissonClient redissonClient;
+    private final LocalAccountLock localAccountLock;
+    private final LockWaitPolicy waitPolicy;
+    private final LeaseWatchdog leaseWatchdog;
+
+    @Override
+    public void lock(String accountNumber, LockTiming timing) {
+
+        // 계좌번호를 lock의 키로로 활용
+        String lockKey = getLockKey(accountNumber);
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+        boolean localLocked = false;
+        RLock lock = null;
+        try {
+            long waitTime = timing.getWaitTimeMillis();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTime);
+
+            // 1차 : 같은 서버 안의 경쟁자는 메모리에서 먼저 줄을 세운다.
+            if (!localAccountLock.tryLock(lockKey, waitPolicy.getMaxQueueDepth(), waitTime, TimeUnit.MILLISECONDS)) {
+                log.error("============== Local lock acquisition failed ===============");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            localLocked = true;
+
+            // 2차 : 서버 간 경쟁은 남은 대기 시간 안에서 Redis lock 으로 처리
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            RLock redisLock = getLock(lockKey);
+            if (!redisLock.tryLock(remaining,
+                    TimeUnit.MILLISECONDS.toNanos(timing.getLeaseTimeMillis()), TimeUnit.NANOSECONDS)) {
+                log.error("============== Lock acquisition failed ===============");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            lock = redisLock;
+            leaseWatchdog.watch(lockKey, timing);
+        } catch (AccountException e) {
+            releaseAfterFailure(lockKey, localLocked, lock);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseAfterFailure(lockKey, localLocked, lock);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            // Redis 장애 등. lock 없이 진행하지 않는다.
+            log.error("Redis lock failed", e);
+            releaseAfterFailure(lockKey, localLocked, lock);
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        log.debug("Lock acquired for accountNumber : {}", accountNumber);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+
+        String lockKey = getLockKey(accountNumber);
+        try {
+            // 재진입한 lock 이면 가장 바깥쪽 unlock 에서만 갱신을 멈춘다.
+            if (localAccountLock.holdCount(lockKey) <= 1) {
+                leaseWatchdog.stop(lockKey);
+            }
+            getLock(lockKey).unlock();
+        } catch (IllegalMonitorStateException e) {
+            // 임대 시간이 지나 이미 풀렸다. commit 은 끝났으므로 요청을 실패시키지 않는다.
+            log.warn("Redis lock lease expired before unlock. lockKey : {}", lockKey);
+        } catch (RuntimeException e) {
+            // Redis 장애. 임대 시간이 지나면 풀린다.
+            log.error("Redis unlock failed. lockKey : {}", lockKey, e);
+        } finally {
+            localAccountLock.unlock(lockKey);
+        }
+    }
+
+    // 잡은 것만 거꾸로 푼다.
+    private void releaseAfterFailure(String lockKey, boolean localLocked, RLock lock) {
+        if (lock != null) {
+            try {
+                lock.unlock();
+            } catch (RuntimeException e) {
+                log.error("Redis unlock failed. lockKey : {}", lockKey, e);
+            }
+        }
+        if (localLocked) {
+            localAccountLock.unlock(lockKey);
+        }
+    }
+
+    private RLock getLock(String lockKey) {
+        return waitPolicy.isQueued()
+                ? redissonClient.getFairLock(lockKey)
+                : redissonClient.getLock(lockKey);
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
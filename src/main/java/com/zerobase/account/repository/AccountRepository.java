@@ -1,22 +1,119 @@
 package com.zerobase.account.repository;
 
+import com.zerobase.account.cache.AccountSnapshot;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.domain.AccountUser;
+import com.zerobase.account.dto.AccountBalance;
+import com.zerobase.account.dto.AccountListVersion;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
 
-    Optional<Account> findFirstByOrderByIdDesc();
-
-    Integer countByAccountUser(AccountUser accountUser);
+    // 계좌번호는 모두 10자리 숫자라 문자열 최댓값이 곧 숫자 최댓값이다.
+    @Query("select max(a.accountNumber) from Account a")
+    String findMaxAccountNumber();
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    // accountUser 는 LAZY 이므로 엔티티를 그대로 응답할 때는 함께 가져온다.
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
     List<Account> findByAccountUser(AccountUser accountUser);
 
+    // 조건부 GET 용. 계좌 행을 읽지 않고 집계 한 번으로 목록이 바뀌었는지 확인한다.
+    // 원장/분할 잔액 모드의 잔액 변경은 계좌 행을 바꾸지 않으므로 AccountService 가 모드별 값을 더한다.
+    @Query("select new com.zerobase.account.dto.AccountListVersion(count(a), coalesce(sum(a.version), 0L),"
+            + " max(a.updatedAt)) from Account a where a.accountUser.id = :userId")
+    AccountListVersion findListVersionByAccountUserId(@Param("userId") Long userId);
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findForUpdateByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 계좌 캐시에 넣을 값만 읽는다. (엔티티를 영속성 컨텍스트에 올리지 않음)
+    @Query("select new com.zerobase.account.cache.AccountSnapshot(a.id, a.accountNumber, a.accountUser.id,"
+            + " a.accountStatus, a.balance, a.version) from Account a where a.accountNumber = :accountNumber")
+    Optional<AccountSnapshot> findSnapshotByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("select new com.zerobase.account.cache.AccountSnapshot(a.id, a.accountNumber, a.accountUser.id,"
+            + " a.accountStatus, a.balance, a.version) from Account a where a.accountNumber in :accountNumbers")
+    List<AccountSnapshot> findSnapshotsByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    // 캐시에서 읽은 version 이 DB 와 같을 때만 잔액을 바꾼다. 0 이면 캐시 값이 오래된 것이다.
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.updatedAt = :now,"
+            + " a.version = a.version + 1"
+            + " where a.id = :id and a.version = :version")
+    int updateBalance(@Param("id") Long id,
+                      @Param("version") Long version,
+                      @Param("balance") Long balance,
+                      @Param("now") LocalDateTime now);
+
+    Optional<AccountBalance> findBalanceByAccountNumber(String accountNumber);
+
+    Optional<AccountBalance> findBalanceById(Long id);
+
+    // 조건을 만족할 때만 잔액을 차감한다. (읽고-수정하고-쓰기 없이 DB 에서 원자적으로 처리)
+    // 엔티티로 읽어 둔 다른 트랜잭션이 덮어쓰지 않도록 version 도 올린다.
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount, a.updatedAt = :now,"
+            + " a.version = a.version + 1"
+            + " where a.accountNumber = :accountNumber"
+            + " and a.accountUser.id = :userId"
+            + " and a.accountStatus = com.zerobase.account.type.AccountStatus.IN_USE"
+            + " and a.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber,
+              @Param("userId") Long userId,
+              @Param("amount") Long amount,
+              @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.updatedAt = :now,"
+            + " a.version = a.version + 1"
+            + " where a.id = :id")
+    int credit(@Param("id") Long id,
+               @Param("amount") Long amount,
+               @Param("now") LocalDateTime now);
+
+    boolean existsByAccountNumber(String accountNumber);
+
+    // 분할 잔액 모드에서 슬롯을 다시 나누는 동안 계좌 행을 잠근다. 0 이면 사용 중인 계좌가 아니다.
+    @Modifying
+    @Query("update Account a set a.updatedAt = :now, a.version = a.version + 1"
+            + " where a.id = :id and a.accountStatus = com.zerobase.account.type.AccountStatus.IN_USE")
+    int lockInUse(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 계좌 잔액을 슬롯으로 모두 옮긴 뒤에 부른다.
+    @Modifying
+    @Query("update Account a set a.balance = 0L, a.updatedAt = :now, a.version = a.version + 1 where a.id = :id")
+    int clearBalance(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 원장 모드의 스냅샷. 다른 서버가 먼저 옮겼으면 0 건이다.
+    // 엔티티로 읽어 둔 트랜잭션이 옛 잔액으로 덮어쓰지 않도록 version 도 올린다.
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.ledgerSequence = :toSequence,"
+            + " a.updatedAt = :now, a.version = a.version + 1"
+            + " where a.id = :id and a.ledgerSequence = :fromSequence")
+    int snapshotLedger(@Param("id") Long id,
+                       @Param("fromSequence") Long fromSequence,
+                       @Param("toSequence") Long toSequence,
+                       @Param("amount") Long amount,
+                       @Param("now") LocalDateTime now);
+
 }
@@ -0,0 +1,69 @@
+package com.zerobase.account.repository;
+
+import com.zerobase.account.domain.AccountSlot;
+import com.zerobase.account.dto.AccountSlotBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountSlotRepository extends JpaRepository<AccountSlot, Long> {
+
+    // 사용 중인 계좌의 한 슬롯에서만 차감한다. 0 이면 그 슬롯 잔액이 모자라거나 사용 중인 계좌가 아니다.
+    // 다른 트랜잭션을 기다린 뒤 조건이 맞지 않게 되면 0 건이어도 행 lock 은 남는다.
+    @Modifying
+    @Query("update AccountSlot s set s.balance = s.balance - :amount, s.version = s.version + 1"
+            + " where s.accountId = :accountId and s.slot = :slot and s.balance >= :amount"
+            + " and exists (select a.id from Account a where a.id = :accountId"
+            + " and a.accountStatus = com.zerobase.account.type.AccountStatus.IN_USE)")
+    int debit(@Param("accountId") Long accountId,
+              @Param("slot") Integer slot,
+              @Param("amount") Long amount);
+
+    // 0 이면 아직 나누지 않은 계좌다.
+    @Modifying
+    @Query("update AccountSlot s set s.balance = s.balance + :amount, s.version = s.version + 1"
+            + " where s.accountId = :accountId and s.slot = :slot")
+    int credit(@Param("accountId") Long accountId,
+               @Param("slot") Integer slot,
+               @Param("amount") Long amount);
+
+    // 계좌의 슬롯 행을 모두 잠근다. 0 이면 아직 나누지 않은 계좌다.
+    @Modifying
+    @Query("update AccountSlot s set s.version = s.version + 1 where s.accountId = :accountId")
+    int lockSlots(@Param("accountId") Long accountId);
+
+    // balance 를 슬롯마다 share 씩, 앞의 remainder 개 슬롯에는 1 씩 더 나눠 담는다.
+    @Modifying
+    @Query("update AccountSlot s set s.balance = :share + case when s.slot < :remainder then 1L else 0L end,"
+            + " s.version = s.version + 1"
+            + " where s.accountId = :accountId")
+    int distribute(@Param("accountId") Long accountId,
+                   @Param("share") Long share,
+                   @Param("remainder") Integer remainder);
+
+    boolean existsByAccountId(Long accountId);
+
+    // 잠그지 않고 읽는다. 슬롯 번호 순서
+    @Query("select s.balance from AccountSlot s where s.accountId = :accountId order by s.slot")
+    List<Long> findSlotBalances(@Param("accountId") Long accountId);
+
+    // 계좌 잔액 + 슬롯 잔액 합
+    @Query("select a.balance + coalesce((select sum(s.balance) from AccountSlot s where s.accountId = a.id), 0L)"
+            + " from Account a where a.id = :accountId")
+    Optional<Long> findTotalBalance(@Param("accountId") Long accountId);
+
+    @Query("select s.accountId as accountId, sum(s.balance) as balance from AccountSlot s, Account a"
+            + " where s.accountId = a.id and a.accountUser.id = :userId group by s.accountId")
+    List<AccountSlotBalance> findBalancesByAccountUserId(@Param("userId") Long userId);
+
+    // 조건부 GET 용. 슬롯 잔액이 바뀔 때마다 version 이 커진다. (사용자당 계좌 수 x 슬롯 수 행만 읽음)
+    @Query("select coalesce(sum(s.version), 0L) from AccountSlot s, Account a"
+            + " where s.accountId = a.id and a.accountUser.id = :userId")
+    Long sumVersionByAccountUserId(@Param("userId") Long userId);
+}
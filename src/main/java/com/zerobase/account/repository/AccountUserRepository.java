@@ -2,9 +2,37 @@ package com.zerobase.account.repository;
 
 import com.zerobase.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
 
+    // 계좌 수를 바꾸기 전에 사용자 행 lock 을 잡는다. 같은 사용자의 동시 개설/해지는 여기서 줄을 선다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AccountUser u where u.id = :id")
+    Optional<AccountUser> findForUpdateById(@Param("id") Long id);
+
+    @Query("select u.id from AccountUser u"
+            + " where u.accountCount is null or u.accountCount <>"
+            + " (select count(a) from Account a where a.accountUser = u"
+            + " and a.accountStatus = com.zerobase.account.type.AccountStatus.IN_USE)")
+    List<Long> findIdsWithMismatchedAccountCount();
+
+    // 기동 시 보정에만 쓴다. 벌크 UPDATE 라서 AccountUser 2차 캐시가 비워진다.
+    @Modifying
+    @Query("update AccountUser u set u.accountCount ="
+            + " (select count(a) from Account a where a.accountUser.id = u.id"
+            + " and a.accountStatus = com.zerobase.account.type.AccountStatus.IN_USE)"
+            + " where u.id in :ids")
+    int rebuildAccountCount(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,58 @@
+package com.zerobase.account.repository;
+
+import com.zerobase.account.domain.LedgerEntry;
+import com.zerobase.account.dto.LedgerBalance;
+import com.zerobase.account.dto.LedgerPending;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // 계좌 행과 스냅샷 이후 기록을 한 문장으로 읽어서, 그 사이에 스냅샷이 옮겨져도 같은 시점의 값으로 계산한다.
+    String BALANCE_SELECT = "select new com.zerobase.account.dto.LedgerBalance(a.id, a.accountNumber,"
+            + " a.accountUser.id, a.accountStatus, a.balance + coalesce(sum(e.amount), 0L),"
+            + " coalesce(max(e.sequence), a.ledgerSequence))"
+            + " from Account a left join LedgerEntry e on e.accountId = a.id and e.sequence > a.ledgerSequence";
+
+    String BALANCE_GROUP = " group by a.id, a.accountNumber, a.accountUser.id, a.accountStatus,"
+            + " a.balance, a.ledgerSequence";
+
+    String PENDING_SELECT = "select a.id as accountId, a.accountNumber as accountNumber,"
+            + " a.ledgerSequence as fromSequence, max(e.sequence) as toSequence,"
+            + " sum(e.amount) as amount, count(e) as entries"
+            + " from Account a, LedgerEntry e where e.accountId = a.id and e.sequence > a.ledgerSequence";
+
+    String PENDING_GROUP = " group by a.id, a.accountNumber, a.ledgerSequence";
+
+    @Query(BALANCE_SELECT + " where a.accountNumber = :accountNumber" + BALANCE_GROUP)
+    Optional<LedgerBalance> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query(BALANCE_SELECT + " where a.id = :accountId" + BALANCE_GROUP)
+    Optional<LedgerBalance> findBalanceByAccountId(@Param("accountId") Long accountId);
+
+    @Query(PENDING_SELECT + " and a.accountUser.id = :userId" + PENDING_GROUP)
+    List<LedgerPending> findPendingByAccountUserId(@Param("userId") Long userId);
+
+    // 스냅샷할 계좌 (기록이 많이 쌓인 계좌부터)
+    @Query(PENDING_SELECT + PENDING_GROUP + " having count(e) >= :minEntries order by count(e) desc")
+    List<LedgerPending> findPendingSnapshots(@Param("minEntries") long minEntries, Pageable pageable);
+
+    // at 이후의 변경 합. 현재 잔액에서 빼면 at 시점의 잔액이다.
+    @Query("select coalesce(sum(e.amount), 0L) from LedgerEntry e"
+            + " where e.accountId = :accountId and e.createdAt > :at")
+    Long sumAmountAfter(@Param("accountId") Long accountId, @Param("at") LocalDateTime at);
+
+    // 조건부 GET 용. 계좌별 마지막 원장 순번 ((accountId, sequence) unique 인덱스의 끝만 읽는다)
+    // 기록이 없는 계좌는 스냅샷 순번을 쓴다.
+    @Query("select coalesce((select max(e.sequence) from LedgerEntry e where e.accountId = a.id), a.ledgerSequence)"
+            + " from Account a where a.accountUser.id = :userId")
+    List<Long> findLastSequencesByAccountUserId(@Param("userId") Long userId);
+}
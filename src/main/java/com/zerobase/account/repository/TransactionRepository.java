@@ -1,13 +1,97 @@
 package com.zerobase.account.repository;
 
 import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.dto.TransactionSummary;
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    String HISTORY_SELECT = "select t.id as id, t.transactionId as transactionId,"
+            + " t.transactionType as transactionType, t.transactionResultType as transactionResultType,"
+            + " t.amount as amount, t.balanceSnapshot as balanceSnapshot, t.transactedAt as transactedAt"
+            + " from Transaction t";
+
+    // 커서 (transactedAt, id) 보다 오래된 거래. 앞 조건이 인덱스 범위이고, 같은 시각의 id 비교는 그 안에서만 거른다.
+    String HISTORY_SEEK = " and t.transactedAt <= :cursorAt and (t.transactedAt < :cursorAt or t.id < :cursorId)";
+
+    String TYPE_FILTER = " and t.transactionType = :transactionType";
+
+    String RESULT_FILTER = " and t.transactionResultType = :transactionResultType";
+
+    String HISTORY_ORDER = " order by t.transactedAt desc, t.id desc";
+
+    // 취소/조회 모두 계좌가 필요하므로 계좌를 함께 가져온다. (SQL 한 번)
+    @EntityGraph(attributePaths = "account")
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    // 조건부 GET 용. 계좌를 fetch join 하지 않고 수정 시각만 읽는다.
+    @Query("select t.updatedAt from Transaction t where t.transactionId = :transactionId")
+    Optional<LocalDateTime> findUpdatedAtByTransactionId(@Param("transactionId") String transactionId);
+
+    // 이미 저장된 거래 ID 만 돌려준다. (BalancePersister)
+    @Query("select t.transactionId from Transaction t where t.transactionId in :transactionIds")
+    List<String> findTransactionIdsIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    // 계좌 거래 내역 (최신순). idx_transaction_account_history 를 따라 읽고 Pageable 의 크기만큼만 가져온다.
+    // 필터 조합마다 쿼리를 나눠서 "(:p is null or ...)" 없이 실행 계획을 고정한다. 커서가 있으면 ...After (keyset pagination, OFFSET 없음)
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + HISTORY_ORDER)
+    List<TransactionSummary> findHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + HISTORY_SEEK + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryAfter(@Param("accountId") Long accountId,
+                                              @Param("cursorAt") LocalDateTime cursorAt,
+                                              @Param("cursorId") Long cursorId,
+                                              Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + TYPE_FILTER + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByType(@Param("accountId") Long accountId,
+                                               @Param("transactionType") TransactionType transactionType,
+                                               Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + HISTORY_SEEK + TYPE_FILTER + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByTypeAfter(@Param("accountId") Long accountId,
+                                                    @Param("cursorAt") LocalDateTime cursorAt,
+                                                    @Param("cursorId") Long cursorId,
+                                                    @Param("transactionType") TransactionType transactionType,
+                                                    Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + RESULT_FILTER + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByResult(@Param("accountId") Long accountId,
+                                                 @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                 Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + HISTORY_SEEK + RESULT_FILTER + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByResultAfter(@Param("accountId") Long accountId,
+                                                      @Param("cursorAt") LocalDateTime cursorAt,
+                                                      @Param("cursorId") Long cursorId,
+                                                      @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                      Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + TYPE_FILTER + RESULT_FILTER + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByTypeAndResult(@Param("accountId") Long accountId,
+                                                        @Param("transactionType") TransactionType transactionType,
+                                                        @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                        Pageable pageable);
+
+    @Query(HISTORY_SELECT + " where t.account.id = :accountId" + HISTORY_SEEK + TYPE_FILTER + RESULT_FILTER
+            + HISTORY_ORDER)
+    List<TransactionSummary> findHistoryByTypeAndResultAfter(@Param("accountId") Long accountId,
+                                                             @Param("cursorAt") LocalDateTime cursorAt,
+                                                             @Param("cursorId") Long cursorId,
+                                                             @Param("transactionType") TransactionType transactionType,
+                                                             @Param("transactionResultType") TransactionResultType transactionResultType,
+                                                             Pageable pageable);
 }
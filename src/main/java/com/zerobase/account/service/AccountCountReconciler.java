@@ -0,0 +1,51 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.repository.AccountUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * AccountUser.accountCount 가 Account 테이블의 사용 중인 계좌 수와 맞는지 확인하고, 다른 사용자만 다시 계산한다.
+ * - 기존 데이터에 계좌 수를 처음 채울 때나, 카운터가 어긋났을 때 실행한다.
+ * - 다시 계산하는 UPDATE 는 사용자 행을 잠그므로 진행 중인 개설/해지와 섞이지 않지만,
+ *   트래픽이 적을 때 실행하는 것을 권장한다.
+ * - account.account-count.verify-on-startup 이 true 면 기동 시 한 번 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountCountReconciler {
+
+    private final AccountUserRepository accountUserRepository;
+
+    @Value("${account.account-count.verify-on-startup:true}")
+    private boolean verifyOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (verifyOnStartup) {
+            reconcile();
+        }
+    }
+
+    /**
+     * @return 계좌 수를 다시 계산한 사용자 수
+     */
+    @Transactional
+    public int reconcile() {
+        List<Long> userIds = accountUserRepository.findIdsWithMismatchedAccountCount();
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        log.warn("Account count mismatch. rebuild userIds : {}", userIds);
+        return accountUserRepository.rebuildAccountCount(userIds);
+    }
+}
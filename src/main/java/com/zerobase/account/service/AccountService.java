@@ -1,18 +1,28 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.aop.SingleFlight;
+import com.zerobase.account.cache.NegativeCache;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.domain.AccountUser;
 import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.AccountListVersion;
+import com.zerobase.account.engine.BalanceEngine;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.AccountNumberAllocator;
 import com.zerobase.account.repository.AccountRepository;
 import com.zerobase.account.repository.AccountUserRepository;
+import com.zerobase.account.type.TransactionMode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.zerobase.account.type.AccountStatus.IN_USE;
@@ -24,27 +34,45 @@ import static com.zerobase.account.type.ErrorCode.*;
 @RequiredArgsConstructor    // 생성자 주입을 위한 보일러 플레이트 코드를 개선
 public class AccountService {
 
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     // private String noFinal;
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final NegativeCache<Long> missingAccountUserCache;
+    private final LedgerService ledgerService;
+    // memory 모드에서만 있다. 메모리에 올라온 계좌는 DB 잔액보다 엔진 잔액이 최신이다.
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+    private final SplitBalanceService splitBalanceService;
+    // ledger 면 계좌의 balance 는 스냅샷이고, 이후 원장 기록을 더해야 현재 잔액이다.
+    // split 이면 계좌의 balance 에 슬롯 잔액 합을 더해야 현재 잔액이다.
+    private final TransactionMode transactionMode;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * 사용자가 있는지 조회
      * 계좌 번호 생성
-     * 좌를 저장하고, 그 정보를 넘긴다.
+     * 사용자가 있는지 조회
+     * 계좌를 저장하고, 그 정보를 넘긴다.
+     * 계좌번호는 트랜잭션을 열기 전에 받는다. 블록을 다 쓰면 새 커넥션으로 다음 블록을 예약하므로,
+     * 트랜잭션 안에서 받으면 커넥션을 잡은 채로 예약을 기다리는 스레드들이 풀을 다 쓸 수 있다.
+     * (계좌 생성이 실패하면 받은 번호는 쓰지 않는다.)
      */
-    @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
+        checkNotMissing(userId);
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
+
+        return transactionTemplate.execute(status -> createAccount(userId, initialBalance, newAccountNumber));
+    }
+
+    private AccountDto createAccount(Long userId, Long initialBalance, String newAccountNumber) {
 
         // 먼저 계좌를 개설하려는 사용자의 ID 를 통해 해당 사용자가 있는지 확인
-        AccountUser accountUser = getAccountUser(userId);
+        // 계좌 수를 바꿔야 하므로 캐시가 아닌 DB 에서 행 lock 을 잡고 읽는다.
+        AccountUser accountUser = getAccountUserForUpdate(userId);
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
-
         // 문제점 1) - Entity 를 그대로 Return 했을 때!
         // lazy loading 시 발생할 수 있는 트랜잭션의 문제가 발생
         // 변화에 대응하기 불편
@@ -52,6 +80,10 @@ public class AccountService {
         // return에서 빌더를 사용하는 이유!
         // 중간에 로직이 들어갈 경우 데이터의 변동이 생길 수 있다.
 
+        if (transactionMode == TransactionMode.SPLIT) {
+            return createSplitAccount(accountUser, newAccountNumber, initialBalance);
+        }
+
         return AccountDto.fromEntity(
                 accountRepository.save(
                         Account.builder()
@@ -66,10 +98,27 @@ public class AccountService {
     }
 
 
+    // 분할 잔액 모드에서는 계좌 행의 잔액을 0 으로 두고 처음부터 슬롯에 나눠 담는다.
+    private AccountDto createSplitAccount(AccountUser accountUser, String accountNumber, Long initialBalance) {
+        Account account = accountRepository.save(
+                Account.builder()
+                        .accountUser(accountUser)
+                        .accountStatus(IN_USE)
+                        .accountNumber(accountNumber)
+                        .balance(0L)
+                        .registeredAt(LocalDateTime.now())
+                        .build());
+        splitBalanceService.split(account.getId(), initialBalance);
+
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        accountDto.setBalance(initialBalance);
+        return accountDto;
+    }
+
+    // 개수를 세지 않고 lock 을 잡은 사용자 행의 계좌 수를 올린다. 한도에 닿았으면 예외.
+    // 계좌 저장이 실패하면 같은 트랜잭션이므로 함께 rollback 된다.
     private void validateCreateAccount(AccountUser accountUser) {
-        if (accountRepository.countByAccountUser(accountUser) >= 10) {
-            throw new AccountException(MAX_ACCOUNT_PER_USER_10);
-        }
+        accountUser.increaseAccountCount(MAX_ACCOUNT_PER_USER);
     }
 
     @Transactional
@@ -78,22 +127,24 @@ public class AccountService {
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
 
         // 먼저 계좌를 개설하려는 사용자의 ID 를 통해 해당 사용자가 있는지 확인
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = getAccountUserForUpdate(userId);
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
         validateDeleteAccount(accountUser, account);
 
+        accountUser.decreaseAccountCount();
         account.setAccountStatus(UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
+        balanceEngine.ifAvailable(engine -> engine.unregister(accountNumber));
 
         // 이 코드가 없어도 JPA가 알아서 update 한다.
         accountRepository.save(account);
@@ -111,12 +162,13 @@ public class AccountService {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
 
-        if (account.getBalance() > 0) {
+        if (getBalance(account) > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
 
     }
 
+    @SingleFlight
     @Transactional
     public List<AccountDto> getAccountsByUserId(Long userId) {
 
@@ -124,13 +176,111 @@ public class AccountService {
 
         List<Account> accounts = accountRepository.findByAccountUser(accountUser);
 
-        return accounts.stream()
+        List<AccountDto> accountDtos = accounts.stream()
                 .map(AccountDto::fromEntity)
                 .collect(Collectors.toList());
+
+        // 스냅샷 이후 변경을 한 번의 조회로 더한다.
+        if (transactionMode == TransactionMode.LEDGER) {
+            Map<Long, Long> pendingAmounts = ledgerService.getPendingAmounts(userId);
+            for (int i = 0; i < accounts.size(); i++) {
+                Long pending = pendingAmounts.get(accounts.get(i).getId());
+                if (pending != null) {
+                    accountDtos.get(i).setBalance(accountDtos.get(i).getBalance() + pending);
+                }
+            }
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            Map<Long, Long> slotBalances = splitBalanceService.getSlotBalances(userId);
+            for (int i = 0; i < accounts.size(); i++) {
+                Long slotBalance = slotBalances.get(accounts.get(i).getId());
+                if (slotBalance != null) {
+                    accountDtos.get(i).setBalance(accountDtos.get(i).getBalance() + slotBalance);
+                }
+            }
+        }
+        balanceEngine.ifAvailable(engine -> accountDtos.forEach(accountDto ->
+                engine.getBalance(accountDto.getAccountNumber()).ifPresent(accountDto::setBalance)));
+        return accountDtos;
+    }
+
+    /**
+     * at 시점의 잔액. 원장 모드에서만 기록이 남으므로 다른 모드에서는 INVALID_REQUEST
+     * 개설 잔액은 원장에 기록하지 않으므로 개설 전 시점도 INVALID_REQUEST
+     */
+    public AccountDto getBalanceAt(String accountNumber, LocalDateTime at) {
+        if (transactionMode != TransactionMode.LEDGER || at.isAfter(LocalDateTime.now())) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        if (at.isBefore(account.getRegisteredAt())) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        return AccountDto.builder()
+                .accountNumber(accountNumber)
+                .balance(ledgerService.getBalanceAt(accountNumber, at))
+                .build();
+    }
+
+    private Long getBalance(Account account) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            return engine.getBalance(account.getAccountNumber()).orElse(account.getBalance());
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return splitBalanceService.getBalance(account.getId());
+        }
+        if (transactionMode != TransactionMode.LEDGER) {
+            return account.getBalance();
+        }
+        return ledgerService.getBalance(account.getId())
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND))
+                .getBalance();
     }
 
+    /**
+     * 계좌 목록 조회의 ETag 를 만들 값. 계좌가 없으면(없는 사용자 포함) empty
+     * 원장/분할 잔액 모드에서만 계좌 행 밖의 잔액 변경을 한 번 더 조회한다.
+     */
+    public Optional<AccountListVersion> getAccountListVersion(Long userId) {
+        AccountListVersion version = accountRepository.findListVersionByAccountUserId(userId);
+        if (version.getCount() == 0) {
+            return Optional.empty();
+        }
+        if (transactionMode == TransactionMode.LEDGER) {
+            return Optional.of(version.withModeVersion(ledgerService.getLastSequenceSum(userId)));
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return Optional.of(version.withModeVersion(splitBalanceService.getSlotVersionSum(userId)));
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            return Optional.of(version.withModeVersion(balanceEngine.getObject().journalOffset()));
+        }
+        return Optional.of(version);
+    }
+
+    // findById 는 2차 캐시에서 먼저 찾는다. 없는 사용자는 잠깐 기억해서 다시 조회하지 않는다.
     private AccountUser getAccountUser(Long userId) {
+        checkNotMissing(userId);
         return accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+                .orElseThrow(() -> userNotFound(userId));
+    }
+
+    private AccountUser getAccountUserForUpdate(Long userId) {
+        checkNotMissing(userId);
+        return accountUserRepository.findForUpdateById(userId)
+                .orElseThrow(() -> userNotFound(userId));
+    }
+
+    private void checkNotMissing(Long userId) {
+        if (missingAccountUserCache.isMissing(userId)) {
+            throw new AccountException(USER_NOT_FOUND);
+        }
+    }
+
+    private AccountException userNotFound(Long userId) {
+        missingAccountUserCache.markMissing(userId);
+        return new AccountException(USER_NOT_FOUND);
     }
 }
@@ -0,0 +1,177 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.config.ConditionalOnTransactionMode;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * account.transaction.mode=coalesce 일 때 한 계좌에 동시에 들어온 잔액 사용(useBalance)을 묶어서 처리한다. (서버 안에서만)
+ * - 계좌의 첫 요청(leader)이 window 동안, 또는 maxBatchSize 건이 모일 때까지 기다렸다가
+ *   모인 요청을 useBalanceCoalesced 로 한 번에 처리한다. (계좌 lock 한 번, 계좌 UPDATE 한 번, 거래 INSERT 한 묶음)
+ * - 건별 검증은 들어온 순서대로 하고, 요청마다 자기 거래 결과(잔액 스냅샷 포함)나 에러를 받는다.
+ * - 이미 트랜잭션 안에서 부르면 그 트랜잭션에서 처리해야 하므로 묶지 않는다.
+ * - 요청이 드문 계좌는 window 만큼 응답이 늦어진다.
+ */
+@Aspect
+@Component
+@ConditionalOnTransactionMode(TransactionMode.COALESCE)
+// 트랜잭션을 열기 전에 묶어야 기다리는 요청이 DB 연결을 잡지 않는다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class DebitCoalescingAspect {
+
+    // TransactionService 는 이 aspect 가 감싸는 bean 이라 호출할 때 꺼낸다.
+    private final ObjectProvider<TransactionService> transactionService;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final Map<String, Batch> open = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSize;
+
+    public DebitCoalescingAspect(ObjectProvider<TransactionService> transactionService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${account.coalesce.window-ms:2}") long windowMillis,
+                                 @Value("${account.coalesce.max-batch-size:100}") int maxBatchSize) {
+        this.transactionService = transactionService;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = DistributionSummary.builder("account.coalesce.batch.size")
+                .description("한 번에 처리한 잔액 사용 요청 수")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(* com.zerobase.account.service.TransactionService.useBalance(..)) "
+            + "&& args(userId, accountNumber, amount)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               Long userId,
+                               String accountNumber,
+                               Long amount) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        Pending pending = new Pending(new UseBalance.Request(userId, accountNumber, amount));
+        while (true) {
+            Batch batch = open.computeIfAbsent(accountNumber, Batch::new);
+            int position = batch.add(pending, maxBatchSize);
+            if (position < 0 || position == maxBatchSize - 1) {
+                // 가득 찼으면 다음 요청은 새 묶음으로 간다.
+                open.remove(accountNumber, batch);
+            }
+            if (position == 0) {
+                lead(batch);
+            }
+            if (position >= 0) {
+                return await(pending.result);
+            }
+        }
+    }
+
+    private void lead(Batch batch) {
+        List<Pending> pendings = batch.close(windowNanos, maxBatchSize);
+        open.remove(batch.accountNumber, batch);
+        batchSize.record(pendings.size());
+
+        UseBalanceBatch.AccountRequests accountRequests = new UseBalanceBatch.AccountRequests(batch.accountNumber);
+        for (int i = 0; i < pendings.size(); i++) {
+            accountRequests.add(i, pendings.get(i).request);
+        }
+
+        try {
+            List<TransactionDto> transactionDtos = transactionService.getObject()
+                    .useBalanceCoalesced(accountRequests);
+            for (int i = 0; i < pendings.size(); i++) {
+                TransactionDto transactionDto = transactionDtos.get(i);
+                if (transactionDto.getErrorCode() != null) {
+                    pendings.get(i).result.completeExceptionally(new AccountException(transactionDto.getErrorCode()));
+                } else {
+                    pendings.get(i).result.complete(transactionDto);
+                }
+            }
+        } catch (Throwable e) {
+            // lock 대기 시간 초과 등 묶음 전체가 실패한 경우
+            pendings.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private static Object await(CompletableFuture<TransactionDto> result) throws Throwable {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Pending {
+
+        private final UseBalance.Request request;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        Pending(UseBalance.Request request) {
+            this.request = request;
+        }
+    }
+
+    private static class Batch {
+
+        private final String accountNumber;
+        private final List<Pending> pendings = new ArrayList<>();
+        private boolean closed;
+
+        Batch(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        /**
+         * @return 묶음 안의 순서 (0 이면 leader), 닫혔거나 가득 찼으면 -1
+         */
+        synchronized int add(Pending pending, int maxBatchSize) {
+            if (closed || pendings.size() >= maxBatchSize) {
+                return -1;
+            }
+            pendings.add(pending);
+            if (pendings.size() == maxBatchSize) {
+                notifyAll();
+            }
+            return pendings.size() - 1;
+        }
+
+        // window 가 지나거나 가득 찰 때까지 기다렸다가 닫는다.
+        // 기다리다 interrupt 되어도 이미 들어온 요청은 처리해야 하므로 바로 닫는다.
+        synchronized List<Pending> close(long windowNanos, int maxBatchSize) {
+            long deadline = System.nanoTime() + windowNanos;
+            try {
+                long remaining;
+                while (pendings.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+            return pendings;
+        }
+    }
+}
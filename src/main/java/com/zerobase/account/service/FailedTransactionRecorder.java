@@ -0,0 +1,169 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.aop.AfterUnlock;
+import com.zerobase.account.dto.FailedTransaction;
+import com.zerobase.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용/취소 실패 기록을 계좌 lock 밖에서 모아서 저장한다.
+ * - 실패 요청은 메모리 버퍼에 넣고 바로 돌아오므로, 실패 기록 때문에 lock 을 더 오래 잡지 않는다.
+ * - 백그라운드 스레드 하나가 버퍼에서 최대 batchSize 건씩 꺼내 한 트랜잭션으로 저장한다.
+ * - 버퍼가 가득 차면 overflow 설정에 따라 처리한다.
+ *   sync : 요청 스레드에서 저장 (기본값, 기록을 잃지 않음). 계좌 lock 안이면 lock 을 푼 뒤에 저장한다. (AfterUnlock)
+ *   drop : 기록을 버리고 dropped 카운터만 올림 (과부하 시 DB 보호)
+ * - 저장에 실패한 묶음은 flushInterval 뒤에 다시 저장한다. 종료 중에는 한 번 더 실패하면 버린다.
+ * - 종료 시 버퍼에 남은 기록을 모두 저장한다. 프로세스가 비정상 종료되면 버퍼에 남은 기록은 유실된다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionRecorder {
+
+    private final TransactionService transactionService;
+    private final BlockingQueue<FailedTransaction> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final boolean dropOnOverflow;
+
+    private final Counter recorded;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter overflowed;
+    private final Counter writeFailed;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public FailedTransactionRecorder(TransactionService transactionService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${account.failure-recorder.capacity:10000}") int capacity,
+                                     @Value("${account.failure-recorder.batch-size:500}") int batchSize,
+                                     @Value("${account.failure-recorder.flush-interval-ms:100}") long flushIntervalMillis,
+                                     @Value("${account.failure-recorder.overflow:sync}") String overflow) {
+        this.transactionService = transactionService;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.dropOnOverflow = "drop".equalsIgnoreCase(overflow);
+
+        Gauge.builder("account.failure.buffer.size", buffer, BlockingQueue::size)
+                .description("저장을 기다리는 실패 기록 수")
+                .register(meterRegistry);
+        this.recorded = meterRegistry.counter("account.failure.recorded");
+        this.written = meterRegistry.counter("account.failure.written");
+        this.dropped = meterRegistry.counter("account.failure.dropped");
+        this.overflowed = meterRegistry.counter("account.failure.overflow");
+        this.writeFailed = meterRegistry.counter("account.failure.write.error");
+        this.flushTimer = meterRegistry.timer("account.failure.flush");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "failed-transaction-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // 저장 중인 writer 를 interrupt 하지 않는다. poll 이 flushInterval 안에 돌아오고 남은 기록을 저장한 뒤 끝난다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = FailedTransaction.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .failedAt(LocalDateTime.now())
+                .build();
+        recorded.increment();
+
+        if (buffer.offer(failedTransaction)) {
+            return;
+        }
+
+        overflowed.increment();
+        if (dropOnOverflow) {
+            dropped.increment();
+            log.warn("Failed transaction buffer is full. dropped : {}", accountNumber);
+            return;
+        }
+        AfterUnlock.run(() -> write(Collections.singletonList(failedTransaction)));
+    }
+
+    int pending() {
+        return buffer.size();
+    }
+
+    private void writeLoop() {
+        List<FailedTransaction> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty() || !batch.isEmpty()) {
+            if (batch.isEmpty()) {
+                try {
+                    FailedTransaction first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                buffer.drainTo(batch, batchSize - 1);
+            }
+            if (write(batch)) {
+                batch = new ArrayList<>();
+                continue;
+            }
+            if (!running) {
+                log.error("Gave up writing {} failed transactions on shutdown.", batch.size());
+                batch = new ArrayList<>();
+                continue;
+            }
+            // 같은 묶음을 다시 저장한다.
+            sleepQuietly();
+        }
+    }
+
+    private boolean write(List<FailedTransaction> failedTransactions) {
+        long begin = System.nanoTime();
+        try {
+            written.increment(transactionService.saveFailedTransactions(failedTransactions));
+            return true;
+        } catch (RuntimeException e) {
+            writeFailed.increment(failedTransactions.size());
+            log.error("Failed to write {} failed transactions.", failedTransactions.size(), e);
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(flushIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
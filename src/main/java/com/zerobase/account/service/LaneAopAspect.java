@@ -0,0 +1,57 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.aop.AccountLock;
+import com.zerobase.account.aop.AccountLockIdInterface;
+import com.zerobase.account.config.ConditionalOnTransactionMode;
+import com.zerobase.account.lane.AccountLaneExecutor;
+import com.zerobase.account.type.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * account.transaction.mode=lane 일 때 잔액을 바꾸는 서비스 호출을 lock 대신 계좌별 lane 에서 실행한다.
+ * - 컨트롤러 본문(요청 검증, 대기, 실패 기록)은 요청 스레드에서 실행하고, lane 에는 서비스 호출만 넣는다.
+ * - useBalance / cancelBalance 는 account.lane.max-wait-ms, @AccountLock 이 붙은 서비스 메서드는 tryLockTime 만큼 대기열에서 기다린다.
+ */
+@Aspect
+@Component
+@Slf4j
+@ConditionalOnTransactionMode(TransactionMode.LANE)
+// 트랜잭션이 lane 스레드에서 시작되도록 트랜잭션 advisor(LOWEST_PRECEDENCE)보다 바깥에서 실행한다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class LaneAopAspect {
+
+    private final AccountLaneExecutor accountLaneExecutor;
+    private final long maxWaitMillis;
+
+    public LaneAopAspect(AccountLaneExecutor accountLaneExecutor,
+                         @Value("${account.lane.max-wait-ms:5000}") long maxWaitMillis) {
+        this.accountLaneExecutor = accountLaneExecutor;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    // 두 메서드 모두 두 번째 인자가 계좌번호다.
+    @Around("(execution(* com.zerobase.account.service.TransactionService.useBalance(..)) "
+            + "|| execution(* com.zerobase.account.service.TransactionService.cancelBalance(..))) "
+            + "&& args(*, accountNumber, *)")
+    public Object aroundBalanceChange(ProceedingJoinPoint pjp, String accountNumber) throws Throwable {
+
+        return accountLaneExecutor.execute(accountNumber, maxWaitMillis, pjp::proceed);
+    }
+
+    @Around("@annotation(accountLock) && args(request) && within(com.zerobase.account.service..*)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               AccountLock accountLock,
+                               AccountLockIdInterface request) throws Throwable {
+
+        // lane 대기열에서 기다릴 수 있는 시간은 lock 대기 시간과 같게 둔다.
+        return accountLaneExecutor.execute(request.getAccountNumber(),
+                accountLock.tryLockTime(), pjp::proceed);
+    }
+}
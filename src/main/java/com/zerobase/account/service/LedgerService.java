@@ -0,0 +1,99 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.domain.LedgerEntry;
+import com.zerobase.account.dto.LedgerBalance;
+import com.zerobase.account.dto.LedgerPending;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.LedgerEntryRepository;
+import com.zerobase.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 원장 모드(account.transaction.mode=ledger)의 잔액 읽기/기록
+ * - 잔액을 바꿀 때 계좌 행을 UPDATE 하지 않고 LedgerEntry 만 INSERT 한다.
+ * - 읽은 잔액의 다음 순번으로 기록하므로, 같은 잔액을 보고 먼저 기록한 요청이 있으면
+ *   유니크 인덱스 위반을 version 충돌(ObjectOptimisticLockingFailureException)로 바꿔서 던진다.
+ *   OptimisticRetryAspect 가 새 트랜잭션에서 잔액을 다시 읽어 재시도한다.
+ * - 기록은 지우지 않으므로 과거 시점의 잔액도 계산할 수 있다.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    public Optional<LedgerBalance> getBalance(String accountNumber) {
+        return ledgerEntryRepository.findBalanceByAccountNumber(accountNumber);
+    }
+
+    public Optional<LedgerBalance> getBalance(Long accountId) {
+        return ledgerEntryRepository.findBalanceByAccountId(accountId);
+    }
+
+    /**
+     * balance 다음 순번으로 amount 를 기록하고 바로 flush 한다.
+     */
+    public LedgerBalance append(LedgerBalance balance, Long amount, String transactionId) {
+        LedgerBalance appended = add(balance, amount, transactionId);
+        flush(balance.getAccountId());
+        return appended;
+    }
+
+    /**
+     * flush 하지 않고 기록한다. 여러 건을 이어서 기록한 뒤 flush 를 한 번 부른다.
+     */
+    public LedgerBalance add(LedgerBalance balance, Long amount, String transactionId) {
+        LedgerBalance appended = balance.append(amount);
+        ledgerEntryRepository.save(LedgerEntry.builder()
+                .accountId(balance.getAccountId())
+                .sequence(appended.getSequence())
+                .amount(amount)
+                .transactionId(transactionId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        return appended;
+    }
+
+    public void flush(Long accountId) {
+        try {
+            ledgerEntryRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new ObjectOptimisticLockingFailureException(LedgerEntry.class, accountId);
+        }
+    }
+
+    /**
+     * 사용자 계좌별로 스냅샷에 아직 반영하지 않은 변경 합. 변경이 없는 계좌는 빠진다.
+     */
+    public Map<Long, Long> getPendingAmounts(Long userId) {
+        return ledgerEntryRepository.findPendingByAccountUserId(userId).stream()
+                .collect(Collectors.toMap(LedgerPending::getAccountId, LedgerPending::getAmount));
+    }
+
+    /**
+     * 사용자 계좌별 마지막 원장 순번의 합. 원장 기록이 늘면 항상 커진다.
+     */
+    public long getLastSequenceSum(Long userId) {
+        return ledgerEntryRepository.findLastSequencesByAccountUserId(userId).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * at 시점의 잔액 = 현재 잔액 - at 이후 기록의 합
+     * 개설 잔액은 기록이 없으므로 at 은 계좌 개설 이후여야 한다. (AccountService 에서 확인)
+     */
+    public Long getBalanceAt(String accountNumber, LocalDateTime at) {
+        LedgerBalance balance = getBalance(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        return balance.getBalance() - ledgerEntryRepository.sumAmountAfter(balance.getAccountId(), at);
+    }
+}
@@ -0,0 +1,127 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.config.ConditionalOnTransactionMode;
+import com.zerobase.account.dto.LedgerPending;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.LedgerEntryRepository;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 원장 모드에서 쌓인 LedgerEntry 를 계좌 행의 잔액 스냅샷(Account.balance, ledgerSequence)으로 옮긴다.
+ * - 잔액을 읽을 때 더해야 하는 기록 수를 줄이기 위한 것이라 요청 처리와 따로 백그라운드 스레드에서 실행한다.
+ * - 스냅샷할 때 LedgerEntry 는 지우지 않는다. (과거 시점 잔액 계산용)
+ * - ledgerSequence 가 읽은 값과 같을 때만 옮기므로 여러 서버에서 동시에 실행해도 한 번만 반영된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnTransactionMode(TransactionMode.LEDGER)
+public class LedgerSnapshotter {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long intervalMillis;
+    private final long minEntries;
+    private final int maxAccounts;
+
+    private final Counter snapshots;
+    private final Counter compactedEntries;
+    private final Timer snapshotTimer;
+
+    private volatile boolean running;
+    private Thread snapshotter;
+
+    public LedgerSnapshotter(LedgerEntryRepository ledgerEntryRepository,
+                             AccountRepository accountRepository,
+                             AccountCache accountCache,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${account.ledger.snapshot-interval-ms:1000}") long intervalMillis,
+                             @Value("${account.ledger.min-entries:100}") long minEntries,
+                             @Value("${account.ledger.max-accounts:100}") int maxAccounts) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
+        this.transactionTemplate = transactionTemplate;
+        this.intervalMillis = intervalMillis;
+        this.minEntries = minEntries;
+        this.maxAccounts = maxAccounts;
+
+        this.snapshots = meterRegistry.counter("account.ledger.snapshots");
+        this.compactedEntries = meterRegistry.counter("account.ledger.compacted.entries");
+        this.snapshotTimer = meterRegistry.timer("account.ledger.snapshot");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        snapshotter = new Thread(this::snapshotLoop, "ledger-snapshotter");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        snapshotter.interrupt();
+        snapshotter.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void snapshotLoop() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+                snapshotTimer.record(() -> {
+                    snapshot();
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 옮기지 못한 기록은 다음 주기에 다시 옮긴다. 잔액은 기록을 더해서 읽으므로 틀리지 않는다.
+                log.warn("Failed to snapshot ledger", e);
+            }
+        }
+    }
+
+    /**
+     * 기록이 minEntries 건 이상 쌓인 계좌를 많은 순으로 최대 maxAccounts 개 옮긴다.
+     *
+     * @return 스냅샷한 계좌 수
+     */
+    int snapshot() {
+        List<LedgerPending> pendings = ledgerEntryRepository.findPendingSnapshots(
+                minEntries, PageRequest.of(0, maxAccounts));
+
+        int snapshotted = 0;
+        for (LedgerPending pending : pendings) {
+            Integer updated = transactionTemplate.execute(status -> accountRepository.snapshotLedger(
+                    pending.getAccountId(), pending.getFromSequence(), pending.getToSequence(),
+                    pending.getAmount(), LocalDateTime.now()));
+            if (updated != null && updated > 0) {
+                snapshotted++;
+                snapshots.increment();
+                compactedEntries.increment(pending.getEntries());
+                // 계좌 행의 version 이 바뀌었으므로 캐시 항목을 버린다.
+                accountCache.evictAfterCommit(pending.getAccountNumber());
+            }
+        }
+        return snapshotted;
+    }
+}
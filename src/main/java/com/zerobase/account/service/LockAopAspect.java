@@ -1,33 +1,68 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.aop.AccountLock;
+import com.zerobase.account.aop.AfterUnlock;
 import com.zerobase.account.aop.AccountLockIdInterface;
+import com.zerobase.account.config.ConditionalOnTransactionMode;
+import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.LockTimingPolicy;
+import com.zerobase.account.type.TransactionMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnTransactionMode({TransactionMode.LOCK, TransactionMode.COALESCE})
+// @Transactional 메서드에 붙은 경우에도 commit 이 끝난 뒤에 lock 을 풀도록 트랜잭션 advisor(LOWEST_PRECEDENCE)보다 바깥에서 실행한다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
 public class LockAopAspect {
 
-    private final LockService lockService;
+    private final AccountLockProvider lockProvider;
+    private final LockTimingPolicy lockTimingPolicy;
+
+    // coalesce 모드의 단건 잔액 사용은 DebitCoalescingAspect 가 묶음마다 lock 을 잡는다.
+    private final TransactionMode transactionMode;
 
     // 어떤 경우에 LockAopAspect 를 사용할 것인가?
-    @Around("@annotation(com.zerobase.account.aop.AccountLock) && args(request)")
-    public Object aroundMethod(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable {
+    @Around("@annotation(accountLock) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp,
+                               AccountLock accountLock,
+                               AccountLockIdInterface request) throws Throwable {
+
+        if (request instanceof UseBalance.Request && transactionMode == TransactionMode.COALESCE) {
+            return pjp.proceed();
+        }
+
+        // endpoint 별로 lock 대기/임대 시간을 정하고, 실제로 lock 을 잡고 있던 시간을 다시 기록한다.
+        String endpoint = pjp.getSignature().toShortString();
 
         // lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+        lockProvider.lock(request.getAccountNumber(), lockTimingPolicy.timingFor(endpoint, accountLock));
+        long lockedAt = System.nanoTime();
+        boolean outermost = AfterUnlock.open();
 
         try {
             return pjp.proceed();
         } finally {
-            // lock 해치
-            lockService.unlock(request.getAccountNumber());
+            lockTimingPolicy.record(endpoint, System.nanoTime() - lockedAt);
+            try {
+                // lock 해치
+                lockProvider.unlock(request.getAccountNumber());
+            } finally {
+                // lock 안에서 미룬 일 (동기 실패 기록 등)
+                if (outermost) {
+                    AfterUnlock.runPending();
+                }
+            }
         }
     }
 
@@ -0,0 +1,106 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.config.ConditionalOnTransactionMode;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * account.transaction.mode=optimistic, ledger 또는 split 일 때 잔액을 바꾸는 TransactionService 메서드를 lock 없이 실행하고,
+ * Account version 충돌(OptimisticLockingFailureException)이 나면 그 트랜잭션만 처음부터 다시 실행한다.
+ * - 컨트롤러가 아니라 서비스 호출을 감싸므로, 재시도가 끝나고 난 실패도 컨트롤러에서 FAIL 거래로 기록된다.
+ * - 이미 트랜잭션 안에서 부르면 바깥 트랜잭션이 충돌을 받아야 하므로 다시 실행하지 않는다.
+ * - 재시도 간격은 base * 2^n 을 상한으로 한 무작위 값(full jitter)이다.
+ * - maxRetries 번 다시 시도해도 충돌하면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다.
+ * - 충돌률(conflicts / attempts)이 높아지면 lock 방식으로 되돌리는 것이 낫다.
+ * - ledger 모드에서는 같은 원장 순번을 먼저 기록한 요청이 있을 때 충돌한다. (LedgerService)
+ * - split 모드에서는 고른 슬롯을 다른 요청이 먼저 비웠을 때 충돌한다. (SplitBalanceService)
+ */
+@Aspect
+@Component
+@Slf4j
+@ConditionalOnTransactionMode({TransactionMode.OPTIMISTIC, TransactionMode.LEDGER, TransactionMode.SPLIT})
+// 재시도마다 새 트랜잭션으로 실행해야 하므로 트랜잭션 advisor(LOWEST_PRECEDENCE)보다 바깥에서 실행한다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Counter attempts;
+    private final Counter conflicts;
+    private final Counter exhausted;
+    private final DistributionSummary retries;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${account.optimistic.max-retries:3}") int maxRetries,
+                                 @Value("${account.optimistic.base-backoff-ms:10}") long baseBackoffMillis,
+                                 @Value("${account.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.attempts = meterRegistry.counter("account.optimistic.attempts");
+        this.conflicts = meterRegistry.counter("account.optimistic.conflicts");
+        this.exhausted = meterRegistry.counter("account.optimistic.exhausted");
+        this.retries = DistributionSummary.builder("account.optimistic.retries")
+                .description("요청 하나가 다시 시도한 횟수")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(* com.zerobase.account.service.TransactionService.useBalance(..)) "
+            + "|| execution(* com.zerobase.account.service.TransactionService.useBalanceBatch(..)) "
+            + "|| execution(* com.zerobase.account.service.TransactionService.cancelBalance(..))")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        for (int retry = 0; ; retry++) {
+            attempts.increment();
+            try {
+                Object result = pjp.proceed();
+                retries.record(retry);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (retry >= maxRetries) {
+                    retries.record(retry);
+                    exhausted.increment();
+                    log.error("============== Optimistic lock retries exhausted ===============");
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                backoff(retry);
+            }
+        }
+    }
+
+    private void backoff(int retry) {
+        long bound = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(retry, 20));
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.zerobase.account.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * @SingleFlight 메서드를 (메서드, 인자)별로 한 번만 실행한다. (서버 안에서만)
+ * - 먼저 온 요청(leader)이 실행하는 동안 같은 요청(follower)은 기다렸다가 같은 결과를 받는다.
+ * - 실행이 끝나면 바로 지우므로 결과를 캐시하지 않는다. 다음 요청은 다시 조회한다.
+ * - follower 는 자기가 오기 전에 시작한 조회 결과를 받을 수 있다. (조회 한 번 걸리는 시간만큼)
+ * - 이미 트랜잭션 안에서 부르면 그 트랜잭션에서 보이는 값이어야 하므로 묶지 않는다.
+ * 묶인 비율은 single.flight.coalescing.ratio{method} (follower / 전체 요청)로 내보낸다.
+ */
+@Aspect
+@Component
+// 트랜잭션을 열기 전에 묶어야 follower 가 DB 연결을 잡지 않는다.
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class SingleFlightAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Method, Stats> stats = new ConcurrentHashMap<>();
+
+    public SingleFlightAspect(MeterRegistry meterRegistry,
+                              @Value("${account.single-flight.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Around("@annotation(com.zerobase.account.aop.SingleFlight)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Stats methodStats = stats.computeIfAbsent(method, Stats::new);
+
+        List<Object> key = new ArrayList<>();
+        key.add(method);
+        key.addAll(Arrays.asList(pjp.getArgs()));
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            methodStats.followers.increment();
+            return await(running);
+        }
+
+        methodStats.leaders.increment();
+        try {
+            Object result = pjp.proceed();
+            inFlight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) throws Throwable {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class Stats {
+
+        private final Counter leaders;
+        private final Counter followers;
+
+        Stats(Method method) {
+            String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            this.leaders = meterRegistry.counter("single.flight.requests", "method", name, "role", "leader");
+            this.followers = meterRegistry.counter("single.flight.requests", "method", name, "role", "follower");
+            Gauge.builder("single.flight.coalescing.ratio", this, Stats::ratio)
+                    .tag("method", name)
+                    .register(meterRegistry);
+        }
+
+        private double ratio() {
+            double total = leaders.count() + followers.count();
+            return total == 0 ? 0 : followers.count() / total;
+        }
+    }
+}
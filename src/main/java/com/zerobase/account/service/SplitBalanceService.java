@@ -0,0 +1,178 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.domain.AccountSlot;
+import com.zerobase.account.dto.AccountSlotBalance;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.AccountSlotRepository;
+import com.zerobase.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 분할 잔액 모드(account.transaction.mode=split)의 잔액 읽기/변경. 요청이 몰리는 계좌를 위한 모드다.
+ * - 계좌 잔액을 slots 개의 AccountSlot 행에 나눠 두고, 사용은 잔액이 충분한 슬롯 하나를 무작위로 골라
+ *   그 행만 조건부 UPDATE 한다. 계좌 lock 을 잡지 않으므로 한 계좌의 사용도 슬롯 수만큼 동시에 처리된다.
+ * - 계좌를 만들 때 잔액을 슬롯에 나눠 담는다. 다른 모드에서 만든 계좌는 처음 사용할 때 나눈다.
+ * - 어느 슬롯 하나로도 안 되면 모든 슬롯 행을 잠그고 합계로 검증한 뒤 차감하고,
+ *   남은 잔액을 슬롯에 고르게 다시 나눈다. (rebalance) 그래서 AMOUNT_EXCEED_BALANCE 는 합계가 모자랄 때만 난다.
+ * - 고른 슬롯을 다른 요청이 먼저 비웠으면 version 충돌과 같은 예외를 던지고 OptimisticRetryAspect 가 다시 실행한다.
+ * - 취소는 무작위 슬롯 하나에 더한다. (나누지 않은 계좌면 계좌 잔액에)
+ * 계좌 캐시는 소유주/상태 검증에만 쓰므로 잔액이 바뀌어도 지우지 않는다.
+ * 호출하는 쪽의 트랜잭션에서 실행한다.
+ */
+@Service
+public class SplitBalanceService {
+
+    private final AccountSlotRepository accountSlotRepository;
+    private final AccountRepository accountRepository;
+    private final int slots;
+
+    private final Counter rebalances;
+    private final Counter conflicts;
+
+    public SplitBalanceService(AccountSlotRepository accountSlotRepository,
+                               AccountRepository accountRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${account.split.slots:8}") int slots) {
+        this.accountSlotRepository = accountSlotRepository;
+        this.accountRepository = accountRepository;
+        this.slots = slots;
+        this.rebalances = meterRegistry.counter("account.split.rebalances");
+        this.conflicts = meterRegistry.counter("account.split.conflicts");
+    }
+
+    /**
+     * @return 차감한 뒤의 계좌 잔액 (모든 슬롯의 합)
+     */
+    public Long use(Long accountId, Long amount) {
+        int slot = pickSlot(accountSlotRepository.findSlotBalances(accountId), amount);
+        if (slot < 0) {
+            return rebalance(accountId, amount);
+        }
+        if (accountSlotRepository.debit(accountId, slot, amount) == 0) {
+            // 읽은 뒤에 다른 요청이 먼저 차감했다. 이 슬롯의 lock 이 남아 있을 수 있으므로
+            // 다른 슬롯을 잠그지 않고 처음부터 다시 실행한다. (OptimisticRetryAspect)
+            conflicts.increment();
+            throw new ObjectOptimisticLockingFailureException(AccountSlot.class, accountId);
+        }
+        return getBalance(accountId);
+    }
+
+    // 잔액이 amount 이상인 슬롯을 무작위 위치부터 찾는다. 없으면 -1
+    private static int pickSlot(List<Long> balances, Long amount) {
+        if (balances.isEmpty()) {
+            return -1;
+        }
+        int start = ThreadLocalRandom.current().nextInt(balances.size());
+        for (int i = 0; i < balances.size(); i++) {
+            int slot = (start + i) % balances.size();
+            if (balances.get(slot) >= amount) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 더한 뒤의 계좌 잔액 (모든 슬롯의 합)
+     */
+    public Long cancel(Long accountId, Long amount) {
+        // 설정한 슬롯 수가 나눈 뒤에 늘었으면 없는 슬롯일 수 있다.
+        if (accountSlotRepository.credit(accountId, ThreadLocalRandom.current().nextInt(slots), amount) == 0
+                && accountSlotRepository.credit(accountId, 0, amount) == 0) {
+            accountRepository.credit(accountId, amount, LocalDateTime.now());
+        }
+        return getBalance(accountId);
+    }
+
+    public Long getBalance(Long accountId) {
+        return accountSlotRepository.findTotalBalance(accountId)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * 사용자 계좌별 슬롯 잔액 합. 나누지 않은 계좌는 빠진다.
+     */
+    public Map<Long, Long> getSlotBalances(Long userId) {
+        return accountSlotRepository.findBalancesByAccountUserId(userId).stream()
+                .collect(Collectors.toMap(AccountSlotBalance::getAccountId, AccountSlotBalance::getBalance));
+    }
+
+    /**
+     * 사용자 계좌의 슬롯 version 합. 슬롯 잔액이 바뀌면 항상 커진다.
+     */
+    public Long getSlotVersionSum(Long userId) {
+        return accountSlotRepository.sumVersionByAccountUserId(userId);
+    }
+
+    /**
+     * 새 계좌의 잔액을 슬롯에 나눠 담는다. 계좌 행의 balance 는 0 으로 저장해야 한다.
+     */
+    public void split(Long accountId, Long balance) {
+        List<AccountSlot> accountSlots = new ArrayList<>();
+        long share = balance / slots;
+        int remainder = (int) (balance % slots);
+        for (int slot = 0; slot < slots; slot++) {
+            accountSlots.add(AccountSlot.builder()
+                    .accountId(accountId)
+                    .slot(slot)
+                    .balance(slot < remainder ? share + 1 : share)
+                    .build());
+        }
+        accountSlotRepository.saveAll(accountSlots);
+    }
+
+    // 사용은 슬롯 -> 계좌(거래 INSERT 의 참조) 순서로 잠근다. 다시 나눌 때는 슬롯 행만 잠그고,
+    // 계좌 행은 아직 나누지 않은 계좌일 때만 잠근다.
+    private Long rebalance(Long accountId, Long amount) {
+        int lockedSlots = accountSlotRepository.lockSlots(accountId);
+        if (lockedSlots == 0) {
+            return splitUnsplit(accountId, amount);
+        }
+
+        long balance = getBalance(accountId) - amount;
+        if (balance < 0) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        rebalances.increment();
+
+        accountSlotRepository.distribute(accountId, balance / lockedSlots, (int) (balance % lockedSlots));
+        return balance;
+    }
+
+    /**
+     * 다른 모드에서 만든 계좌는 처음 사용할 때 계좌 잔액을 슬롯으로 옮긴다.
+     */
+    private Long splitUnsplit(Long accountId, Long amount) {
+        LocalDateTime now = LocalDateTime.now();
+        if (accountRepository.lockInUse(accountId, now) == 0) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        if (accountSlotRepository.existsByAccountId(accountId)) {
+            // 계좌 행을 기다리는 동안 다른 요청이 먼저 나눴다. 계좌 행을 쥔 채로 슬롯을 잠그지 않는다.
+            conflicts.increment();
+            throw new ObjectOptimisticLockingFailureException(AccountSlot.class, accountId);
+        }
+
+        long balance = getBalance(accountId) - amount;
+        if (balance < 0) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        rebalances.increment();
+
+        split(accountId, balance);
+        accountRepository.clearBalance(accountId, now);
+        return balance;
+    }
+}
@@ -1,25 +1,55 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.aop.AccountLock;
+import com.zerobase.account.aop.SingleFlight;
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.cache.NegativeCache;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.domain.AccountUser;
 import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.dto.AccountBalance;
+import com.zerobase.account.dto.FailedTransaction;
+import com.zerobase.account.dto.LedgerBalance;
 import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.TransactionHistory;
+import com.zerobase.account.dto.TransactionSummary;
+import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
+import com.zerobase.account.engine.BalanceEngine;
+import com.zerobase.account.engine.JournalRecord;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.id.TransactionIdGenerator;
 import com.zerobase.account.repository.AccountRepository;
 import com.zerobase.account.repository.AccountUserRepository;
 import com.zerobase.account.repository.TransactionRepository;
 import com.zerobase.account.type.AccountStatus;
 import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionMode;
 import com.zerobase.account.type.TransactionResultType;
 import com.zerobase.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,26 +59,413 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountCache accountCache;
+    private final TransactionIdFilter transactionIdFilter;
+    private final NegativeCache<Long> missingAccountUserCache;
+    private final LedgerService ledgerService;
+    // memory 모드에서만 있다. (BalanceEngineConfig)
+    private final ObjectProvider<BalanceEngine> balanceEngine;
+    private final SplitBalanceService splitBalanceService;
+    // atomic, ledger, memory, split 은 여기서 나눈다.
+    // coalesce 면 lock 과 같고, 단건 잔액 사용은 DebitCoalescingAspect 가 묶어서 useBalanceCoalesced 로 넘긴다.
+    private final TransactionMode transactionMode;
+
+    private static final int MAX_HISTORY_SIZE = 100;
 
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
 
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+        if (transactionMode == TransactionMode.ATOMIC) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.LEDGER) {
+            return useBalanceOnLedger(userId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            return useBalanceInMemory(userId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return useBalanceSplit(userId, accountNumber, amount);
+        }
+
+        AccountSnapshot account = debitAccount(userId, accountNumber, amount);
+
+        return TransactionDto.fromEntity(transactionRepository.save(
+                buildTransaction(TransactionResultType.SUCCESS, TransactionType.USE, amount, account)),
+                accountNumber);
+    }
+
+    /**
+     * 캐시의 계좌 값으로 검증하고, version 이 같을 때만 잔액을 바꾼다. (계좌를 읽지 않고 UPDATE 한 번)
+     * - 캐시 값으로 검증이 실패하거나 UPDATE 가 0 건이면 DB 에서 다시 읽어서 한 번 더 시도한다.
+     * - 다시 읽은 값으로도 UPDATE 가 실패하면 엔티티 version 충돌과 같은 예외를 던진다.
+     * - 바뀐 값은 commit 뒤에 캐시에 넣는다.
+     */
+    private AccountSnapshot debitAccount(Long userId, String accountNumber, Long amount) {
+        AccountSnapshot account = getAccountOwnedBy(userId, accountNumber, accountCache::get);
+        if (account.getAccountStatus() == AccountStatus.IN_USE && account.getBalance() >= amount) {
+            AccountSnapshot used = updateBalance(account, account.getBalance() - amount);
+            if (used != null) {
+                return used;
+            }
+        }
+
+        account = getAccountOwnedBy(userId, accountNumber, accountCache::reload);
+
+        validateUseBalance(userId, account, amount);
+
+        AccountSnapshot used = updateBalance(account, account.getBalance() - amount);
+        if (used == null) {
+            throw new ObjectOptimisticLockingFailureException(Account.class, account.getId());
+        }
+        return used;
+    }
+
+    private AccountSnapshot updateBalance(AccountSnapshot account, Long balance) {
+        if (accountRepository.updateBalance(account.getId(), account.getVersion(),
+                balance, LocalDateTime.now()) == 0) {
+            return null;
+        }
+
+        AccountSnapshot updated = account.withBalance(balance);
+        accountCache.putAfterCommit(updated);
+        return updated;
+    }
+
+    /**
+     * 잔액 차감 조건(소유주, 사용 중, 잔액)을 UPDATE 의 WHERE 절로 검사한다.
+     * - 성공하면 UPDATE, 잔액 조회, 거래 저장만 실행한다. (사용자/계좌 엔티티를 읽지 않음)
+     * - 실패한 경우에만 사용자와 계좌를 읽어서 useBalance 와 같은 에러 코드를 돌려준다.
+     */
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+
+        if (accountRepository.debit(accountNumber, userId, amount, LocalDateTime.now()) == 0) {
+            AccountSnapshot account = getAccountOwnedBy(userId, accountNumber, accountCache::reload);
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+            validateUseBalance(userId, account, amount);
+
+            // UPDATE 이후에 다른 요청이 잔액을 바꾼 경우
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        // UPDATE 로 행 lock 을 잡고 있으므로 방금 변경한 잔액이 조회된다.
+        AccountBalance accountBalance = accountRepository.findBalanceByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateUseBalance(accountUser, account, amount);
+        Transaction transaction = transactionRepository.save(buildTransaction(
+                TransactionResultType.SUCCESS, TransactionType.USE, amount,
+                accountRepository.getReferenceById(accountBalance.getId()), accountBalance.getBalance()));
+
+        // 새 version 을 모르므로 캐시 항목은 버린다.
+        accountCache.evictAfterCommit(accountNumber);
+
+        // 계좌 프록시를 초기화하지 않도록 계좌번호는 요청 값을 사용한다.
+        return TransactionDto.fromEntity(transaction, accountNumber);
+    }
+
+    /**
+     * 원장 잔액(스냅샷 + 이후 기록)으로 검증하고 다음 순번으로 -amount 를 기록한다.
+     * 같은 잔액을 보고 먼저 기록한 요청이 있으면 LedgerService 가 version 충돌로 실패시킨다.
+     */
+    private TransactionDto useBalanceOnLedger(Long userId, String accountNumber, Long amount) {
+
+        Optional<LedgerBalance> ledgerBalance = ledgerService.getBalance(accountNumber);
+        AccountSnapshot account = getAccountOwnedBy(userId, accountNumber,
+                number -> ledgerBalance.map(LedgerBalance::toAccountSnapshot));
+
+        validateUseBalance(userId, account, amount);
+
+        LedgerBalance balance = ledgerBalance.get();
+        Transaction transaction = buildTransaction(TransactionResultType.SUCCESS, TransactionType.USE, amount,
+                balance.append(-amount).toAccountSnapshot());
+        ledgerService.append(balance, -amount, transaction.getTransactionId());
+
+        return TransactionDto.fromEntity(transactionRepository.save(transaction), accountNumber);
+    }
+
+    /**
+     * 메모리 잔액으로 검증하고 CAS 로 차감한다. 저널에 fsync 된 뒤에 돌아온다.
+     */
+    private TransactionDto useBalanceInMemory(Long userId, String accountNumber, Long amount) {
+
+        BalanceEngine engine = balanceEngine.getObject();
+        ErrorCode errorCode = engine.checkUse(userId, accountNumber, amount);
+        if (errorCode == ErrorCode.ACCOUNT_NOT_FOUND || errorCode == ErrorCode.USER_ACCOUNT_UN_MATCH) {
+            // 사용자가 없으면 USER_NOT_FOUND 가 먼저다.
+            getAccountOwnedBy(userId, accountNumber, engine::getAccount);
+        }
+        if (errorCode != null) {
+            throw new AccountException(errorCode);
+        }
+
+        return toTransactionDto(engine.use(accountNumber, amount));
+    }
+
+    /**
+     * 소유주와 상태만 캐시의 계좌 값으로 검증하고, 잔액은 슬롯에서 차감하면서 검증한다.
+     * 잔액 스냅샷은 차감한 뒤의 슬롯 잔액 합이다. (다른 슬롯의 동시 차감이 먼저 반영되어 있을 수 있다)
+     */
+    private TransactionDto useBalanceSplit(Long userId, String accountNumber, Long amount) {
+
+        AccountSnapshot account = getAccountOwnedBy(userId, accountNumber, accountCache::get);
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        Long balance = splitBalanceService.use(account.getId(), amount);
+
+        return TransactionDto.fromEntity(transactionRepository.save(
+                buildTransaction(TransactionResultType.SUCCESS, TransactionType.USE, amount,
+                        account.withBalance(balance))),
+                accountNumber);
+    }
+
+    private static TransactionDto toTransactionDto(JournalRecord record) {
+        return TransactionDto.builder()
+                .accountNumber(record.getAccountNumber())
+                .transactionType(record.getTransactionType())
+                .transactionResultType(TransactionResultType.SUCCESS)
+                .amount(record.getAmount())
+                .balanceSnapshot(record.getBalanceSnapshot())
+                .transactionId(record.getTransactionId())
+                .transactedAt(record.getTransactedAt())
+                .build();
+    }
+
+    /**
+     * 계좌 한 번만 조회해서 소유주를 확인한다. (캐시에 있으면 조회하지 않음)
+     * - 소유주 id 는 계좌 행의 FK 값이라 사용자 행을 읽지 않고 비교할 수 있다.
+     * - 계좌가 없거나 소유주가 다를 때만 사용자 존재 여부를 조회해서 기존과 같은 순서로 에러 코드를 정한다.
+     */
+    private AccountSnapshot getAccountOwnedBy(Long userId, String accountNumber,
+                                              Function<String, Optional<AccountSnapshot>> accountLoader) {
+        AccountSnapshot account = accountLoader.apply(accountNumber).orElse(null);
+        if (account != null && Objects.equals(account.getOwnerId(), userId)) {
+            return account;
+        }
+
+        if (!accountUserExists(userId)) {
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        if (account == null) {
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+    }
+
+    private boolean accountUserExists(Long userId) {
+        if (missingAccountUserCache.isMissing(userId)) {
+            return false;
+        }
+        if (accountUserRepository.existsById(userId)) {
+            return true;
+        }
+        missingAccountUserCache.markMissing(userId);
+        return false;
+    }
+
+    /**
+     * 한 계좌에 대한 여러 건의 잔액 사용을 lock 한 번, 트랜잭션 한 번으로 처리한다.
+     * - 건별 검증/결과는 useBalance 와 같고, 실패한 건은 FAIL 거래로 기록한 뒤 다음 건을 계속 처리한다.
+     * - 계좌가 없으면 기록할 거래가 없으므로 건마다 USER_NOT_FOUND / ACCOUNT_NOT_FOUND 만 돌려준다.
+     * - 거래 기록은 모아서 한 번에 저장한다. (hibernate.jdbc.batch_size)
+     * - ledger 모드에서는 원장 잔액으로 검증하고, 성공한 건을 이어지는 순번으로 기록한 뒤 한 번에 flush 한다.
+     */
+    @AccountLock
+    @Transactional
+    public List<TransactionDto> useBalanceBatch(UseBalanceBatch.AccountRequests accountRequests) {
+
+        if (transactionMode == TransactionMode.MEMORY) {
+            return useBalanceBatchInMemory(accountRequests);
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return useBalanceBatchSplit(accountRequests);
+        }
+
+        return useBalanceBatch(accountRequests, true);
+    }
 
-        account.useBalance(amount);
+    /**
+     * 한 계좌에 동시에 들어온 단건 잔액 사용을 묶어서 처리한다. (coalesce 모드, DebitCoalescingAspect)
+     * - useBalanceBatch 와 같이 계좌 UPDATE 한 번과 거래 INSERT 한 묶음으로 끝낸다.
+     * - 실패한 건은 거래로 기록하지 않고 에러 코드만 돌려준다. (단건 요청이므로 컨트롤러가 실패를 기록한다)
+     * - 계좌가 없으면 건마다 useBalance 와 같은 순서로 USER_NOT_FOUND / ACCOUNT_NOT_FOUND 를 정한다.
+     */
+    @AccountLock
+    @Transactional
+    public List<TransactionDto> useBalanceCoalesced(UseBalanceBatch.AccountRequests accountRequests) {
 
-        return TransactionDto.fromEntity(saveAndGetTransaction(TransactionResultType.SUCCESS, TransactionType.USE, amount, account));
+        return useBalanceBatch(accountRequests, false);
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
+    private List<TransactionDto> useBalanceBatch(UseBalanceBatch.AccountRequests accountRequests,
+                                                 boolean recordFailures) {
+
+        // atomic 모드에서는 계좌 lock 이 없으므로 묶음을 처리하는 동안 계좌 행을 잠근다.
+        Optional<Account> foundAccount = transactionMode == TransactionMode.ATOMIC
+                ? accountRepository.findForUpdateByAccountNumber(accountRequests.getAccountNumber())
+                : accountRepository.findByAccountNumber(accountRequests.getAccountNumber());
+        if (foundAccount.isEmpty()) {
+            return accountNotFound(accountRequests);
+        }
+        Account account = foundAccount.get();
+        LedgerBalance ledgerBalance = transactionMode == TransactionMode.LEDGER
+                ? ledgerService.getBalance(account.getId())
+                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND))
+                : null;
+
+        // 소유주가 아닌 요청이 있을 때만 그 사용자들이 있는지 한 번에 조회한다.
+        Long ownerId = account.getAccountUser().getId();
+        Set<Long> otherUserIds = accountRequests.getRequests().stream()
+                .map(UseBalance.Request::getUserId)
+                .filter(userId -> !Objects.equals(userId, ownerId))
+                .collect(Collectors.toSet());
+        Set<Long> existingOtherUserIds = otherUserIds.isEmpty()
+                ? Collections.emptySet()
+                : accountUserRepository.findAllById(otherUserIds).stream()
+                        .map(AccountUser::getId)
+                        .collect(Collectors.toSet());
+
+        List<Transaction> transactions = new ArrayList<>();
+        List<ErrorCode> errorCodes = new ArrayList<>();
+        for (UseBalance.Request request : accountRequests.getRequests()) {
+            try {
+                if (!Objects.equals(request.getUserId(), ownerId)
+                        && !existingOtherUserIds.contains(request.getUserId())) {
+                    throw new AccountException(ErrorCode.USER_NOT_FOUND);
+                }
+
+                if (ledgerBalance != null) {
+                    validateUseBalance(request.getUserId(), ledgerBalance.toAccountSnapshot(), request.getAmount());
+
+                    Transaction transaction = buildTransaction(TransactionResultType.SUCCESS, TransactionType.USE,
+                            request.getAmount(), account, ledgerBalance.getBalance() - request.getAmount());
+                    ledgerBalance = ledgerService.add(ledgerBalance, -request.getAmount(),
+                            transaction.getTransactionId());
+                    transactions.add(transaction);
+                } else {
+                    validateUseBalance(request.getUserId(), account, request.getAmount());
+
+                    account.useBalance(request.getAmount());
+
+                    transactions.add(buildTransaction(TransactionResultType.SUCCESS, TransactionType.USE,
+                            request.getAmount(), account));
+                }
+                errorCodes.add(null);
+            } catch (AccountException e) {
+                // 기록하지 않는 실패는 자리만 비워 둔다.
+                transactions.add(recordFailures
+                        ? buildTransaction(TransactionResultType.FAIL, TransactionType.USE,
+                                request.getAmount(), account,
+                                ledgerBalance != null ? ledgerBalance.getBalance() : account.getBalance())
+                        : null);
+                errorCodes.add(e.getErrorCode());
+            }
+        }
+
+        if (ledgerBalance != null) {
+            ledgerService.flush(account.getId());
+        }
+
+        List<Transaction> saved = transactionRepository.saveAll(transactions.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+
+        List<TransactionDto> transactionDtos = new ArrayList<>();
+        int savedIndex = 0;
+        for (int i = 0; i < transactions.size(); i++) {
+            transactionDtos.add(transactions.get(i) == null
+                    ? failedUse(accountRequests.getRequests().get(i), errorCodes.get(i))
+                    : TransactionDto.fromEntity(saved.get(savedIndex++), errorCodes.get(i)));
+        }
+        return transactionDtos;
+    }
+
+    // 계좌가 없으면 건마다 useBalance 와 같은 순서로 USER_NOT_FOUND / ACCOUNT_NOT_FOUND 를 정한다. (기록할 계좌가 없음)
+    private List<TransactionDto> accountNotFound(UseBalanceBatch.AccountRequests accountRequests) {
+        return accountRequests.getRequests().stream()
+                .map(request -> failedUse(request, accountUserExists(request.getUserId())
+                        ? ErrorCode.ACCOUNT_NOT_FOUND
+                        : ErrorCode.USER_NOT_FOUND))
+                .collect(Collectors.toList());
+    }
 
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+    private static TransactionDto failedUse(UseBalance.Request request, ErrorCode errorCode) {
+        return TransactionDto.builder()
+                .accountNumber(request.getAccountNumber())
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.FAIL)
+                .amount(request.getAmount())
+                .errorCode(errorCode)
+                .build();
+    }
+
+    /**
+     * 건별로 메모리 잔액 엔진에서 처리한다. 실패한 건만 FAIL 거래로 바로 저장한다.
+     */
+    private List<TransactionDto> useBalanceBatchInMemory(UseBalanceBatch.AccountRequests accountRequests) {
+
+        String accountNumber = accountRequests.getAccountNumber();
+        if (balanceEngine.getObject().getAccount(accountNumber).isEmpty()) {
+            return accountNotFound(accountRequests);
+        }
+
+        List<TransactionDto> transactionDtos = new ArrayList<>();
+        List<Transaction> failedTransactions = new ArrayList<>();
+        for (UseBalance.Request request : accountRequests.getRequests()) {
+            try {
+                transactionDtos.add(useBalanceInMemory(request.getUserId(), accountNumber, request.getAmount()));
+            } catch (AccountException e) {
+                Transaction transaction = buildTransaction(TransactionResultType.FAIL, TransactionType.USE,
+                        request.getAmount(), balanceEngine.getObject().getAccount(accountNumber).get());
+                failedTransactions.add(transaction);
+
+                TransactionDto transactionDto = TransactionDto.fromEntity(transaction, accountNumber);
+                transactionDto.setErrorCode(e.getErrorCode());
+                transactionDtos.add(transactionDto);
+            }
+        }
+
+        transactionRepository.saveAll(failedTransactions);
+        return transactionDtos;
+    }
+
+    /**
+     * 건별로 슬롯에서 차감한다. 실패한 건은 그 시점의 슬롯 잔액 합으로 FAIL 거래를 기록한다.
+     */
+    private List<TransactionDto> useBalanceBatchSplit(UseBalanceBatch.AccountRequests accountRequests) {
+
+        String accountNumber = accountRequests.getAccountNumber();
+        Optional<AccountSnapshot> foundAccount = accountCache.get(accountNumber);
+        if (foundAccount.isEmpty()) {
+            return accountNotFound(accountRequests);
+        }
+        AccountSnapshot account = foundAccount.get();
+
+        List<TransactionDto> transactionDtos = new ArrayList<>();
+        List<Transaction> failedTransactions = new ArrayList<>();
+        for (UseBalance.Request request : accountRequests.getRequests()) {
+            try {
+                transactionDtos.add(useBalanceSplit(request.getUserId(), accountNumber, request.getAmount()));
+            } catch (AccountException e) {
+                Transaction transaction = buildTransaction(TransactionResultType.FAIL, TransactionType.USE,
+                        request.getAmount(), account.withBalance(currentBalance(account)));
+                failedTransactions.add(transaction);
+
+                TransactionDto transactionDto = TransactionDto.fromEntity(transaction, accountNumber);
+                transactionDto.setErrorCode(e.getErrorCode());
+                transactionDtos.add(transactionDto);
+            }
+        }
+
+        transactionRepository.saveAll(failedTransactions);
+        return transactionDtos;
+    }
+
+    private void validateUseBalance(Long userId, AccountSnapshot account, Long amount) {
+
+        if (!Objects.equals(userId, account.getOwnerId())) {
             throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
         }
 
@@ -61,13 +478,70 @@ public class TransactionService {
         }
     }
 
+    private void validateUseBalance(Long userId, Account account, Long amount) {
+
+        if (!Objects.equals(userId, account.getAccountUser().getId())) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+        }
+
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        if (account.getBalance() < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    /**
+     * 모아 둔 실패 요청을 FAIL 거래로 한 번에 저장한다.
+     * - 계좌는 캐시에서 찾고, 캐시에 없는 계좌만 한 번의 조회로 가져온다. 없는 계좌의 실패 요청은 기록하지 않는다.
+     * - 잔액 스냅샷은 저장 시점의 현재 잔액이다. 계좌 행이 최신이 아닌 모드에서는 계좌마다 한 번 읽는다. (currentBalance)
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
+    public int saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+
+        Map<String, AccountSnapshot> accounts = accountCache.getAll(
+                failedTransactions.stream()
+                        .map(FailedTransaction::getAccountNumber)
+                        .collect(Collectors.toSet()));
+
+        Map<String, AccountSnapshot> currentAccounts = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            AccountSnapshot cached = accounts.get(failedTransaction.getAccountNumber());
+            if (cached == null) {
+                log.warn("Skip failed transaction of unknown account : {}", failedTransaction.getAccountNumber());
+                continue;
+            }
+            AccountSnapshot account = currentAccounts.computeIfAbsent(failedTransaction.getAccountNumber(),
+                    accountNumber -> cached.withBalance(currentBalance(cached)));
+
+            Transaction transaction = buildTransaction(TransactionResultType.FAIL,
+                    failedTransaction.getTransactionType(), failedTransaction.getAmount(), account);
+            transaction.setTransactedAt(failedTransaction.getFailedAt());
+            transactions.add(transaction);
+        }
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        transactionRepository.saveAll(transactions);
+        return transactions.size();
+    }
 
-        saveAndGetTransaction(TransactionResultType.FAIL, TransactionType.USE, amount, account);
+    // ledger 면 스냅샷 이후 원장 기록까지, memory 면 엔진 잔액까지, split 이면 슬롯 잔액까지 반영한 잔액
+    private Long currentBalance(AccountSnapshot account) {
+        if (transactionMode == TransactionMode.LEDGER) {
+            return ledgerService.getBalance(account.getId())
+                    .map(LedgerBalance::getBalance)
+                    .orElse(account.getBalance());
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            return balanceEngine.getObject().getBalance(account.getAccountNumber())
+                    .orElse(account.getBalance());
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return splitBalanceService.getBalance(account.getId());
+        }
+        return account.getBalance();
     }
 
     private Transaction saveAndGetTransaction(TransactionResultType transactionResultType,
@@ -75,26 +549,85 @@ public class TransactionService {
                                               Long amount,
                                               Account account) {
         return transactionRepository.save(
-                Transaction.builder()
-                        .transactionResultType(transactionResultType)
-                        .transactionType(transactionType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
+                buildTransaction(transactionResultType, transactionType, amount, account)
         );
     }
 
+    private Transaction buildTransaction(TransactionResultType transactionResultType,
+                                         TransactionType transactionType,
+                                         Long amount,
+                                         Account account) {
+        return buildTransaction(transactionResultType, transactionType, amount, account, account.getBalance());
+    }
+
+    // 캐시 값으로 기록할 때는 계좌를 읽지 않도록 프록시만 연결한다.
+    private Transaction buildTransaction(TransactionResultType transactionResultType,
+                                         TransactionType transactionType,
+                                         Long amount,
+                                         AccountSnapshot account) {
+        return buildTransaction(transactionResultType, transactionType, amount,
+                accountRepository.getReferenceById(account.getId()), account.getBalance());
+    }
+
+    private Transaction buildTransaction(TransactionResultType transactionResultType,
+                                         TransactionType transactionType,
+                                         Long amount,
+                                         Account account,
+                                         Long balanceSnapshot) {
+        String transactionId = transactionIdGenerator.nextId();
+        // 저장하기 전에 넣어야 다른 요청이 조회할 때 빠지지 않는다.
+        transactionIdFilter.add(transactionId);
+        return Transaction.builder()
+                .transactionResultType(transactionResultType)
+                .transactionType(transactionType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 발급한 적 없는 거래 ID 는 DB 를 조회하지 않고 TRANSACTION_NOT_FOUND 로 답한다.
+     * memory 모드에서는 아직 DB 에 저장하지 않은 거래를 먼저 찾는다.
+     */
+    private Transaction getTransaction(String transactionId) {
+        if (!transactionIdFilter.mightExist(transactionId)) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            Optional<Transaction> unpersisted = balanceEngine.getObject().findUnpersisted(transactionId);
+            if (unpersisted.isPresent()) {
+                return unpersisted.get();
+            }
+        }
+        return transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> {
+                    transactionIdFilter.recordNotFound(transactionId);
+                    return new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+                });
+    }
+
     @Transactional
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
 
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        if (transactionMode == TransactionMode.ATOMIC) {
+            return cancelBalanceAtomically(transactionId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.LEDGER) {
+            return cancelBalanceOnLedger(transactionId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            return cancelBalanceInMemory(transactionId, accountNumber, amount);
+        }
+        if (transactionMode == TransactionMode.SPLIT) {
+            return cancelBalanceSplit(transactionId, accountNumber, amount);
+        }
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Transaction transaction = getTransaction(transactionId);
+
+        Account account = getTransactionAccount(transaction, accountNumber);
 
         validateCancelBalance(transaction, account, amount);
 
@@ -105,6 +638,96 @@ public class TransactionService {
         );
     }
 
+    /**
+     * 거래에 딸린 계좌로 검증한 뒤 잔액을 UPDATE 한 번으로 되돌린다.
+     */
+    private TransactionDto cancelBalanceAtomically(String transactionId, String accountNumber, Long amount) {
+
+        Transaction transaction = getTransaction(transactionId);
+
+        Account account = getTransactionAccount(transaction, accountNumber);
+
+        validateCancelBalance(transaction, account, amount);
+
+        accountRepository.credit(account.getId(), amount, LocalDateTime.now());
+        accountCache.evictAfterCommit(account.getAccountNumber());
+
+        AccountBalance accountBalance = accountRepository.findBalanceById(account.getId())
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        // 영속성 컨텍스트의 계좌는 UPDATE 이전 값이므로 잔액을 바꾸지 않고 스냅샷만 새 잔액으로 저장한다.
+        Transaction cancelTransaction = buildTransaction(TransactionResultType.SUCCESS,
+                TransactionType.CANCEL, amount, account);
+        cancelTransaction.setBalanceSnapshot(accountBalance.getBalance());
+
+        return TransactionDto.fromEntity(transactionRepository.save(cancelTransaction));
+    }
+
+    /**
+     * 거래에 딸린 계좌로 검증한 뒤 원장 잔액의 다음 순번으로 +amount 를 기록한다. 계좌 엔티티는 바꾸지 않는다.
+     */
+    private TransactionDto cancelBalanceOnLedger(String transactionId, String accountNumber, Long amount) {
+
+        Transaction transaction = getTransaction(transactionId);
+
+        Account account = getTransactionAccount(transaction, accountNumber);
+
+        validateCancelBalance(transaction, account, amount);
+
+        LedgerBalance balance = ledgerService.getBalance(account.getId())
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        Transaction cancelTransaction = buildTransaction(TransactionResultType.SUCCESS,
+                TransactionType.CANCEL, amount, account, balance.getBalance() + amount);
+        ledgerService.append(balance, amount, cancelTransaction.getTransactionId());
+
+        return TransactionDto.fromEntity(transactionRepository.save(cancelTransaction));
+    }
+
+    /**
+     * 거래로 검증한 뒤 메모리 잔액에 amount 를 더한다.
+     */
+    private TransactionDto cancelBalanceInMemory(String transactionId, String accountNumber, Long amount) {
+
+        Transaction transaction = getTransaction(transactionId);
+
+        Account account = getTransactionAccount(transaction, accountNumber);
+
+        validateCancelBalance(transaction, account, amount);
+
+        return toTransactionDto(balanceEngine.getObject().cancel(accountNumber, amount));
+    }
+
+    /**
+     * 거래로 검증한 뒤 슬롯 하나에 amount 를 더한다. 계좌 엔티티는 바꾸지 않는다.
+     */
+    private TransactionDto cancelBalanceSplit(String transactionId, String accountNumber, Long amount) {
+
+        Transaction transaction = getTransaction(transactionId);
+
+        Account account = getTransactionAccount(transaction, accountNumber);
+
+        validateCancelBalance(transaction, account, amount);
+
+        Long balance = splitBalanceService.cancel(account.getId(), amount);
+
+        return TransactionDto.fromEntity(transactionRepository.save(buildTransaction(
+                TransactionResultType.SUCCESS, TransactionType.CANCEL, amount, account, balance)));
+    }
+
+    /**
+     * 거래와 함께 조회한 계좌를 그대로 쓴다. (findByTransactionId 가 account 를 fetch join)
+     * 요청한 계좌번호가 다를 때만 그 계좌가 있는지 조회해서 에러 코드를 정한다.
+     */
+    private Account getTransactionAccount(Transaction transaction, String accountNumber) {
+        Account account = transaction.getAccount();
+        if (!Objects.equals(account.getAccountNumber(), accountNumber)) {
+            throw new AccountException(accountRepository.existsByAccountNumber(accountNumber)
+                    ? ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH : ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return account;
+    }
+
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
 
         if(!Objects.equals(transaction.getAccount().getId(), account.getId())) {
@@ -121,22 +744,178 @@ public class TransactionService {
 
     }
 
+    /**
+     * 계좌의 거래 내역을 최신순으로 size 건씩 돌려준다.
+     * - 한 건을 더 읽어서 다음 페이지가 있는지 판단하고, 있으면 마지막 거래로 다음 커서를 만든다.
+     * - 계좌 id 는 캐시에서 찾고 내역 조회 1번만 실행한다. 거래 엔티티와 계좌는 읽지 않는다.
+     */
     @Transactional
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
+    public TransactionHistory.Response getTransactionHistory(String accountNumber,
+                                                             TransactionType transactionType,
+                                                             TransactionResultType transactionResultType,
+                                                             String cursor,
+                                                             int size) {
+
+        if (size < 1 || size > MAX_HISTORY_SIZE) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
 
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        AccountSnapshot account = accountCache.get(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        saveAndGetTransaction(TransactionResultType.FAIL, TransactionType.CANCEL, amount, account);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        TransactionHistory.Cursor after = cursor == null ? null : TransactionHistory.Cursor.decode(cursor);
+        List<TransactionSummary> summaries = findHistory(account.getId(),
+                transactionType, transactionResultType, after, pageable);
+        if (transactionMode == TransactionMode.MEMORY) {
+            summaries = withUnpersisted(summaries, account.getId(),
+                    transactionType, transactionResultType, after, size + 1);
+        }
+
+        boolean hasNext = summaries.size() > size;
+        List<TransactionSummary> page = hasNext ? summaries.subList(0, size) : summaries;
+
+        return TransactionHistory.Response.builder()
+                .accountNumber(accountNumber)
+                .transactions(page.stream()
+                        .map(TransactionHistory.Item::from)
+                        .collect(Collectors.toList()))
+                .nextCursor(hasNext
+                        ? TransactionHistory.Cursor.of(page.get(page.size() - 1)).encode()
+                        : null)
+                .build();
+    }
+
+    // 필터 조합마다 쿼리가 따로 있다. (TransactionRepository)
+    private List<TransactionSummary> findHistory(Long accountId,
+                                                 TransactionType transactionType,
+                                                 TransactionResultType transactionResultType,
+                                                 TransactionHistory.Cursor after,
+                                                 Pageable pageable) {
+        if (after == null) {
+            if (transactionType != null && transactionResultType != null) {
+                return transactionRepository.findHistoryByTypeAndResult(accountId,
+                        transactionType, transactionResultType, pageable);
+            }
+            if (transactionType != null) {
+                return transactionRepository.findHistoryByType(accountId, transactionType, pageable);
+            }
+            if (transactionResultType != null) {
+                return transactionRepository.findHistoryByResult(accountId, transactionResultType, pageable);
+            }
+            return transactionRepository.findHistory(accountId, pageable);
+        }
+
+        LocalDateTime cursorAt = after.getTransactedAt();
+        Long cursorId = after.getId();
+        if (transactionType != null && transactionResultType != null) {
+            return transactionRepository.findHistoryByTypeAndResultAfter(accountId, cursorAt, cursorId,
+                    transactionType, transactionResultType, pageable);
+        }
+        if (transactionType != null) {
+            return transactionRepository.findHistoryByTypeAfter(accountId, cursorAt, cursorId,
+                    transactionType, pageable);
+        }
+        if (transactionResultType != null) {
+            return transactionRepository.findHistoryByResultAfter(accountId, cursorAt, cursorId,
+                    transactionResultType, pageable);
+        }
+        return transactionRepository.findHistoryAfter(accountId, cursorAt, cursorId, pageable);
+    }
+
+    // memory 모드에서는 저널에만 있는 거래도 내역에 넣는다. (getTransaction 과 같음)
+    // 아직 id 가 없으므로 같은 시각의 DB 거래보다 최신으로 본다. 그 사이 저장된 거래는 DB 쪽을 뺀다.
+    private List<TransactionSummary> withUnpersisted(List<TransactionSummary> persisted, Long accountId,
+                                                     TransactionType transactionType,
+                                                     TransactionResultType transactionResultType,
+                                                     TransactionHistory.Cursor after, int limit) {
+        // 저널에는 성공한 거래만 있다.
+        if (transactionResultType == TransactionResultType.FAIL) {
+            return persisted;
+        }
+        List<TransactionSummary> merged = balanceEngine.getObject().findUnpersisted(accountId).stream()
+                .filter(record -> transactionType == null || record.getTransactionType() == transactionType)
+                .filter(record -> after == null || record.getTransactedAt().isBefore(after.getTransactedAt()))
+                .map(UnpersistedSummary::new)
+                .collect(Collectors.toList());
+        if (merged.isEmpty()) {
+            return persisted;
+        }
+        Set<String> unpersistedIds = merged.stream()
+                .map(TransactionSummary::getTransactionId)
+                .collect(Collectors.toSet());
+        persisted.stream()
+                .filter(summary -> !unpersistedIds.contains(summary.getTransactionId()))
+                .forEach(merged::add);
+        merged.sort(Comparator.comparing(TransactionSummary::getTransactedAt)
+                .thenComparing(TransactionSummary::getId)
+                .reversed());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
 
+    @RequiredArgsConstructor
+    private static class UnpersistedSummary implements TransactionSummary {
+
+        private final JournalRecord record;
+
+        // 같은 시각이면 DB 거래보다 최신으로 정렬되도록 가장 큰 값으로 둔다.
+        @Override
+        public Long getId() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String getTransactionId() {
+            return record.getTransactionId();
+        }
+
+        @Override
+        public TransactionType getTransactionType() {
+            return record.getTransactionType();
+        }
+
+        @Override
+        public TransactionResultType getTransactionResultType() {
+            return TransactionResultType.SUCCESS;
+        }
+
+        @Override
+        public Long getAmount() {
+            return record.getAmount();
+        }
+
+        @Override
+        public Long getBalanceSnapshot() {
+            return record.getBalanceSnapshot();
+        }
+
+        @Override
+        public LocalDateTime getTransactedAt() {
+            return record.getTransactedAt();
+        }
     }
 
+    /**
+     * 거래 조회의 ETag 를 만들 값. 거래가 없으면 empty
+     */
+    public Optional<LocalDateTime> getTransactionLastModified(String transactionId) {
+        if (!transactionIdFilter.mightExist(transactionId)) {
+            return Optional.empty();
+        }
+        if (transactionMode == TransactionMode.MEMORY) {
+            Optional<Transaction> unpersisted = balanceEngine.getObject().findUnpersisted(transactionId);
+            if (unpersisted.isPresent()) {
+                return Optional.of(unpersisted.get().getTransactedAt());
+            }
+        }
+        return transactionRepository.findUpdatedAtByTransactionId(transactionId);
+    }
+
+    // 결제 직후 같은 거래를 여러 번 조회하는 경우가 많아서 동시에 온 조회는 한 번만 실행한다.
+    @SingleFlight
     public TransactionDto queryTransaction(String transactionId) {
 
 
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND))
-        );
+        return TransactionDto.fromEntity(getTransaction(transactionId));
     }
 }
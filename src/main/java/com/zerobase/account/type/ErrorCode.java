@@ -11,12 +11,15 @@ public enum ErrorCode {
     USER_NOT_FOUND("사용자가 없습니다."),
     ACCOUNT_NOT_FOUND("계좌가 없습니다."),
     ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용 중입니다."),
+    ACCOUNT_LOCK_QUEUE_FULL("해당 계좌에 대기 중인 요청이 너무 많습니다."),
     TRANSACTION_NOT_FOUND("해당 거래가 없습니다."),
     TRANSACTION_ACCOUNT_UN_MATCH("이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
     AMOUNT_EXCEED_BALANCE("거래 금액이 잔액보다 큽니다."),
     TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소가 불가능합니다."),
     MAX_ACCOUNT_PER_USER_10("최대 개설 가능한 계좌는 10개 입니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("더 이상 발급할 수 있는 계좌번호가 없습니다."),
+    ACCOUNT_INDEX_FULL("메모리에 올릴 수 있는 계좌 수를 넘었습니다."),
     USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 다릅니다."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다.");
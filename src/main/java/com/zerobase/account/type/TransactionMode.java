@@ -0,0 +1,24 @@
+package com.zerobase.account.type;
+
+/**
+ * account.transaction.mode 로 잔액 변경 요청을 처리하는 방식을 고른다. (대소문자 구분 없음, 기본값 lock)
+ * 값은 TransactionModeConfig 가 기동할 때 한 번 읽고, 없는 값이면 기동하지 않는다.
+ */
+public enum TransactionMode {
+    // @AccountLock 으로 계좌 lock 을 잡고 요청 스레드에서 실행 (LockAopAspect)
+    LOCK,
+    // 계좌번호 해시로 정해진 단일 스레드 lane 에서 실행, lock 을 잡지 않는다. (AccountLaneConfig)
+    LANE,
+    // lock 없이 조건부 UPDATE 로 잔액을 변경한다. (TransactionService)
+    ATOMIC,
+    // lock 없이 실행하고 Account version 이 충돌하면 다시 실행한다. (OptimisticRetryAspect)
+    OPTIMISTIC,
+    // 잔액 변경을 원장 INSERT 로만 기록한다. (LedgerService)
+    LEDGER,
+    // 메모리 잔액을 CAS 로 바꾸고 저널에 기록한다. (BalanceEngineConfig)
+    MEMORY,
+    // lock 과 같지만 한 계좌에 동시에 들어온 잔액 사용을 묶어서 한 번에 처리한다. (DebitCoalescingAspect)
+    COALESCE,
+    // lock 없이 계좌 잔액을 나눠 담은 슬롯 하나에서 차감한다. (SplitBalanceService)
+    SPLIT
+}
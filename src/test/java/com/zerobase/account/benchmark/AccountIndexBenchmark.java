@@ -0,0 +1,174 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.domain.AccountUser;
+import com.zerobase.account.engine.AccountIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+
+/**
+ * 계좌 100만 개를 메모리에 올릴 때 AccountIndex(힙 밖, primitive 키)와
+ * HashMap<String, Account> 의 메모리 사용량, 잔액 검증 조회 처리량과 조회당 할당 바이트를 비교한다.
+ * - 조회할 계좌번호 String 도 무작위로 골라서 캐시 밖에 있다. index 는 String 을 읽어 키로 바꾸는 비용까지,
+ *   index-key 는 이미 바꾼 키로 찾는 비용만 잰다.
+ * - 힙은 GC 뒤 사용량의 차이, 힙 밖은 direct buffer 사용량의 차이로 잰다. (-Xmx 가 1g 이상이어야 한다)
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+class AccountIndexBenchmark {
+
+    private static final int ACCOUNTS = 1_000_000;
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+    private static final int LOOKUPS = 10_000_000;
+
+    private static volatile long sink;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareWithHashMap() {
+        String[] accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers[i] = String.valueOf(FIRST_ACCOUNT_NUMBER + i);
+        }
+
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        AccountIndex index = new AccountIndex(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            index.putIfAbsent(AccountIndex.toKey(accountNumbers[i]), i + 1, i % 1000 + 1, IN_USE, 1_000_000L);
+        }
+        long indexHeap = usedHeap() - heapBefore;
+        long indexDirect = usedDirect() - directBefore;
+
+        heapBefore = usedHeap();
+        Map<String, Account> map = new HashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            // DB 에서 읽은 계좌처럼 키 String 을 따로 들고 있게 한다. (조회는 요청의 String 으로)
+            String accountNumber = new String(accountNumbers[i]);
+            map.put(accountNumber, account(accountNumber, i));
+        }
+        long mapHeap = usedHeap() - heapBefore;
+
+        System.out.printf("%-10s accounts=%d heapBytes=%d offHeapBytes=%d bytes/account=%.1f%n",
+                "index", ACCOUNTS, indexHeap, indexDirect, (double) (indexHeap + indexDirect) / ACCOUNTS);
+        System.out.printf("%-10s accounts=%d heapBytes=%d offHeapBytes=%d bytes/account=%.1f%n",
+                "hashmap", ACCOUNTS, mapHeap, 0, (double) mapHeap / ACCOUNTS);
+
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            reportIndex(index, accountNumbers, round == 1);
+            reportMap(map, accountNumbers, round == 1);
+            reportParsedKeys(index, round == 1);
+        }
+    }
+
+    private void reportIndex(AccountIndex index, String[] accountNumbers, boolean print) {
+        int[] order = order();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long begin = System.nanoTime();
+        long passed = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int slot = index.find(AccountIndex.toKey(accountNumbers[order[i & (order.length - 1)]]));
+            if (index.ownerId(slot) > 0 && index.status(slot) == IN_USE && index.balance(slot) >= 100L) {
+                passed++;
+            }
+        }
+        report("index", print, begin, allocatedBefore, passed);
+    }
+
+    // 계좌번호를 이미 long 으로 바꾼 경우 (인덱스만의 비용)
+    private void reportParsedKeys(AccountIndex index, boolean print) {
+        int[] order = order();
+        long[] keys = new long[order.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = FIRST_ACCOUNT_NUMBER + order[i];
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long begin = System.nanoTime();
+        long passed = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int slot = index.find(keys[i & (keys.length - 1)]);
+            if (index.ownerId(slot) > 0 && index.status(slot) == IN_USE && index.balance(slot) >= 100L) {
+                passed++;
+            }
+        }
+        report("index-key", print, begin, allocatedBefore, passed);
+    }
+
+    private void reportMap(Map<String, Account> map, String[] accountNumbers, boolean print) {
+        int[] order = order();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long begin = System.nanoTime();
+        long passed = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            Account account = map.get(accountNumbers[order[i & (order.length - 1)]]);
+            if (account.getAccountUser().getId() > 0 && account.getAccountStatus() == IN_USE
+                    && account.getBalance() >= 100L) {
+                passed++;
+            }
+        }
+        report("hashmap", print, begin, allocatedBefore, passed);
+    }
+
+    private void report(String name, boolean print, long begin, long allocatedBefore, long passed) {
+        long elapsed = System.nanoTime() - begin;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        sink += passed;
+        if (print) {
+            System.out.printf("%-10s lookups=%d ns/op=%.1f ops/s=%.0f allocatedBytes/op=%.3f%n",
+                    name, LOOKUPS, (double) elapsed / LOOKUPS, LOOKUPS * 1_000_000_000.0 / elapsed,
+                    (double) allocated / LOOKUPS);
+        }
+    }
+
+    // 캐시에 다 들어가지 않도록 무작위 순서로 찾는다. (1M 개 = 2^20)
+    private static int[] order() {
+        int[] order = new int[1 << 20];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+        }
+        return order;
+    }
+
+    private static Account account(String accountNumber, int i) {
+        AccountUser accountUser = new AccountUser();
+        accountUser.setId((long) (i % 1000 + 1));
+        Account account = Account.builder()
+                .accountUser(accountUser)
+                .accountNumber(accountNumber)
+                .accountStatus(IN_USE)
+                .balance(1_000_000L)
+                .registeredAt(LocalDateTime.now())
+                .version(0L)
+                .build();
+        account.setId((long) i + 1);
+        return account;
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.lane.AccountLaneExecutor;
+import com.zerobase.account.lock.LeaseWatchdog;
+import com.zerobase.account.lock.LocalAccountLock;
+import com.zerobase.account.lock.LocalAccountLockProvider;
+import com.zerobase.account.lock.LockWaitPolicy;
+import com.zerobase.account.lock.RedissonAccountLockProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * 한 계좌에 요청이 몰리는(skewed) 부하에서
+ * @AccountLock 경로(계좌 lock 을 잡고 요청 스레드에서 실행)와 계좌별 lane 실행을 비교한다.
+ * 두 경우 모두 작업 하나는 HOLD_MICROS 만큼 걸리고, 작업 전체 시간(latency)을 기록한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+class AccountLaneBenchmark {
+
+    private static final int REDIS_PORT = 6392;
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 100;
+    private static final int ACCOUNTS = 64;
+    private static final double HOT_RATIO = 0.5;
+    private static final long HOLD_MICROS = 200L;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+    private static LeaseWatchdog leaseWatchdog;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+        leaseWatchdog = new LeaseWatchdog(redissonClient);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        leaseWatchdog.shutdown();
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void skewedWorkload_lockVersusLane() throws InterruptedException {
+        Function<ThreadLocalRandom, String> skewed = LockBenchmarkHarness.skewedAccounts(ACCOUNTS, HOT_RATIO);
+
+        // hot 계좌 요청이 1초 안에 처리되지 못하면 실패하지 않도록 양쪽 모두 queue 방식으로 기다리게 한다.
+        System.out.println(LockBenchmarkHarness.run("lock(local)",
+                new LocalAccountLockProvider(new LocalAccountLock(true), LockWaitPolicy.queue(THREADS)),
+                THREADS, OPERATIONS_PER_THREAD, skewed, HOLD_MICROS));
+        System.out.println(LockBenchmarkHarness.run("lock(local+redis)",
+                new RedissonAccountLockProvider(redissonClient, new LocalAccountLock(true),
+                        LockWaitPolicy.queue(THREADS), leaseWatchdog),
+                THREADS, OPERATIONS_PER_THREAD, skewed, HOLD_MICROS));
+
+        int lanes = Math.max(8, Runtime.getRuntime().availableProcessors());
+        AccountLaneExecutor laneExecutor = new AccountLaneExecutor(lanes, THREADS, new SimpleMeterRegistry());
+        System.out.println(LockBenchmarkHarness.runOperations("lane(" + lanes + ")",
+                THREADS, OPERATIONS_PER_THREAD, skewed, accountNumber -> {
+                    try {
+                        laneExecutor.execute(accountNumber, 1000L, () -> {
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(HOLD_MICROS));
+                            return null;
+                        });
+                    } catch (AccountException e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                }));
+
+        StringBuilder perLane = new StringBuilder("lane completed :");
+        for (int i = 0; i < lanes; i++) {
+            perLane.append(' ').append(laneExecutor.completed(i));
+        }
+        System.out.println(perLane);
+        laneExecutor.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.service.AccountService;
+import com.zerobase.account.service.TransactionService;
+import com.zerobase.account.type.TransactionMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용 처리량을 JPA 경로(lock 모드의 캐시 + 조건부 UPDATE, atomic 모드)와 메모리 잔액 엔진으로 비교한다.
+ * - 스레드마다 다른 계좌를 쓰므로 계좌 lock 대기는 없다. (lock 없이 서비스를 직접 호출)
+ * - 메모리 엔진은 요청마다 저널 fsync 를 기다린다. (group commit)
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "account.transaction.mode=memory",
+        "spring.redis.port=6395",
+        "spring.datasource.url=jdbc:h2:mem:balance-engine-benchmark",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class BalanceEngineBenchmark {
+
+    private static final long USER_ID = 1L;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("balance-engine-benchmark").toString();
+        registry.add("account.engine.journal.directory", () -> directory);
+    }
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<String> accountNumbers = new ArrayList<>();
+
+    @BeforeEach
+    void createAccounts() {
+        for (int i = accountService.getAccountsByUserId(USER_ID).size(); i < THREADS; i++) {
+            accountService.createAccount(USER_ID, 100_000_000L);
+        }
+        accountService.getAccountsByUserId(USER_ID).stream()
+                .map(AccountDto::getAccountNumber)
+                .limit(THREADS)
+                .forEach(accountNumbers::add);
+    }
+
+    @Test
+    void compareJpaAndMemory() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            boolean print = round == 1;
+            report("jpa(lock mode)", TransactionMode.LOCK, print);
+            report("jpa(atomic)", TransactionMode.ATOMIC, print);
+            report("memory", TransactionMode.MEMORY, print);
+        }
+        System.out.printf("memory fsync wait mean=%.1fus count=%d%n",
+                meterRegistry.timer("account.engine.journal.fsync.wait").mean(TimeUnit.MICROSECONDS),
+                meterRegistry.timer("account.engine.journal.fsync.wait").count());
+    }
+
+    private void report(String name, TransactionMode mode, boolean print) throws Exception {
+        TransactionService target = AopTestUtils.getTargetObject(transactionService);
+        ReflectionTestUtils.setField(target, "transactionMode", mode);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String accountNumber : accountNumbers) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    transactionService.useBalance(USER_ID, accountNumber, 1L);
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        if (print) {
+            int operations = THREADS * OPERATIONS_PER_THREAD;
+            System.out.printf("%-16s threads=%d operations=%d ms=%d ops/s=%.0f avgMicros=%.1f%n",
+                    name, THREADS, operations, elapsedNanos / 1_000_000,
+                    operations * 1_000_000_000.0 / elapsedNanos,
+                    elapsedNanos / 1_000.0 / OPERATIONS_PER_THREAD);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.service.AccountService;
+import com.zerobase.account.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 폴링 클라이언트가 보내는 조회를 전체 응답과 조건부 GET(304)으로 나눠서
+ * 처리량과 요청당 응답 바이트를 비교한다. (MockMvc 라 네트워크 전송 시간은 빠져 있다)
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetBenchmark {
+
+    private static final long USER_ID = 1L;
+    private static final int ACCOUNTS = 10;
+    private static final int REQUESTS = 20_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    private String transactionId;
+
+    @BeforeEach
+    void createAccounts() {
+        List<AccountDto> accounts = accountService.getAccountsByUserId(USER_ID);
+        for (int i = accounts.size(); i < ACCOUNTS; i++) {
+            accountService.createAccount(USER_ID, 1_000_000L);
+        }
+        accounts = accountService.getAccountsByUserId(USER_ID);
+        TransactionDto transaction = transactionService.useBalance(USER_ID,
+                accounts.get(accounts.size() - 1).getAccountNumber(), 100L);
+        transactionId = transaction.getTransactionId();
+    }
+
+    @Test
+    void compareFullAndNotModified() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            report("accounts", get("/account?user_id=" + USER_ID), round == 1);
+            report("transaction", get("/transaction/" + transactionId), round == 1);
+        }
+    }
+
+    private void report(String name, MockHttpServletRequestBuilder request, boolean print) throws Exception {
+        String eTag = mockMvc.perform(request).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Result full = run(request);
+        Result notModified = run(request.header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        if (print) {
+            full.print(name + " 200");
+            notModified.print(name + " 304");
+        }
+    }
+
+    private Result run(MockHttpServletRequestBuilder request) throws Exception {
+        long bytes = 0;
+        int status = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+            bytes += response.getContentAsByteArray().length;
+            status = response.getStatus();
+        }
+        return new Result(status, System.nanoTime() - begin, bytes);
+    }
+
+    private static class Result {
+
+        private final int status;
+        private final long elapsedNanos;
+        private final long bytes;
+
+        Result(int status, long elapsedNanos, long bytes) {
+            this.status = status;
+            this.elapsedNanos = elapsedNanos;
+            this.bytes = bytes;
+        }
+
+        void print(String name) {
+            System.out.printf("%-16s status=%d requests=%d ms=%d ops/s=%.0f avgMicros=%.1f bytes/op=%d%n",
+                    name, status, REQUESTS, elapsedNanos / 1_000_000,
+                    REQUESTS * 1_000_000_000.0 / elapsedNanos,
+                    elapsedNanos / 1_000.0 / REQUESTS, bytes / REQUESTS);
+        }
+    }
+}
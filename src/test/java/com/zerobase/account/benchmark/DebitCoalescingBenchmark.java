@@ -0,0 +1,111 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
+import com.zerobase.account.service.AccountService;
+import com.zerobase.account.service.TransactionService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 한 계좌에 잔액 사용이 몰릴 때 요청마다 lock + UPDATE + INSERT 하는 경우와
+ * coalesce 모드에서 묶어서 처리하는 경우의 처리량을 비교한다.
+ * - 요청마다 처리하는 쪽은 한 건짜리 useBalanceBatch 로 같은 코드를 계좌 lock 안에서 실행한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "account.transaction.mode=coalesce",
+        "spring.redis.port=6398",
+        "spring.datasource.url=jdbc:h2:mem:coalesce-benchmark",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class DebitCoalescingBenchmark {
+
+    private static final long USER_ID = 1L;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 300;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String accountNumber;
+
+    @BeforeEach
+    void createAccount() {
+        accountNumber = accountService.createAccount(USER_ID, 100_000_000L).getAccountNumber();
+    }
+
+    @Test
+    void compareLockPerRequestAndCoalesced() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            boolean print = round == 1;
+            report("per-request", print, () -> transactionService.useBalanceBatch(single()));
+            DistributionSummary batchSize = meterRegistry.get("account.coalesce.batch.size").summary();
+            long batches = batchSize.count();
+            double requests = batchSize.totalAmount();
+            report("coalesced", print, () -> transactionService.useBalance(USER_ID, accountNumber, 1L));
+            if (print) {
+                System.out.printf("coalesced batches=%d avgBatchSize=%.1f%n", batchSize.count() - batches,
+                        (batchSize.totalAmount() - requests) / (batchSize.count() - batches));
+            }
+        }
+    }
+
+    private UseBalanceBatch.AccountRequests single() {
+        return new UseBalanceBatch.Request(Collections.singletonList(
+                new UseBalance.Request(USER_ID, accountNumber, 1L)))
+                .groupByAccount().get(0);
+    }
+
+    private void report(String name, boolean print, Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    operation.run();
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        if (print) {
+            int operations = THREADS * OPERATIONS_PER_THREAD;
+            System.out.printf("%-12s threads=%d operations=%d ms=%d ops/s=%.0f avgMicros=%.1f%n",
+                    name, THREADS, operations, elapsedNanos / 1_000_000,
+                    operations * 1_000_000_000.0 / elapsedNanos,
+                    elapsedNanos / 1_000.0 / OPERATIONS_PER_THREAD);
+        }
+    }
+}
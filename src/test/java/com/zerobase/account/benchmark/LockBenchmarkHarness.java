@@ -0,0 +1,178 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.LockTiming;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * lock 구현체들을 같은 조건에서 비교하기 위한 간단한 부하 도구
+ * - threads 개의 스레드가 operationsPerThread 번씩 lock -> holdMicros 만큼 작업 -> unlock 을 반복한다.
+ * - lock 대기 시간(lock 호출 ~ 반환)을 기록해서 처리량과 함께 출력한다.
+ * - lock 을 쓰지 않는 실행 방식과 비교할 때는 runOperations 로 작업 전체 시간(latency)을 기록한다.
+ */
+public class LockBenchmarkHarness {
+
+    // 기존 LockService 와 같은 조건 : 1초 대기, 15초 임대
+    public static final LockTiming DEFAULT_TIMING = new LockTiming(1000L, 15000L, 15000L);
+
+    public static Function<ThreadLocalRandom, String> hotAccounts(int accountCount) {
+        return random -> accountNumber(random.nextInt(accountCount));
+    }
+
+    // hotRatio 비율의 요청은 첫 번째 계좌로, 나머지는 전체 계좌에 고르게 보낸다.
+    public static Function<ThreadLocalRandom, String> skewedAccounts(int accountCount, double hotRatio) {
+        return random -> accountNumber(random.nextDouble() < hotRatio ? 0 : random.nextInt(accountCount));
+    }
+
+    public static String accountNumber(int index) {
+        return String.valueOf(1000000000L + index);
+    }
+
+    public static Result run(String name,
+                             AccountLockProvider backend,
+                             int threads,
+                             int operationsPerThread,
+                             Function<ThreadLocalRandom, String> accountPicker,
+                             long holdMicros) throws InterruptedException {
+        return run(name, backend, DEFAULT_TIMING, threads, operationsPerThread, accountPicker, holdMicros);
+    }
+
+    public static Result run(String name,
+                             AccountLockProvider backend,
+                             LockTiming timing,
+                             int threads,
+                             int operationsPerThread,
+                             Function<ThreadLocalRandom, String> accountPicker,
+                             long holdMicros) throws InterruptedException {
+        return execute(name, "wait", threads, operationsPerThread, accountPicker, accountNumber -> {
+            backend.lock(accountNumber, timing);
+            long lockedAt = System.nanoTime();
+            try {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(holdMicros));
+            } finally {
+                backend.unlock(accountNumber);
+            }
+            return lockedAt;
+        });
+    }
+
+    /**
+     * operation 하나를 계좌별 작업 단위로 보고, 호출 ~ 반환 시간을 기록한다.
+     * operation 이 AccountException 을 던지면 실패로 센다.
+     */
+    public static Result runOperations(String name,
+                                       int threads,
+                                       int operationsPerThread,
+                                       Function<ThreadLocalRandom, String> accountPicker,
+                                       Consumer<String> operation) throws InterruptedException {
+        return execute(name, "latency", threads, operationsPerThread, accountPicker, accountNumber -> {
+            operation.accept(accountNumber);
+            return System.nanoTime();
+        });
+    }
+
+    // measured 는 측정 구간의 끝 시각(nanoTime)을 돌려준다.
+    private static Result execute(String name,
+                                  String metric,
+                                  int threads,
+                                  int operationsPerThread,
+                                  Function<ThreadLocalRandom, String> accountPicker,
+                                  Function<String, Long> measured) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger failures = new AtomicInteger();
+        List<long[]> waits = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            long[] threadWaits = new long[operationsPerThread];
+            waits.add(threadWaits);
+            executorService.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        String accountNumber = accountPicker.apply(ThreadLocalRandom.current());
+                        long begin = System.nanoTime();
+                        try {
+                            threadWaits[i] = measured.apply(accountNumber) - begin;
+                        } catch (AccountException e) {
+                            threadWaits[i] = System.nanoTime() - begin;
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executorService.shutdown();
+
+        long[] all = waits.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(name, metric, all.length, failures.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                TimeUnit.NANOSECONDS.toMicros(percentile(all, 0.50)),
+                TimeUnit.NANOSECONDS.toMicros(percentile(all, 0.99)));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    public static class Result {
+        private final String name;
+        private final String metric;
+        private final int operations;
+        private final int failures;
+        private final long elapsedMillis;
+        private final long p50WaitMicros;
+        private final long p99WaitMicros;
+
+        Result(String name, String metric, int operations, int failures,
+               long elapsedMillis, long p50WaitMicros, long p99WaitMicros) {
+            this.name = name;
+            this.metric = metric;
+            this.operations = operations;
+            this.failures = failures;
+            this.elapsedMillis = elapsedMillis;
+            this.p50WaitMicros = p50WaitMicros;
+            this.p99WaitMicros = p99WaitMicros;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public double throughput() {
+            return (operations - failures) * 1000.0 / Math.max(1L, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s ops=%d fail=%d elapsed=%dms completed/s=%.1f %s p50=%dus p99=%dus",
+                    name, operations, failures, elapsedMillis, throughput(), metric, p50WaitMicros, p99WaitMicros);
+        }
+    }
+}
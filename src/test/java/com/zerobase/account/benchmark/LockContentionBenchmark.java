@@ -0,0 +1,117 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.LeaseWatchdog;
+import com.zerobase.account.lock.LocalAccountLock;
+import com.zerobase.account.lock.LockTiming;
+import com.zerobase.account.lock.LockWaitPolicy;
+import com.zerobase.account.lock.RedissonAccountLockProvider;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisNode;
+import org.redisson.api.redisnode.RedisNodes;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 서버 안에서 같은 계좌로 요청이 몰릴 때
+ * Redis lock 만 쓰는 경우(기존 방식)와 메모리 lock 을 앞에 둔 경우를 비교한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+class LockContentionBenchmark {
+
+    private static final int REDIS_PORT = 6391;
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 100;
+    private static final int HOT_ACCOUNTS = 4;
+    private static final long HOLD_MICROS = 200L;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+    private static LeaseWatchdog leaseWatchdog;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+        leaseWatchdog = new LeaseWatchdog(redissonClient);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        leaseWatchdog.shutdown();
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void redisOnlyVersusTwoTier() throws InterruptedException {
+        AccountLockProvider redisOnly = new AccountLockProvider() {
+            @Override
+            public void lock(String accountNumber, LockTiming timing) {
+                try {
+                    if (!redissonClient.getLock("ACLK:" + accountNumber).tryLock(1, 15, TimeUnit.SECONDS)) {
+                        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+            }
+
+            @Override
+            public void unlock(String accountNumber) {
+                redissonClient.getLock("ACLK:" + accountNumber).unlock();
+            }
+        };
+
+        AccountLockProvider twoTier = new RedissonAccountLockProvider(redissonClient,
+                new LocalAccountLock(), LockWaitPolicy.tryOnce(), leaseWatchdog);
+
+        report("redis-only", redisOnly, LockBenchmarkHarness.DEFAULT_TIMING,
+                THREADS, OPERATIONS_PER_THREAD, HOT_ACCOUNTS, HOLD_MICROS);
+        report("local+redis", twoTier, LockBenchmarkHarness.DEFAULT_TIMING,
+                THREADS, OPERATIONS_PER_THREAD, HOT_ACCOUNTS, HOLD_MICROS);
+    }
+
+    // 한 계좌에 요청이 몰리는 상황 : try 는 1초를 넘긴 요청이 실패하고, queue 는 순서대로 처리하거나 바로 거절한다.
+    @Test
+    void burstOnOneAccount_tryVersusQueue() throws InterruptedException {
+        report("try(1s)", new RedissonAccountLockProvider(redissonClient,
+                        new LocalAccountLock(), LockWaitPolicy.tryOnce(), leaseWatchdog),
+                LockBenchmarkHarness.DEFAULT_TIMING, 64, 10, 1, 5_000L);
+        report("queue(depth=32,10s)", new RedissonAccountLockProvider(redissonClient,
+                        new LocalAccountLock(true), LockWaitPolicy.queue(32), leaseWatchdog),
+                new LockTiming(10_000L, 15_000L, 15_000L), 64, 10, 1, 5_000L);
+    }
+
+    private void report(String name, AccountLockProvider backend, LockTiming timing, int threads,
+                        int operationsPerThread, int accounts, long holdMicros) throws InterruptedException {
+        long commandsBefore = redisCommands();
+        LockBenchmarkHarness.Result result = LockBenchmarkHarness.run(name, backend, timing,
+                threads, operationsPerThread, LockBenchmarkHarness.hotAccounts(accounts), holdMicros);
+        long commands = redisCommands() - commandsBefore;
+
+        System.out.println(result + " redisCommands=" + commands);
+    }
+
+    private long redisCommands() {
+        return Long.parseLong(redissonClient.getRedisNodes(RedisNodes.SINGLE)
+                .getInstance()
+                .info(RedisNode.InfoSection.STATS)
+                .get("total_commands_processed"));
+    }
+}
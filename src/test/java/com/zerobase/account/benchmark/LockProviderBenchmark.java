@@ -0,0 +1,89 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.domain.AccountUser;
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.DatabaseAccountLockProvider;
+import com.zerobase.account.lock.LeaseWatchdog;
+import com.zerobase.account.lock.LocalAccountLock;
+import com.zerobase.account.lock.LocalAccountLockProvider;
+import com.zerobase.account.lock.LockWaitPolicy;
+import com.zerobase.account.lock.RedissonAccountLockProvider;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.AccountUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+
+/**
+ * 같은 부하 조건에서 lock 구현체(local / redisson / database)를 나란히 비교한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest
+class LockProviderBenchmark {
+
+    // DB lock 은 커넥션을 잡고 기다리므로 커넥션 풀(기본 10개)보다 적은 스레드로 비교한다.
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 200;
+    private static final int HOT_ACCOUNTS = 4;
+    private static final long HOLD_MICROS = 200L;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private LeaseWatchdog leaseWatchdog;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @BeforeEach
+    void createAccounts() {
+        AccountUser accountUser = accountUserRepository.findById(1L).get();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            String accountNumber = LockBenchmarkHarness.accountNumber(i);
+            if (accountRepository.findByAccountNumber(accountNumber).isEmpty()) {
+                accountRepository.save(Account.builder()
+                        .accountUser(accountUser)
+                        .accountNumber(accountNumber)
+                        .accountStatus(IN_USE)
+                        .balance(0L)
+                        .registeredAt(LocalDateTime.now())
+                        .build());
+            }
+        }
+    }
+
+    @Test
+    void compareProviders() throws InterruptedException {
+        report("local", new LocalAccountLockProvider(new LocalAccountLock(), LockWaitPolicy.tryOnce()));
+        report("redisson", new RedissonAccountLockProvider(redissonClient,
+                new LocalAccountLock(), LockWaitPolicy.tryOnce(), leaseWatchdog));
+        report("database", new DatabaseAccountLockProvider(transactionManager, entityManager));
+    }
+
+    private void report(String name, AccountLockProvider provider) throws InterruptedException {
+        System.out.println(LockBenchmarkHarness.run(name, provider,
+                THREADS, OPERATIONS_PER_THREAD, LockBenchmarkHarness.hotAccounts(HOT_ACCOUNTS), HOLD_MICROS));
+    }
+}
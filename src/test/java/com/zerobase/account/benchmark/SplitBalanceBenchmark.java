@@ -0,0 +1,123 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.AccountSlotRepository;
+import com.zerobase.account.service.AccountService;
+import com.zerobase.account.service.SplitBalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 한 계좌에 잔액 사용이 몰릴 때 행 하나를 모두가 차감하는 경우와
+ * 슬롯 8개에 나눠 담고 슬롯 하나씩 차감하는 경우의 처리량을 비교한다.
+ * - 행 하나 쪽은 같은 계좌의 0번 슬롯만 조건부 UPDATE 한다. (atomic 모드의 계좌 행 UPDATE 와 같은 경합)
+ * - 거래 INSERT 는 빼고 잔액 차감과 잔액 합 조회만 트랜잭션 하나로 실행한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "account.transaction.mode=split",
+        "account.split.slots=8",
+        "spring.redis.port=6399",
+        "spring.datasource.url=jdbc:h2:mem:split-benchmark",
+        "spring.jpa.properties.hibernate.show_sql=false"
+})
+class SplitBalanceBenchmark {
+
+    private static final long USER_ID = 1L;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 300;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountSlotRepository accountSlotRepository;
+
+    @Autowired
+    private SplitBalanceService splitBalanceService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long accountId;
+
+    @BeforeEach
+    void createAccount() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String accountNumber = accountService.createAccount(USER_ID, 800_000_000L).getAccountNumber();
+        accountId = accountRepository.findByAccountNumber(accountNumber).get().getId();
+    }
+
+    @Test
+    void compareSingleRowAndSplit() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            boolean print = round == 1;
+            report("single-row", print, () -> {
+                accountSlotRepository.debit(accountId, 0, 1L);
+                return accountSlotRepository.findTotalBalance(accountId);
+            });
+            report("split", print, () -> splitBalanceService.use(accountId, 1L));
+        }
+    }
+
+    private void report(String name, boolean print, Supplier<Object> operation) throws Exception {
+        AtomicLong conflicts = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    while (true) {
+                        try {
+                            transactionTemplate.execute(status -> operation.get());
+                            break;
+                        } catch (OptimisticLockingFailureException e) {
+                            // 고른 슬롯을 다른 요청이 먼저 비웠다. (TransactionService 호출은 OptimisticRetryAspect 가 다시 실행)
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        executor.shutdown();
+
+        if (print) {
+            int operations = THREADS * OPERATIONS_PER_THREAD;
+            System.out.printf("%-12s threads=%d operations=%d ms=%d ops/s=%.0f avgMicros=%.1f conflicts=%d%n",
+                    name, THREADS, operations, elapsedNanos / 1_000_000,
+                    operations * 1_000_000_000.0 / elapsedNanos,
+                    elapsedNanos / 1_000.0 / OPERATIONS_PER_THREAD, conflicts.get());
+        }
+    }
+}
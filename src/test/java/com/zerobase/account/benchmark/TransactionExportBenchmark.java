@@ -0,0 +1,189 @@
+package com.zerobase.account.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.account.export.ExportFormat;
+import com.zerobase.account.export.TransactionExporter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 수백만 건의 합성 거래를 내보낼 때의 처리량과 힙 사용량 증가를 잰다.
+ * - 데이터가 힙에 올라가지 않도록 H2 파일 DB 를 쓴다.
+ * - 거래는 DAYS 일에 고르게 흩어져 있다. 하루치만 내보낼 때 (transacted_at, id) 인덱스가 있을 때와
+ *   없을 때(전체 행을 훑음)를 비교한다.
+ * - 출력은 바이트 수만 세고 버린다. 내보내는 동안 일정 간격으로 GC 후 남은 힙을 재서
+ *   시작 시점보다 얼마나 늘었는지(행 수에 비례해서 쌓이는 객체가 있는지) 보고한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+class TransactionExportBenchmark {
+
+    private static final int ROWS = 3_000_000;
+    private static final int ACCOUNTS = 1_000;
+    private static final int BATCH = 5_000;
+    private static final int DAYS = 30;
+    private static final LocalDate DAY = LocalDate.of(2023, 3, 1);
+
+    private static Path directory;
+    private static SingleConnectionDataSource dataSource;
+
+    @BeforeAll
+    static void createRows() throws IOException, SQLException {
+        directory = Files.createTempDirectory("export-benchmark");
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:file:" + directory.resolve("db") + ";CACHE_SIZE=16384", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id bigint primary key, account_number varchar(255))");
+        jdbcTemplate.execute("create table transaction (id bigint primary key, account_id bigint,"
+                + " transaction_id varchar(255), transaction_type varchar(255),"
+                + " transaction_result_type varchar(255), amount bigint, balance_snapshot bigint,"
+                + " transacted_at timestamp)");
+        jdbcTemplate.execute("create index idx_transaction_transacted_at on transaction (transacted_at, id)");
+
+        long begin = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertAccount = connection.prepareStatement("insert into account values (?, ?)")) {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                insertAccount.setLong(1, i);
+                insertAccount.setString(2, String.valueOf(1_000_000_000L + i));
+                insertAccount.addBatch();
+            }
+            insertAccount.executeBatch();
+        }
+        try (PreparedStatement insertTransaction = connection.prepareStatement(
+                "insert into transaction values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            LocalDateTime start = DAY.atStartOfDay();
+            long interval = TimeUnit.DAYS.toNanos(DAYS) / ROWS;
+            for (int i = 0; i < ROWS; i++) {
+                insertTransaction.setLong(1, i);
+                insertTransaction.setLong(2, i % ACCOUNTS);
+                insertTransaction.setString(3, Long.toString(0x10000000000L + i, 36));
+                insertTransaction.setString(4, i % 10 == 0 ? "CANCEL" : "USE");
+                insertTransaction.setString(5, i % 50 == 0 ? "FAIL" : "SUCCESS");
+                insertTransaction.setLong(6, 1_000L + i % 1000);
+                insertTransaction.setLong(7, 1_000_000L - i % 1000);
+                insertTransaction.setTimestamp(8, Timestamp.valueOf(start.plusNanos(i * interval)));
+                insertTransaction.addBatch();
+                if ((i + 1) % BATCH == 0) {
+                    insertTransaction.executeBatch();
+                    connection.commit();
+                }
+            }
+            insertTransaction.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        System.out.printf("inserted rows=%d in %d ms%n", ROWS, (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    @AfterAll
+    static void deleteRows() throws IOException {
+        dataSource.destroy();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void exportThroughput() throws IOException {
+        TransactionExporter transactionExporter =
+                new TransactionExporter(new JdbcTemplate(dataSource), new ObjectMapper(), 1_000);
+
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            report(transactionExporter, ExportFormat.NDJSON, DAY, DAY.plusDays(DAYS - 1), round == 1);
+            report(transactionExporter, ExportFormat.CSV, DAY, DAY.plusDays(DAYS - 1), round == 1);
+        }
+    }
+
+    @Test
+    void exportNarrowRange() throws IOException {
+        TransactionExporter transactionExporter =
+                new TransactionExporter(new JdbcTemplate(dataSource), new ObjectMapper(), 1_000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDate day = DAY.plusDays(DAYS / 2);
+
+        for (int round = 0; round < 2; round++) {
+            report(transactionExporter, ExportFormat.CSV, day, day, round == 1);
+        }
+        System.out.println("without index :");
+        jdbcTemplate.execute("drop index idx_transaction_transacted_at");
+        try {
+            for (int round = 0; round < 2; round++) {
+                report(transactionExporter, ExportFormat.CSV, day, day, round == 1);
+            }
+        } finally {
+            jdbcTemplate.execute("create index idx_transaction_transacted_at on transaction (transacted_at, id)");
+        }
+    }
+
+    private void report(TransactionExporter transactionExporter, ExportFormat format,
+                        LocalDate from, LocalDate to, boolean print) throws IOException {
+        System.gc();
+        long baseline = usedHeap();
+        HeapSamplingOutputStream outputStream = new HeapSamplingOutputStream();
+
+        long begin = System.nanoTime();
+        long rows = transactionExporter.export(from, to, format, outputStream);
+        long elapsed = System.nanoTime() - begin;
+
+        if (print) {
+            System.out.printf("%-7s rows=%d ms=%d rows/s=%.0f MB/s=%.1f retainedHeapGrowthMB=%.1f%n",
+                    format, rows, elapsed / 1_000_000, rows * 1_000_000_000.0 / elapsed,
+                    outputStream.bytes / 1024.0 / 1024.0 * 1_000_000_000.0 / elapsed,
+                    (outputStream.maxUsedHeap - baseline) / 1024.0 / 1024.0);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class HeapSamplingOutputStream extends OutputStream {
+
+        private static final long SAMPLE_BYTES = 64L * 1024 * 1024;
+
+        private long bytes;
+        private long nextSample = SAMPLE_BYTES;
+        private long maxUsedHeap;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int length) {
+            bytes += length;
+            if (bytes >= nextSample) {
+                nextSample += SAMPLE_BYTES;
+                System.gc();
+                maxUsedHeap = Math.max(maxUsedHeap, usedHeap());
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.zerobase.account.benchmark;
+
+import com.zerobase.account.id.SnowflakeTransactionIdGenerator;
+import com.zerobase.account.id.TransactionIdGenerator;
+import com.zerobase.account.id.UuidTransactionIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 ID 생성 방식(랜덤 UUID / snowflake)의 생성 비용과
+ * 유니크 인덱스가 있는 테이블에 넣을 때의 처리량을 비교한다.
+ * ./gradlew benchmark 로 실행
+ */
+@Tag("benchmark")
+class TransactionIdBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 200_000;
+    private static final int ROWS = 200_000;
+    private static final int BATCH = 1_000;
+
+    // 결과를 버리지 않도록 모아 둔다. (JIT 가 호출 자체를 없애지 않게)
+    private static volatile int sink;
+
+    @Test
+    void generationCost() throws InterruptedException {
+        for (int round = 0; round < 2; round++) {
+            // 첫 번째 라운드는 워밍업
+            reportGeneration("uuid", new UuidTransactionIdGenerator(), round == 1);
+            reportGeneration("snowflake", new SnowflakeTransactionIdGenerator(1L), round == 1);
+        }
+    }
+
+    @Test
+    void insertThroughput() throws SQLException {
+        for (int round = 0; round < 2; round++) {
+            reportInsert("uuid", new UuidTransactionIdGenerator(), round == 1);
+            reportInsert("snowflake", new SnowflakeTransactionIdGenerator(1L), round == 1);
+        }
+    }
+
+    private void reportGeneration(String name, TransactionIdGenerator generator, boolean print)
+            throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long begin = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executorService.submit(() -> {
+                int hash = 0;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    hash += generator.nextId().hashCode();
+                }
+                sink += hash;
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executorService.shutdown();
+
+        if (print) {
+            long total = (long) THREADS * IDS_PER_THREAD;
+            System.out.printf("%-10s generate threads=%d ids=%d ns/id=%.1f ids/s=%.0f%n",
+                    name, THREADS, total, (double) elapsed / total,
+                    total * 1_000_000_000.0 / elapsed);
+        }
+    }
+
+    private void reportInsert(String name, TransactionIdGenerator generator, boolean print) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:id_" + name + System.nanoTime())) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table transaction_id_bench ("
+                        + "id bigint auto_increment primary key, transaction_id varchar(32) not null)");
+                statement.execute("create unique index uk_bench_transaction_id on transaction_id_bench(transaction_id)");
+            }
+
+            connection.setAutoCommit(false);
+            long begin = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into transaction_id_bench(transaction_id) values (?)")) {
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setString(1, generator.nextId());
+                    insert.addBatch();
+                    if (i % BATCH == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            if (print) {
+                System.out.printf("%-10s insert rows=%d elapsed=%dms rows/s=%.0f%n",
+                        name, ROWS, TimeUnit.NANOSECONDS.toMillis(elapsed), ROWS * 1_000_000_000.0 / elapsed);
+            }
+        }
+    }
+}
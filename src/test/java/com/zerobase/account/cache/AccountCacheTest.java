@@ -0,0 +1,142 @@
+package com.zerobase.account.cache;
+
+import com.zerobase.account.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RTopic;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheTest {
+
+    private static final String ACCOUNT_NUMBER = "1000000012";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private RTopic invalidationTopic;
+
+    private CacheManager cacheManager;
+    private NegativeCache<String> missingAccounts;
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = ((EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName()))
+                .getCacheManager(URI.create("urn:account-cache-test:" + UUID.randomUUID()),
+                        ConfigurationBuilder.newConfigurationBuilder().build());
+        missingAccounts = new NegativeCache<>(
+                cacheManager.createCache("missingAccount", Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Boolean.class,
+                                ResourcePoolsBuilder.heap(100)))),
+                true);
+        accountCache = new AccountCache(
+                cacheManager.createCache("account", Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, AccountSnapshot.class,
+                                ResourcePoolsBuilder.heap(100)))),
+                missingAccounts, accountRepository, invalidationTopic, new SimpleMeterRegistry(), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.close();
+    }
+
+    @Test
+    void get_loadsOnlyOnMiss() {
+        // given
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(snapshot(1000L, 3L)));
+
+        // when
+        accountCache.get(ACCOUNT_NUMBER);
+        Optional<AccountSnapshot> cached = accountCache.get(ACCOUNT_NUMBER);
+
+        // then
+        assertThat(cached).contains(snapshot(1000L, 3L));
+        verify(accountRepository, times(1)).findSnapshotByAccountNumber(ACCOUNT_NUMBER);
+    }
+
+    @Test
+    void putAfterCommit_keepsNewerVersionAndNotifiesOtherNodes() {
+        // given
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+
+        // when
+        // 트랜잭션 밖이면 바로 반영한다.
+        accountCache.putAfterCommit(snapshot(800L, 5L));
+        accountCache.putAfterCommit(snapshot(1000L, 4L));
+
+        // then
+        assertThat(accountCache.get(ACCOUNT_NUMBER)).contains(snapshot(800L, 5L));
+        verify(invalidationTopic, times(2)).publishAsync(message.capture());
+        assertThat(message.getValue()).endsWith(":" + ACCOUNT_NUMBER);
+    }
+
+    @Test
+    void onInvalidation_evictsOnlyMessagesFromOtherNodes() {
+        // given
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        accountCache.putAfterCommit(snapshot(800L, 5L));
+        verify(invalidationTopic).publishAsync(message.capture());
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(snapshot(500L, 6L)));
+
+        // when
+        accountCache.onInvalidation(message.getValue());
+        Optional<AccountSnapshot> afterOwnMessage = accountCache.get(ACCOUNT_NUMBER);
+        accountCache.onInvalidation("other-node:" + ACCOUNT_NUMBER);
+        Optional<AccountSnapshot> afterOtherMessage = accountCache.get(ACCOUNT_NUMBER);
+
+        // then
+        assertThat(afterOwnMessage).contains(snapshot(800L, 5L));
+        assertThat(afterOtherMessage).contains(snapshot(500L, 6L));
+    }
+
+    @Test
+    void get_remembersMissingAccountUntilCreated() {
+        // given
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.empty(), Optional.of(snapshot(0L, 0L)));
+
+        // when
+        Optional<AccountSnapshot> first = accountCache.get(ACCOUNT_NUMBER);
+        Optional<AccountSnapshot> second = accountCache.get(ACCOUNT_NUMBER);
+        // 다른 서버에서 계좌를 만들었다는 알림
+        accountCache.onInvalidation("other-node:" + ACCOUNT_NUMBER);
+        Optional<AccountSnapshot> afterCreated = accountCache.get(ACCOUNT_NUMBER);
+
+        // then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(afterCreated).contains(snapshot(0L, 0L));
+        verify(accountRepository, times(2)).findSnapshotByAccountNumber(ACCOUNT_NUMBER);
+    }
+
+    private static AccountSnapshot snapshot(Long balance, Long version) {
+        return new AccountSnapshot(7L, ACCOUNT_NUMBER, 12L, IN_USE, balance, version);
+    }
+}
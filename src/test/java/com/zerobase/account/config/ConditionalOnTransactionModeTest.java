@@ -0,0 +1,54 @@
+package com.zerobase.account.config;
+
+import com.zerobase.account.type.TransactionMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalOnTransactionModeTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(TransactionModeConfig.class, LockModeConfig.class);
+
+    @Test
+    void missingMode_meansLock() {
+        contextRunner.run(context -> {
+            assertThat(context).hasBean("lockModeMarker");
+            assertThat(context.getBean(TransactionMode.class)).isEqualTo(TransactionMode.LOCK);
+        });
+    }
+
+    @Test
+    void mode_ignoresCase() {
+        contextRunner.withPropertyValues("account.transaction.mode=COALESCE")
+                .run(context -> {
+                    assertThat(context).hasBean("lockModeMarker");
+                    assertThat(context.getBean(TransactionMode.class)).isEqualTo(TransactionMode.COALESCE);
+                });
+    }
+
+    @Test
+    void otherMode_skipsBean() {
+        contextRunner.withPropertyValues("account.transaction.mode=Atomic")
+                .run(context -> assertThat(context).doesNotHaveBean("lockModeMarker"));
+    }
+
+    @Test
+    void unknownMode_failsStartup() {
+        contextRunner.withPropertyValues("account.transaction.mode=locks")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    @Configuration
+    @ConditionalOnTransactionMode({TransactionMode.LOCK, TransactionMode.COALESCE})
+    static class LockModeConfig {
+
+        @Bean
+        String lockModeMarker() {
+            return "lock";
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.zerobase.account.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.AccountListVersion;
 import com.zerobase.account.dto.CreateAccount;
 import com.zerobase.account.dto.DeleteAccount;
 import com.zerobase.account.exception.AccountException;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -20,12 +22,16 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -139,6 +145,29 @@ public class AccountControllerTest {
                 .andDo(print());
     }
 
+    @Test
+    void getAccountsByUserId_notModified() throws Exception {
+        // given
+        LocalDateTime lastModified = LocalDateTime.of(2023, 3, 1, 12, 0);
+        given(accountService.getAccountListVersion(anyLong()))
+                .willReturn(Optional.of(new AccountListVersion(3L, 7L, lastModified)));
+        String eTag = mockMvc.perform(get("/account?user_id=1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when
+        // then
+        mockMvc.perform(get("/account?user_id=1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        // 잔액이 바뀌면 version 합이 커져서 ETag 가 달라진다.
+        given(accountService.getAccountListVersion(anyLong()))
+                .willReturn(Optional.of(new AccountListVersion(3L, 8L, lastModified)));
+        mockMvc.perform(get("/account?user_id=1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        verify(accountService, times(2)).getAccountsByUserId(1L);
+    }
+
     @Test
     void failGetAccount() throws Exception {
         // given
@@ -152,5 +181,4 @@ public class AccountControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.errorMessage").value("계좌가 없습니다."))
                 .andExpect(status().isOk());
     }
-
 }
@@ -3,25 +3,40 @@ package com.zerobase.account.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zerobase.account.dto.CancelBalance;
 import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.TransactionHistory;
 import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.service.FailedTransactionRecorder;
 import com.zerobase.account.service.TransactionService;
+import com.zerobase.account.type.ErrorCode;
 import com.zerobase.account.type.TransactionResultType;
 import com.zerobase.account.type.TransactionType;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,6 +46,9 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -67,6 +85,93 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    void useBalanceBatch_resultsInRequestOrder() throws Exception {
+        // given
+        given(transactionService.useBalanceBatch(argThat(group -> group != null
+                && "1000000001".equals(group.getAccountNumber()))))
+                .willReturn(Arrays.asList(
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .amount(100L)
+                                .transactionId("transactionId1")
+                                .transactionResultType(TransactionResultType.SUCCESS)
+                                .build(),
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .amount(300L)
+                                .transactionId("transactionId2")
+                                .transactionResultType(TransactionResultType.FAIL)
+                                .errorCode(ErrorCode.AMOUNT_EXCEED_BALANCE)
+                                .build()));
+        given(transactionService.useBalanceBatch(argThat(group -> group != null
+                && "1000000002".equals(group.getAccountNumber()))))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "1000000001", 100L),
+                                new UseBalance.Request(1L, "1000000002", 200L),
+                                new UseBalance.Request(1L, "1000000001", 300L)))
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId1"))
+                .andExpect(jsonPath("$.results[1].accountNumber").value("1000000002"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("FAIL"))
+                .andExpect(jsonPath("$.results[1].errorCode").value("ACCOUNT_TRANSACTION_LOCK"))
+                .andExpect(jsonPath("$.results[2].transactionResult").value("FAIL"))
+                .andExpect(jsonPath("$.results[2].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    void useBalanceBatch_unexpectedErrorFailsOnlyThatAccount() throws Exception {
+        // given
+        given(transactionService.useBalanceBatch(argThat(group -> group != null
+                && "1000000001".equals(group.getAccountNumber()))))
+                .willReturn(Collections.singletonList(
+                        TransactionDto.builder()
+                                .accountNumber("1000000001")
+                                .amount(100L)
+                                .transactionId("transactionId1")
+                                .transactionResultType(TransactionResultType.SUCCESS)
+                                .build()));
+        given(transactionService.useBalanceBatch(argThat(group -> group != null
+                && "1000000002".equals(group.getAccountNumber()))))
+                .willThrow(new IllegalStateException("connection lost"));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "1000000002", 200L),
+                                new UseBalance.Request(1L, "1000000001", 100L)))
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResult").value("FAIL"))
+                .andExpect(jsonPath("$.results[0].errorCode").value("INTERNAL_SERVER_ERROR"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[1].transactionId").value("transactionId1"));
+    }
+
+    @Test
+    void useBalanceBatch_emptyRequest() throws Exception {
+        mockMvc.perform(post("/transaction/use/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalanceBatch.Request(Collections.emptyList()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         // given
@@ -96,6 +201,58 @@ class TransactionControllerTest {
 
     }
 
+    @Test
+    void failCancelBalance_recordFailureAsync() throws Exception {
+        // given
+        given(transactionService.cancelBalance(anyString(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.CANCEL_MUST_FULLY));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/cancel")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new CancelBalance.Request("transactionId", "2000000000", 1234L)
+                ))
+        ).andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("CANCEL_MUST_FULLY"));
+
+        verify(failedTransactionRecorder, times(1))
+                .record(TransactionType.CANCEL, "2000000000", 1234L);
+        verifyNoMoreInteractions(failedTransactionRecorder);
+    }
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        // given
+        given(transactionService.getTransactionHistory("1000000012",
+                TransactionType.USE, null, "cursor", 2))
+                .willReturn(TransactionHistory.Response.builder()
+                        .accountNumber("1000000012")
+                        .transactions(Collections.singletonList(TransactionHistory.Item.builder()
+                                .transactionId("transactionId")
+                                .transactionType(TransactionType.USE)
+                                .transactionResult(TransactionResultType.SUCCESS)
+                                .amount(1000L)
+                                .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(get("/account/1000000012/transactions")
+                        .param("transaction_type", "USE")
+                        .param("cursor", "cursor")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000012"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].transactionResult").value("SUCCESS"))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+
     @Test
     void successQueryTransaction() throws Exception {
         // given
@@ -120,4 +277,20 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.transactionId").value("transactionId"))
                 .andExpect(jsonPath("$.amount").value(54321L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void queryTransaction_notModified() throws Exception {
+        // given
+        given(transactionService.getTransactionLastModified(anyString()))
+                .willReturn(Optional.of(LocalDateTime.of(2023, 3, 1, 12, 0)));
+
+        // when
+        // then
+        mockMvc.perform(get("/transaction/12345").header(HttpHeaders.IF_NONE_MATCH,
+                        ConditionalGet.eTag(ConditionalGet.toEpochMillis(LocalDateTime.of(2023, 3, 1, 12, 0)))))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(transactionService, never()).queryTransaction(anyString());
+    }
+}
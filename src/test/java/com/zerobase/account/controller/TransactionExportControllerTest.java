@@ -0,0 +1,76 @@
+package com.zerobase.account.controller;
+
+import com.zerobase.account.export.ExportFormat;
+import com.zerobase.account.export.TransactionExporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransactionExportController.class)
+class TransactionExportControllerTest {
+
+    @MockBean
+    private TransactionExporter transactionExporter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void successExportCsv() throws Exception {
+        // given
+        given(transactionExporter.export(eq(LocalDate.of(2023, 3, 1)), eq(LocalDate.of(2023, 3, 2)),
+                eq(ExportFormat.CSV), any()))
+                .willAnswer(invocation -> {
+                    OutputStream outputStream = invocation.getArgument(3);
+                    outputStream.write("transactionId\nfirst\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        // when
+        MvcResult mvcResult = mockMvc.perform(get("/transaction/export")
+                        .param("from", "2023-03-01")
+                        .param("to", "2023-03-02")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"transactions-2023-03-01-2023-03-02.csv\""))
+                .andExpect(content().string("transactionId\nfirst\n"));
+    }
+
+    @Test
+    void invalidRange() throws Exception {
+        mockMvc.perform(get("/transaction/export")
+                        .param("from", "2023-03-02")
+                        .param("to", "2023-03-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+
+        verify(transactionExporter, never()).export(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.zerobase.account.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+import static com.zerobase.account.type.AccountStatus.UNREGISTERED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountIndexTest {
+
+    @Test
+    void toKey_parsesOnlyTenDigits() {
+        // given
+        // when
+        // then
+        assertEquals(1000000012L, AccountIndex.toKey("1000000012"));
+        assertEquals(0L, AccountIndex.toKey("0000000000"));
+        assertEquals(-1L, AccountIndex.toKey("100000001"));
+        assertEquals(-1L, AccountIndex.toKey("10000000a2"));
+        assertEquals(-1L, AccountIndex.toKey(null));
+    }
+
+    @Test
+    void putIfAbsent_keepsFirstValue() {
+        // given
+        AccountIndex index = new AccountIndex(16);
+        long key = AccountIndex.toKey("1000000012");
+
+        // when
+        int slot = index.putIfAbsent(key, 7L, 12L, IN_USE, 1_000L);
+        int again = index.putIfAbsent(key, 8L, 13L, UNREGISTERED, 0L);
+        index.setStatus(slot, UNREGISTERED);
+
+        // then
+        assertEquals(slot, again);
+        assertEquals(slot, index.find(key));
+        assertEquals(AccountIndex.ABSENT, index.find(AccountIndex.toKey("1000000013")));
+        assertEquals(AccountIndex.ABSENT, index.find(-1L));
+        assertEquals(key, index.key(slot));
+        assertEquals(7L, index.id(slot));
+        assertEquals(12L, index.ownerId(slot));
+        assertEquals(UNREGISTERED, index.status(slot));
+        assertEquals(1_000L, index.balance(slot));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compareAndSetBalance_failsOnStaleValue() {
+        // given
+        AccountIndex index = new AccountIndex(16);
+        int slot = index.putIfAbsent(1000000012L, 7L, 12L, IN_USE, 1_000L);
+
+        // when
+        boolean first = index.compareAndSetBalance(slot, 1_000L, 700L);
+        boolean stale = index.compareAndSetBalance(slot, 1_000L, 400L);
+        long canceled = index.addBalance(slot, 300L);
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(stale).isFalse();
+        assertEquals(1_000L, canceled);
+    }
+
+    @Test
+    void putIfAbsent_failsWhenFull() {
+        // given
+        AccountIndex index = new AccountIndex(3);
+        for (int i = 0; i < 3; i++) {
+            index.putIfAbsent(1000000000L + i, i, i, IN_USE, 0L);
+        }
+
+        // when
+        int slot = index.putIfAbsent(1000000099L, 99L, 99L, IN_USE, 0L);
+
+        // then
+        assertEquals(AccountIndex.FULL, slot);
+        assertEquals(AccountIndex.ABSENT, index.find(1000000099L));
+        assertEquals(3, index.maxSize());
+        assertEquals(4, index.capacity());
+    }
+
+    @Test
+    void putIfAbsent_concurrentlyFindsEveryAccount() throws Exception {
+        // given
+        int accounts = 10_000;
+        AccountIndex index = new AccountIndex(accounts);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Set<Integer>>> futures = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                Set<Integer> slots = new HashSet<>();
+                for (int i = 0; i < accounts; i++) {
+                    slots.add(index.putIfAbsent(1000000000L + i, i, i, IN_USE, i));
+                }
+                return slots;
+            }));
+        }
+        List<Set<Integer>> slots = new ArrayList<>();
+        for (Future<Set<Integer>> future : futures) {
+            slots.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(accounts, index.size());
+        assertThat(slots).allSatisfy(set -> assertEquals(slots.get(0), set));
+        for (int i = 0; i < accounts; i++) {
+            int slot = index.find(1000000000L + i);
+            assertEquals(i, index.id(slot));
+            assertEquals(i, index.balance(slot));
+        }
+    }
+
+    @Test
+    void rejectExpectedAccountsOverBufferLimit() {
+        // when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new AccountIndex(AccountIndex.MAX_EXPECTED_ACCOUNTS + 1));
+
+        // then
+        // int 로 계산한 버퍼 크기가 넘쳐서 엉뚱한 크기로 만들어지지 않는다.
+        assertThat(exception.getMessage()).contains(String.valueOf(AccountIndex.MAX_EXPECTED_ACCOUNTS));
+        assertThrows(IllegalArgumentException.class, () -> new AccountIndex(0));
+    }
+}
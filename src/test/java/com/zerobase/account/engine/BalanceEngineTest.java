@@ -0,0 +1,182 @@
+package com.zerobase.account.engine;
+
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.SnowflakeTransactionIdGenerator;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+import static com.zerobase.account.type.ErrorCode.ACCOUNT_INDEX_FULL;
+import static com.zerobase.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineTest {
+
+    private static final String ACCOUNT_NUMBER = "1000000012";
+
+    @Mock
+    private BalancePersister persister;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void use_neverOverdrawsUnderContention() throws Exception {
+        // given
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(new AccountSnapshot(7L, ACCOUNT_NUMBER, 12L, IN_USE, 1_000L, 0L)));
+        BalanceEngine engine = engine();
+        engine.start();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                int succeeded = 0;
+                for (int j = 0; j < 50; j++) {
+                    try {
+                        engine.use(ACCOUNT_NUMBER, 10L);
+                        succeeded++;
+                    } catch (AccountException e) {
+                        assertEquals(AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        int succeeded = 0;
+        for (Future<Integer> future : futures) {
+            succeeded += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        engine.close();
+
+        // then
+        assertEquals(100, succeeded);
+        assertThat(engine.getBalance(ACCOUNT_NUMBER)).contains(0L);
+    }
+
+    @Test
+    void use_interruptedWhileAwaitingDurable_stillSucceeds() throws Exception {
+        // given
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(new AccountSnapshot(7L, ACCOUNT_NUMBER, 12L, IN_USE, 1_000L, 0L)));
+        BalanceEngine engine = engine();
+        engine.start();
+
+        // when
+        Thread.currentThread().interrupt();
+        JournalRecord used;
+        boolean interrupted;
+        try {
+            used = engine.use(ACCOUNT_NUMBER, 300L);
+        } finally {
+            interrupted = Thread.interrupted();
+        }
+        engine.close();
+
+        // then
+        // 저널에 들어간 기록은 성공으로 답하고, 인터럽트 상태는 남겨둔다.
+        assertThat(interrupted).isTrue();
+        assertEquals(700L, used.getBalanceSnapshot());
+        assertThat(engine.getBalance(ACCOUNT_NUMBER)).contains(700L);
+    }
+
+    @Test
+    void use_failsWithIndexFull() throws Exception {
+        // given
+        String otherAccountNumber = "1000000013";
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(new AccountSnapshot(7L, ACCOUNT_NUMBER, 12L, IN_USE, 1_000L, 0L)));
+        given(accountRepository.findSnapshotByAccountNumber(otherAccountNumber))
+                .willReturn(Optional.of(new AccountSnapshot(8L, otherAccountNumber, 12L, IN_USE, 1_000L, 0L)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 계좌 하나만 올릴 수 있다.
+        BalanceEngine engine = new BalanceEngine(new AccountIndex(1), new BalanceJournal(directory, 4096),
+                persister, accountRepository, new SnowflakeTransactionIdGenerator(1L), transactionIdFilter,
+                meterRegistry, 100, 10L);
+        engine.start();
+        engine.use(ACCOUNT_NUMBER, 100L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> engine.use(otherAccountNumber, 100L));
+        engine.close();
+
+        // then
+        assertEquals(ACCOUNT_INDEX_FULL, exception.getErrorCode());
+        assertEquals(1.0, meterRegistry.counter("account.engine.index.full").count());
+        assertThat(engine.getBalance(ACCOUNT_NUMBER)).contains(900L);
+    }
+
+    @Test
+    void start_replaysJournalNotYetPersisted() throws Exception {
+        // given
+        given(accountRepository.findSnapshotByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(new AccountSnapshot(7L, ACCOUNT_NUMBER, 12L, IN_USE, 1_000L, 0L)));
+        // DB 에 저장하지 못한 채로 죽는다.
+        given(persister.persist(anyList()))
+                .willThrow(new IllegalStateException("database is down"));
+        BalanceEngine crashed = engine();
+        crashed.start();
+        JournalRecord used = crashed.use(ACCOUNT_NUMBER, 300L);
+        JournalRecord canceled = crashed.cancel(ACCOUNT_NUMBER, 300L);
+        crashed.close();
+
+        // when
+        BalancePersister recovering = mock(BalancePersister.class);
+        BalanceEngine restarted = new BalanceEngine(new AccountIndex(16), new BalanceJournal(directory, 4096),
+                recovering, accountRepository, new SnowflakeTransactionIdGenerator(1L), transactionIdFilter,
+                new SimpleMeterRegistry(), 100, 10L);
+        restarted.start();
+        restarted.close();
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<JournalRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(recovering, atLeastOnce()).persist(captor.capture());
+        assertThat(captor.getAllValues().stream().flatMap(List::stream).collect(Collectors.toList()))
+                .containsExactly(used, canceled);
+        assertEquals(700L, used.getBalanceSnapshot());
+        assertEquals(1_000L, canceled.getBalanceSnapshot());
+    }
+
+    private BalanceEngine engine() {
+        return new BalanceEngine(new AccountIndex(16), new BalanceJournal(directory, 4096), persister,
+                accountRepository, new SnowflakeTransactionIdGenerator(1L), transactionIdFilter,
+                new SimpleMeterRegistry(), 100, 10L);
+    }
+}
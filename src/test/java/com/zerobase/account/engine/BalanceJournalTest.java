@@ -0,0 +1,105 @@
+package com.zerobase.account.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.zerobase.account.type.TransactionType.CANCEL;
+import static com.zerobase.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceJournalTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_replaysRecordsAfterCheckpoint() throws Exception {
+        // given
+        BalanceJournal journal = new BalanceJournal(directory, SEGMENT_SIZE);
+        journal.open();
+        long checkpoint = 0L;
+        for (int i = 0; i < 10; i++) {
+            long offset = journal.append(record(i));
+            journal.awaitDurable(offset);
+            if (i == 4) {
+                checkpoint = offset;
+            }
+        }
+        journal.checkpoint(checkpoint);
+        journal.close();
+        long checkpointOffset = checkpoint;
+
+        // when
+        BalanceJournal reopened = new BalanceJournal(directory, SEGMENT_SIZE);
+        List<BalanceJournal.Entry> entries = reopened.open();
+        reopened.close();
+
+        // then
+        assertThat(transactionIds(entries)).containsExactly("tx-5", "tx-6", "tx-7", "tx-8", "tx-9");
+        assertThat(entries.get(0).getRecord()).isEqualTo(record(5));
+        // checkpoint 이전 세그먼트는 지웠다.
+        assertThat(segments()).allMatch(start -> start + SEGMENT_SIZE > checkpointOffset);
+    }
+
+    @Test
+    void open_stopsAtTornRecordAndOverwritesIt() throws Exception {
+        // given
+        BalanceJournal journal = new BalanceJournal(directory, SEGMENT_SIZE * 4);
+        journal.open();
+        journal.append(record(0));
+        long secondEnd = journal.append(record(1));
+        journal.awaitDurable(journal.append(record(2)));
+        journal.close();
+        // 세 번째 기록을 쓰다가 죽은 것처럼 내용을 깨뜨린다.
+        try (FileChannel segment = FileChannel.open(directory.resolve(String.format("journal-%020d.log", 0)),
+                StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), secondEnd + 12);
+        }
+
+        // when
+        BalanceJournal recovered = new BalanceJournal(directory, SEGMENT_SIZE * 4);
+        List<BalanceJournal.Entry> afterCrash = recovered.open();
+        recovered.awaitDurable(recovered.append(record(3)));
+        recovered.close();
+
+        BalanceJournal reopened = new BalanceJournal(directory, SEGMENT_SIZE * 4);
+        List<BalanceJournal.Entry> afterRestart = reopened.open();
+        reopened.close();
+
+        // then
+        assertThat(transactionIds(afterCrash)).containsExactly("tx-0", "tx-1");
+        assertThat(transactionIds(afterRestart)).containsExactly("tx-0", "tx-1", "tx-3");
+    }
+
+    private List<Long> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("journal-"))
+                    .map(name -> Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> transactionIds(List<BalanceJournal.Entry> entries) {
+        return entries.stream()
+                .map(entry -> entry.getRecord().getTransactionId())
+                .collect(Collectors.toList());
+    }
+
+    private static JournalRecord record(int i) {
+        return new JournalRecord(i % 2 == 0 ? USE : CANCEL, 7L, "1000000012", 100L + i, 10_000L - i,
+                "tx-" + i, LocalDateTime.of(2023, 3, 1, 12, 0, i, 123_456_789));
+    }
+}
@@ -0,0 +1,96 @@
+package com.zerobase.account.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionExporterTest {
+
+    private SingleConnectionDataSource dataSource;
+    private TransactionExporter transactionExporter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:export_" + System.nanoTime(), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id bigint primary key, account_number varchar(255))");
+        jdbcTemplate.execute("create table transaction (id bigint primary key, account_id bigint,"
+                + " transaction_id varchar(255), transaction_type varchar(255),"
+                + " transaction_result_type varchar(255), amount bigint, balance_snapshot bigint,"
+                + " transacted_at timestamp)");
+        jdbcTemplate.update("insert into account values (1, '1000000000')");
+        jdbcTemplate.update("insert into transaction values"
+                + " (1, 1, 'before', 'USE', 'SUCCESS', 100, 900, '2023-02-28 23:59:59'),"
+                + " (2, 1, 'first', 'USE', 'SUCCESS', 100, 900, '2023-03-01 00:00:00'),"
+                + " (3, 1, 'se,\"cond\"', 'CANCEL', 'FAIL', 100, null, '2023-03-02 12:30:00'),"
+                + " (4, 1, 'after', 'USE', 'SUCCESS', 100, 800, '2023-03-03 00:00:00')");
+
+        transactionExporter = new TransactionExporter(jdbcTemplate, new ObjectMapper(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        long count = transactionExporter.export(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 2),
+                ExportFormat.NDJSON, outputStream);
+
+        // then
+        assertEquals(2L, count);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8.name()).split("\n")).containsExactly(
+                "{\"transactionId\":\"first\",\"accountNumber\":\"1000000000\",\"transactionType\":\"USE\","
+                        + "\"transactionResult\":\"SUCCESS\",\"amount\":100,\"balanceSnapshot\":900,"
+                        + "\"transactedAt\":\"2023-03-01T00:00\"}",
+                "{\"transactionId\":\"se,\\\"cond\\\"\",\"accountNumber\":\"1000000000\",\"transactionType\":\"CANCEL\","
+                        + "\"transactionResult\":\"FAIL\",\"amount\":100,\"balanceSnapshot\":null,"
+                        + "\"transactedAt\":\"2023-03-02T12:30\"}");
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        // given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        long count = transactionExporter.export(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 2),
+                ExportFormat.CSV, outputStream);
+
+        // then
+        assertEquals(2L, count);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8.name())).isEqualTo(
+                "transactionId,accountNumber,transactionType,transactionResult,amount,balanceSnapshot,transactedAt\r\n"
+                        + "first,1000000000,USE,SUCCESS,100,900,2023-03-01T00:00\r\n"
+                        + "\"se,\"\"cond\"\"\",1000000000,CANCEL,FAIL,100,,2023-03-02T12:30\r\n");
+    }
+
+    @Test
+    void invalidRange() {
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionExporter.export(LocalDate.of(2023, 3, 2), LocalDate.of(2023, 3, 1),
+                        ExportFormat.CSV, new ByteArrayOutputStream()));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, accountException.getErrorCode());
+    }
+}
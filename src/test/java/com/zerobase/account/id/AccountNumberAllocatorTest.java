@@ -0,0 +1,96 @@
+package com.zerobase.account.id;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountNumberAllocatorTest {
+
+    @Test
+    void handOutWithinBlockAndReserveNextBlock() {
+        // given
+        AtomicInteger reserveCount = new AtomicInteger();
+        AccountNumberAllocator allocator = new AccountNumberAllocator(blockSize -> {
+            reserveCount.incrementAndGet();
+            // 다른 서버가 중간 블록을 가져간 상황
+            return reserveCount.get() == 1 ? 1_000_000_000L : 1_000_000_010L;
+        }, 3);
+
+        // when
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accountNumbers.add(allocator.nextAccountNumber());
+        }
+
+        // then
+        assertThat(accountNumbers).containsExactly(
+                "1000000000", "1000000001", "1000000002", "1000000010", "1000000011");
+        assertEquals(2, reserveCount.get());
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws Exception {
+        // given
+        AtomicLong sequence = new AtomicLong(AccountNumberAllocator.FIRST_ACCOUNT_NUMBER);
+        AtomicInteger reserveCount = new AtomicInteger();
+        AccountNumberAllocator allocator = new AccountNumberAllocator(blockSize -> {
+            reserveCount.incrementAndGet();
+            return sequence.getAndAdd(blockSize);
+        }, 100);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                List<Long> accountNumbers = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    accountNumbers.add(allocator.nextLong());
+                }
+                return accountNumbers;
+            }));
+        }
+        Set<Long> all = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            all.addAll(future.get());
+        }
+        executorService.shutdown();
+
+        // then
+        assertThat(all).hasSize(8 * 10_000);
+        assertEquals(8 * 10_000 / 100, reserveCount.get());
+    }
+
+    @Test
+    void stopAtTenDigits() {
+        // given
+        AtomicLong sequence = new AtomicLong(AccountNumberAllocator.MAX_ACCOUNT_NUMBER - 1);
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(blockSize -> sequence.getAndAdd(blockSize), 100);
+
+        // when
+        String beforeLast = allocator.nextAccountNumber();
+        String last = allocator.nextAccountNumber();
+        AccountException accountException = assertThrows(AccountException.class,
+                allocator::nextAccountNumber);
+
+        // then
+        assertEquals("9999999998", beforeLast);
+        assertEquals("9999999999", last);
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, accountException.getErrorCode());
+    }
+}
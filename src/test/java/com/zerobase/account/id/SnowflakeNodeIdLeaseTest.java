@@ -0,0 +1,112 @@
+package com.zerobase.account.id;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnowflakeNodeIdLeaseTest {
+
+    private static final int REDIS_PORT = 6401;
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(REDIS_PORT);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + REDIS_PORT);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        redissonClient.getKeys().deleteByPattern(SnowflakeNodeIdLease.KEY_PREFIX + "*");
+    }
+
+    @Test
+    void acquire_givesEachServerADifferentNodeId() {
+        // given
+        SnowflakeNodeIdLease first = new SnowflakeNodeIdLease(redissonClient, 30);
+        SnowflakeNodeIdLease second = new SnowflakeNodeIdLease(redissonClient, 30);
+
+        // when
+        long firstNodeId = first.acquire(null);
+        long secondNodeId = second.acquire(null);
+
+        // then
+        assertThat(firstNodeId).isNotEqualTo(secondNodeId);
+        assertThat(first.isHeld()).isTrue();
+        assertThat(second.isHeld()).isTrue();
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void acquire_failsWhenRequestedNodeIdIsTaken() {
+        // given
+        SnowflakeNodeIdLease first = new SnowflakeNodeIdLease(redissonClient, 30);
+        SnowflakeNodeIdLease second = new SnowflakeNodeIdLease(redissonClient, 30);
+        first.acquire(5L);
+
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> second.acquire(5L));
+
+        // then
+        assertThat(exception.getMessage()).contains("5");
+        assertThat(second.isHeld()).isFalse();
+        first.close();
+    }
+
+    @Test
+    void close_releasesNodeId() {
+        // given
+        SnowflakeNodeIdLease first = new SnowflakeNodeIdLease(redissonClient, 30);
+        SnowflakeNodeIdLease second = new SnowflakeNodeIdLease(redissonClient, 30);
+        first.acquire(5L);
+
+        // when
+        first.close();
+
+        // then
+        assertThat(first.isHeld()).isFalse();
+        assertEquals(5L, second.acquire(5L));
+        second.close();
+    }
+
+    @Test
+    void renew_detectsLostLease() throws Exception {
+        // given
+        SnowflakeNodeIdLease lease = new SnowflakeNodeIdLease(redissonClient, 1);
+        long nodeId = lease.acquire(null);
+
+        // when
+        // 멈춘 사이 임대가 풀리고 다른 서버가 가져갔다.
+        redissonClient.getBucket(SnowflakeNodeIdLease.KEY_PREFIX + nodeId,
+                StringCodec.INSTANCE).set("other");
+        Thread.sleep(1_000);
+
+        // then
+        assertThat(lease.isHeld()).isFalse();
+        lease.close();
+        assertEquals("other", redissonClient.getBucket(SnowflakeNodeIdLease.KEY_PREFIX + nodeId,
+                StringCodec.INSTANCE).get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.zerobase.account.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    private final SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7L);
+
+    @Test
+    void idsAreOrderedAndFixedLength() {
+        // when
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        // then
+        assertThat(ids).allMatch(id -> id.length() == 11);
+        assertThat(ids).isSorted();
+        assertThat(new HashSet<>(ids)).hasSize(ids.size());
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws Exception {
+        // given
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < 8; t++) {
+            futures.add(executorService.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(generator.nextLong());
+                }
+                return ids;
+            }));
+        }
+        Set<Long> all = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            all.addAll(future.get());
+        }
+        executorService.shutdown();
+
+        // then
+        assertThat(all).hasSize(8 * 20_000);
+        assertThat(all).allMatch(id -> SnowflakeTransactionIdGenerator.nodeIdOf(id) == 7L);
+    }
+
+    @Test
+    void encodeKeepsNumericOrder() {
+        // then
+        assertThat(SnowflakeTransactionIdGenerator.encode(0L)).isEqualTo("00000000000");
+        assertThat(SnowflakeTransactionIdGenerator.encode(61L)).isEqualTo("0000000000z");
+        assertThat(SnowflakeTransactionIdGenerator.encode(62L)).isEqualTo("00000000010");
+        assertThat(SnowflakeTransactionIdGenerator.encode(Long.MAX_VALUE))
+                .isLessThan(SnowflakeTransactionIdGenerator.encode(-1L));
+    }
+
+    @Test
+    void decodeIsInverseOfEncode() {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7L);
+        long id = generator.nextLong();
+
+        // when
+        long decoded = SnowflakeTransactionIdGenerator.decode(SnowflakeTransactionIdGenerator.encode(id));
+
+        // then
+        assertEquals(id, decoded);
+        assertEquals(-1L, SnowflakeTransactionIdGenerator.decode("not-an-id"));
+        assertEquals(-1L, SnowflakeTransactionIdGenerator.decode("zzzzzzzzzzz"));
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024L));
+    }
+}
@@ -0,0 +1,142 @@
+package com.zerobase.account.id;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionIdFilterTest {
+
+    private static final long OWN_NODE = 1L;
+    private static final long OTHER_NODE = 2L;
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionIdFilter transactionIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:transaction_id_filter_" + System.nanoTime(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table transaction (transaction_id varchar(255))");
+
+        meterRegistry = new SimpleMeterRegistry();
+        transactionIdFilter = new TransactionIdFilter(jdbcTemplate, new SnowflakeTransactionIdGenerator(OWN_NODE),
+                () -> true, meterRegistry, 1000, 0.0001, 60, 600, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void beforeRefresh_onlyRejectsImpossibleIds() {
+        // given
+        long now = System.currentTimeMillis();
+
+        // when
+        // then
+        assertThat(transactionIdFilter.mightExist("not-a-transaction-id")).isFalse();
+        assertThat(transactionIdFilter.mightExist(id(now + HOUR, OTHER_NODE, 0))).isFalse();
+        assertThat(transactionIdFilter.mightExist(id(now - HOUR, OTHER_NODE, 0))).isTrue();
+        assertThat(transactionIdFilter.mightExist(UUID.randomUUID().toString().replace("-", ""))).isTrue();
+    }
+
+    @Test
+    void refresh_answersIdsOlderThanMarginFromMemory() {
+        // given
+        long now = System.currentTimeMillis();
+        String issued = id(now - HOUR, OTHER_NODE, 0);
+        jdbcTemplate.update("insert into transaction values (?)", issued);
+
+        // when
+        transactionIdFilter.refresh();
+
+        // then
+        assertThat(transactionIdFilter.mightExist(issued)).isTrue();
+        assertThat(transactionIdFilter.mightExist(id(now - HOUR, OTHER_NODE, 1))).isFalse();
+        // 다른 서버가 최근에 만든 ID 는 아직 읽지 않았을 수 있다.
+        assertThat(transactionIdFilter.mightExist(id(now, OTHER_NODE, 1))).isTrue();
+    }
+
+    @Test
+    void add_makesOwnIdsAuthoritative() {
+        // given
+        long now = System.currentTimeMillis();
+        String added = id(now, OWN_NODE, 0);
+        transactionIdFilter.refresh();
+
+        // when
+        transactionIdFilter.add(added);
+
+        // then
+        assertThat(transactionIdFilter.mightExist(added)).isTrue();
+        assertThat(transactionIdFilter.mightExist(id(now, OWN_NODE, 1))).isFalse();
+    }
+
+    @Test
+    void sharedNodeId_looksUpRecentIdsInDatabase() {
+        // given
+        // 두 서버가 같은 노드 ID 로 만든다. (임대하지 못한 노드 ID)
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(0L);
+        TransactionIdFilter first = new TransactionIdFilter(jdbcTemplate, generator,
+                () -> false, new SimpleMeterRegistry(), 1000, 0.0001, 60, 600, 100);
+        SimpleMeterRegistry secondRegistry = new SimpleMeterRegistry();
+        TransactionIdFilter second = new TransactionIdFilter(jdbcTemplate, new SnowflakeTransactionIdGenerator(0L),
+                () -> false, secondRegistry, 1000, 0.0001, 60, 600, 100);
+        first.refresh();
+        second.refresh();
+
+        // when
+        String issued = generator.nextId();
+        first.add(issued);
+        jdbcTemplate.update("insert into transaction values (?)", issued);
+
+        // then
+        // 다음 refresh 전이라도 다른 서버가 만든 ID 를 없다고 하지 않는다.
+        assertThat(first.mightExist(issued)).isTrue();
+        assertThat(second.mightExist(issued)).isTrue();
+        assertEquals(1.0, secondRegistry.get("transaction.id.filter.lookups")
+                .tag("result", "unknown").counter().count());
+    }
+
+    @Test
+    void recordNotFound_countsOnlyTrustedLookups() {
+        // given
+        long now = System.currentTimeMillis();
+        String trusted = id(now, OWN_NODE, 0);
+        String recent = id(now, OTHER_NODE, 0);
+        transactionIdFilter.refresh();
+        transactionIdFilter.add(trusted);
+        transactionIdFilter.mightExist(trusted);
+        transactionIdFilter.mightExist(recent);
+
+        // when
+        transactionIdFilter.recordNotFound(trusted);
+        transactionIdFilter.recordNotFound(recent);
+
+        // then
+        assertEquals(1.0, meterRegistry.get("transaction.id.filter.false.positives").counter().count());
+        assertEquals(1.0, meterRegistry.get("transaction.id.filter.fpp.observed").gauge().value());
+        assertEquals(1.0, meterRegistry.get("transaction.id.filter.insertions").gauge().value());
+        assertThat(meterRegistry.get("transaction.id.filter.memory").gauge().value()).isPositive();
+    }
+
+    private static String id(long timestamp, long nodeId, long sequence) {
+        return SnowflakeTransactionIdGenerator.encode(
+                ((timestamp - SnowflakeTransactionIdGenerator.EPOCH)
+                        << (SnowflakeTransactionIdGenerator.NODE_BITS + SnowflakeTransactionIdGenerator.SEQUENCE_BITS))
+                        | (nodeId << SnowflakeTransactionIdGenerator.SEQUENCE_BITS)
+                        | sequence);
+    }
+}
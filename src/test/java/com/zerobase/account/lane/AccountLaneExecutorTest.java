@@ -0,0 +1,191 @@
+package com.zerobase.account.lane;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountLaneExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountLaneExecutor laneExecutor = new AccountLaneExecutor(4, 128, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.shutdown();
+    }
+
+    // execute 는 Throwable 을 던지므로 Callable 안에서 쓸 수 있게 감싼다.
+    private static <T> T submit(AccountLaneExecutor executor, String accountNumber, long maxWaitMillis,
+                                AccountLaneExecutor.Task<T> task) throws Exception {
+        try {
+            return executor.execute(accountNumber, maxWaitMillis, task);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    @Test
+    void sameAccountRunsInOrderOnOneLane() throws Throwable {
+        // given
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Integer> executed = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            futures.add(executorService.submit(() -> submit(laneExecutor, "1000000000", 5000L, () -> {
+                // lane 스레드 하나에서만 접근하므로 동기화하지 않은 리스트에 넣어도 된다.
+                executed.add(value);
+                return Thread.currentThread().getName();
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        // then
+        int lane = laneExecutor.laneIndex("1000000000");
+        assertThat(executed).hasSize(100);
+        assertThat(futures.get(0).get()).isEqualTo("account-lane-" + lane);
+        assertThat(laneExecutor.completed(lane)).isEqualTo(100L);
+        assertThat(meterRegistry.get("account.lane.completed").tag("lane", String.valueOf(lane))
+                .counter().count()).isEqualTo(100.0);
+    }
+
+    @Test
+    void rethrowTaskException() {
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> laneExecutor.execute("1000000000", 5000L, () -> {
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+        // then
+        assertThat(ErrorCode.AMOUNT_EXCEED_BALANCE).isEqualTo(exception.getErrorCode());
+    }
+
+    @Test
+    void queueFull_rejectAndExpiredTaskSkipped() throws Throwable {
+        // given
+        AccountLaneExecutor smallLaneExecutor = new AccountLaneExecutor(1, 2, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        Future<Object> running = executorService.submit(() -> submit(smallLaneExecutor, "1000000000", 5000L, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        started.await();
+        Future<Object> expired = executorService.submit(
+                () -> submit(smallLaneExecutor, "1000000000", 0L, () -> "late"));
+        while (smallLaneExecutor.queueDepth(0) < 1) {
+            Thread.sleep(1);
+        }
+        Future<Object> queued = executorService.submit(
+                () -> submit(smallLaneExecutor, "1000000000", 5000L, () -> "ok"));
+        while (smallLaneExecutor.queueDepth(0) < 2) {
+            Thread.sleep(1);
+        }
+
+        // when
+        AccountException full = assertThrows(AccountException.class,
+                () -> smallLaneExecutor.execute("1000000000", 5000L, () -> "rejected"));
+        release.countDown();
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_LOCK_QUEUE_FULL).isEqualTo(full.getErrorCode());
+        running.get();
+        assertThat(queued.get()).isEqualTo("ok");
+        Exception expiredException = assertThrows(Exception.class, expired::get);
+        assertThat(expiredException.getCause()).isInstanceOf(AccountException.class);
+        executorService.shutdown();
+        smallLaneExecutor.shutdown();
+    }
+
+    @Test
+    void interruptedWhileQueued_cancelsTask() throws Throwable {
+        // given
+        AccountLaneExecutor smallLaneExecutor = new AccountLaneExecutor(1, 2, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<Object> running = executorService.submit(() -> submit(smallLaneExecutor, "1000000000", 5000L, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        started.await();
+        Future<Object> queued = executorService.submit(() -> submit(smallLaneExecutor, "1000000000", 5000L, () -> {
+            queuedRan.set(true);
+            return null;
+        }));
+        while (smallLaneExecutor.queueDepth(0) < 1) {
+            Thread.sleep(1);
+        }
+
+        // when
+        queued.cancel(true);
+        while (smallLaneExecutor.queueDepth(0) > 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        running.get();
+
+        // then
+        assertThat(queuedRan.get()).isFalse();
+        assertThat(smallLaneExecutor.completed(0)).isEqualTo(1L);
+        executorService.shutdown();
+        smallLaneExecutor.shutdown();
+    }
+
+    @Test
+    void interruptedWhileRunning_waitsForResult() throws Throwable {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            try {
+                Object result = submit(laneExecutor, "1000000000", 5000L, () -> {
+                    started.countDown();
+                    release.await();
+                    return "done";
+                });
+                interrupted.set("done".equals(result) && Thread.currentThread().isInterrupted());
+            } catch (Exception e) {
+                interrupted.set(false);
+            }
+        });
+        caller.start();
+        started.await();
+
+        // when
+        caller.interrupt();
+        Thread.sleep(50);
+        release.countDown();
+        caller.join(5000L);
+
+        // then
+        // 실행된 작업의 결과를 받고, interrupt 상태는 그대로 남는다.
+        assertThat(interrupted.get()).isTrue();
+    }
+}
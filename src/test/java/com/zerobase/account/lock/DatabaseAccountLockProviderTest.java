@@ -0,0 +1,114 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PessimisticLockException;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseAccountLockProviderTest {
+
+    private static final LockTiming TIMING = new LockTiming(1000L, 15000L, 15000L);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Account> query;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @InjectMocks
+    private DatabaseAccountLockProvider lockProvider;
+
+    @BeforeEach
+    void setUp() {
+        given(transactionManager.getTransaction(any()))
+                .willReturn(transactionStatus);
+        given(entityManager.createQuery(anyString(), eq(Account.class)))
+                .willReturn(query);
+        given(query.setParameter(anyString(), any()))
+                .willReturn(query);
+        given(query.setLockMode(any()))
+                .willReturn(query);
+        given(query.setHint(anyString(), any()))
+                .willReturn(query);
+    }
+
+    @Test
+    void lockAndUnlock_commit() {
+        // given
+        given(query.getResultList())
+                .willReturn(Collections.emptyList());
+
+        // when
+        lockProvider.lock("1234567890", TIMING);
+        lockProvider.unlock("1234567890");
+
+        // then
+        verify(query, times(1)).setParameter("accountNumber", "1234567890");
+        verify(query, times(1)).setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        verify(query, times(1)).setHint("javax.persistence.lock.timeout", 1000L);
+        verify(transactionManager, times(1)).commit(transactionStatus);
+        verify(transactionManager, never()).rollback(any());
+    }
+
+    @Test
+    void unlock_rollbackIfRollbackOnly() {
+        // given
+        given(transactionStatus.isRollbackOnly())
+                .willReturn(true);
+
+        // when
+        lockProvider.lock("1234567890", TIMING);
+        lockProvider.unlock("1234567890");
+
+        // then
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void failGetLock() {
+        // given
+        given(query.getResultList())
+                .willThrow(new PessimisticLockException("timeout"));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("1234567890", TIMING));
+        lockProvider.unlock("1234567890");
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+    }
+}
@@ -0,0 +1,43 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalAccountLockProviderTest {
+
+    private final LocalAccountLockProvider lockProvider =
+            new LocalAccountLockProvider(new LocalAccountLock(), LockWaitPolicy.tryOnce());
+
+    private final LockTiming timing = new LockTiming(100L, 15000L, 15000L);
+
+    @Test
+    void successGetLock() {
+        assertDoesNotThrow(() -> lockProvider.lock("1234567890", timing));
+        lockProvider.unlock("1234567890");
+    }
+
+    @Test
+    void failGetLock() throws Exception {
+        // given
+        lockProvider.lock("1234567890", timing);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        // when
+        AccountException exception = executorService.submit(() ->
+                assertThrows(AccountException.class, () -> lockProvider.lock("1234567890", timing))
+        ).get();
+        executorService.shutdown();
+        lockProvider.unlock("1234567890");
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+    }
+}
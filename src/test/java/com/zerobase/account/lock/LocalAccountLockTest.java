@@ -0,0 +1,101 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalAccountLockTest {
+
+    private final LocalAccountLock localAccountLock = new LocalAccountLock();
+
+    @Test
+    void lockAndUnlock_removeEntry() throws InterruptedException {
+        // when
+        boolean first = localAccountLock.tryLock("ACLK:1", 0, TimeUnit.MILLISECONDS);
+        boolean reentrant = localAccountLock.tryLock("ACLK:1", 0, TimeUnit.MILLISECONDS);
+        localAccountLock.unlock("ACLK:1");
+        localAccountLock.unlock("ACLK:1");
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(reentrant).isTrue();
+        assertThat(localAccountLock.size()).isZero();
+    }
+
+    @Test
+    void otherThreadWaitsUntilUnlock() throws Exception {
+        // given
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        localAccountLock.tryLock("ACLK:1", 0, TimeUnit.MILLISECONDS);
+
+        // when
+        boolean failed = executorService.submit(
+                () -> localAccountLock.tryLock("ACLK:1", 10, TimeUnit.MILLISECONDS)).get();
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        Future<Boolean> waiter = executorService.submit(() -> {
+            waiting.countDown();
+            boolean acquired = localAccountLock.tryLock("ACLK:1", 1, TimeUnit.SECONDS);
+            localAccountLock.unlock("ACLK:1");
+            return acquired;
+        });
+        waiting.await();
+        localAccountLock.unlock("ACLK:1");
+
+        // then
+        assertThat(failed).isFalse();
+        assertThat(waiter.get()).isTrue();
+        executorService.shutdown();
+        assertThat(localAccountLock.size()).isZero();
+    }
+
+    @Test
+    void unlockWithoutLock_doesNotReleaseOthers() throws Exception {
+        // given
+        localAccountLock.tryLock("ACLK:1", 0, TimeUnit.MILLISECONDS);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        // when
+        executorService.submit(() -> localAccountLock.unlock("ACLK:1")).get();
+        executorService.shutdown();
+
+        // then
+        assertThat(localAccountLock.isHeldByCurrentThread("ACLK:1")).isTrue();
+        localAccountLock.unlock("ACLK:1");
+    }
+
+    @Test
+    void queueFull_rejectWithoutWaiting() throws Exception {
+        // given
+        LocalAccountLock fairLock = new LocalAccountLock(true);
+        fairLock.tryLock("ACLK:1", 1, 0, TimeUnit.MILLISECONDS);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<Boolean> waiter = executorService.submit(() -> {
+            boolean acquired = fairLock.tryLock("ACLK:1", 1, 5, TimeUnit.SECONDS);
+            fairLock.unlock("ACLK:1");
+            return acquired;
+        });
+        while (fairLock.waiters("ACLK:1") == 0) {
+            Thread.sleep(1);
+        }
+
+        // when
+        AccountException exception = executorService.submit(() -> assertThrows(AccountException.class,
+                () -> fairLock.tryLock("ACLK:1", 1, 5, TimeUnit.SECONDS))).get();
+        fairLock.unlock("ACLK:1");
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_LOCK_QUEUE_FULL).isEqualTo(exception.getErrorCode());
+        assertThat(waiter.get()).isTrue();
+        executorService.shutdown();
+    }
+}
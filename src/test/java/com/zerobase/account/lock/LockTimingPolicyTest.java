@@ -0,0 +1,94 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.aop.AccountLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockTimingPolicyTest {
+
+    private AccountLock accountLock;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        accountLock = getClass().getDeclaredMethod("lockedEndpoint").getAnnotation(AccountLock.class);
+    }
+
+    @AccountLock
+    private void lockedEndpoint() {
+    }
+
+    @Test
+    void staticTiming_useAnnotation() {
+        // given
+        LockTimingPolicy policy = new LockTimingPolicy(false);
+        recordMillis(policy, 100, 20L);
+
+        // when
+        LockTiming timing = policy.timingFor("endpoint", accountLock);
+
+        // then
+        assertThat(timing.getWaitTimeMillis()).isEqualTo(5000L);
+        assertThat(timing.getLeaseTimeMillis()).isEqualTo(15000L);
+        assertThat(timing.isRenewable()).isFalse();
+    }
+
+    @Test
+    void adaptiveTiming_useAnnotationUntilEnoughSamples() {
+        // given
+        LockTimingPolicy policy = new LockTimingPolicy(true);
+        recordMillis(policy, 10, 20L);
+
+        // when
+        LockTiming timing = policy.timingFor("endpoint", accountLock);
+
+        // then
+        assertThat(timing.getWaitTimeMillis()).isEqualTo(5000L);
+        assertThat(timing.getLeaseTimeMillis()).isEqualTo(15000L);
+    }
+
+    @Test
+    void adaptiveTiming_shrinkFromObservedHoldTime() {
+        // given
+        LockTimingPolicy policy = new LockTimingPolicy(true);
+        recordMillis(policy, 100, 500L);
+
+        // when
+        LockTiming timing = policy.timingFor("endpoint", accountLock);
+
+        // then
+        assertThat(timing.getWaitTimeMillis()).isEqualTo(4000L);
+        assertThat(timing.getLeaseTimeMillis()).isEqualTo(1500L);
+        assertThat(timing.getMaxHoldMillis()).isEqualTo(15000L);
+        assertThat(timing.isRenewable()).isTrue();
+        assertThat(policy.timingFor("other", accountLock).getLeaseTimeMillis()).isEqualTo(15000L);
+    }
+
+    @Test
+    void adaptiveTiming_keepMinimumAndAnnotationLimit() {
+        // given
+        LockTimingPolicy fast = new LockTimingPolicy(true);
+        recordMillis(fast, 100, 1L);
+        LockTimingPolicy slow = new LockTimingPolicy(true);
+        recordMillis(slow, 100, 10_000L);
+
+        // when
+        LockTiming fastTiming = fast.timingFor("endpoint", accountLock);
+        LockTiming slowTiming = slow.timingFor("endpoint", accountLock);
+
+        // then
+        assertThat(fastTiming.getWaitTimeMillis()).isEqualTo(100L);
+        assertThat(fastTiming.getLeaseTimeMillis()).isEqualTo(1000L);
+        assertThat(slowTiming.getWaitTimeMillis()).isEqualTo(5000L);
+        assertThat(slowTiming.getLeaseTimeMillis()).isEqualTo(15000L);
+    }
+
+    private void recordMillis(LockTimingPolicy policy, int times, long millis) {
+        for (int i = 0; i < times; i++) {
+            policy.record("endpoint", TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
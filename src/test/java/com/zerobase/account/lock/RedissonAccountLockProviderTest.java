@@ -0,0 +1,259 @@
+package com.zerobase.account.lock;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedissonAccountLockProviderTest {
+
+    private static final LockTiming TIMING = new LockTiming(1000L, 15000L, 15000L);
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RLock rLock;
+
+    @Spy
+    private LocalAccountLock localAccountLock = new LocalAccountLock();
+
+    @Spy
+    private LockWaitPolicy waitPolicy = LockWaitPolicy.tryOnce();
+
+    @Mock
+    private LeaseWatchdog leaseWatchdog;
+
+    @InjectMocks
+    private RedissonAccountLockProvider lockProvider;
+
+    @Test
+    void successGetLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        // when
+        // then
+        assertDoesNotThrow(() -> lockProvider.lock("123", TIMING));
+
+    }
+
+    @Test
+    void failGetLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+        // when
+        // then
+
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("123", TIMING));
+
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+
+    }
+
+    @Test
+    void failGetLock_releaseLocalLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        // when
+        assertThrows(AccountException.class, () -> lockProvider.lock("123", TIMING));
+
+        // then
+        assertThat(localAccountLock.isHeldByCurrentThread("ACLK:123")).isFalse();
+    }
+
+    @Test
+    void localLockFail_doNotCallRedis() throws Exception {
+        // given
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executorService.submit(() -> {
+            localAccountLock.tryLock("ACLK:123", 1, TimeUnit.SECONDS);
+            locked.countDown();
+            release.await();
+            localAccountLock.unlock("ACLK:123");
+            return null;
+        });
+        locked.await();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("123", TIMING));
+        release.countDown();
+        holder.get();
+        executorService.shutdown();
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+        verify(redissonClient, never()).getLock(anyString());
+    }
+
+    @Test
+    void sameNodeContenders_reachRedisOneByOne() throws Exception {
+        // given
+        AtomicInteger redisHolders = new AtomicInteger();
+        AtomicInteger maxRedisHolders = new AtomicInteger();
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willAnswer(invocation -> {
+                    maxRedisHolders.accumulateAndGet(redisHolders.incrementAndGet(), Math::max);
+                    return true;
+                });
+        willAnswer(invocation -> redisHolders.decrementAndGet())
+                .given(rLock).unlock();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            executorService.submit(() -> {
+                lockProvider.lock("123", TIMING);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lockProvider.unlock("123");
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        // then
+        verify(rLock, times(20)).tryLock(anyLong(), anyLong(), any());
+        assertThat(maxRedisHolders.get()).isEqualTo(1);
+    }
+
+    @Test
+    void queuePolicy_useFairLock() throws InterruptedException {
+        // given
+        RedissonAccountLockProvider queueProvider = new RedissonAccountLockProvider(
+                redissonClient, new LocalAccountLock(true), LockWaitPolicy.queue(4), leaseWatchdog);
+        given(redissonClient.getFairLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        // when
+        queueProvider.lock("123", TIMING);
+        queueProvider.unlock("123");
+
+        // then
+        verify(redissonClient, times(2)).getFairLock("ACLK:123");
+        verify(redissonClient, never()).getLock(anyString());
+        verify(rLock, times(1)).unlock();
+    }
+
+    @Test
+    void watchLeaseWhileLocked() throws InterruptedException {
+        // given
+        LockTiming renewable = new LockTiming(1000L, 1000L, 15000L);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        // when
+        lockProvider.lock("123", renewable);
+        lockProvider.unlock("123");
+
+        // then
+        verify(rLock, times(1)).tryLock(anyLong(), eq(TimeUnit.MILLISECONDS.toNanos(1000L)), eq(TimeUnit.NANOSECONDS));
+        verify(leaseWatchdog, times(1)).watch("ACLK:123", renewable);
+        verify(leaseWatchdog, times(1)).stop("ACLK:123");
+    }
+
+    @Test
+    void redisError_failAndReleaseLocalLock() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new RedisConnectionException("connection refused"));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("123", TIMING));
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+        assertThat(localAccountLock.isHeldByCurrentThread("ACLK:123")).isFalse();
+    }
+
+    @Test
+    void interrupted_failAndKeepInterruptFlag() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new InterruptedException());
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockProvider.lock("123", TIMING));
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(localAccountLock.isHeldByCurrentThread("ACLK:123")).isFalse();
+    }
+
+    @Test
+    void unlockAfterLeaseExpired_doNotThrow() throws InterruptedException {
+        // given
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        willThrow(new IllegalMonitorStateException("attempt to unlock lock, not locked by current thread"))
+                .given(rLock).unlock();
+        lockProvider.lock("123", TIMING);
+
+        // when
+        // then
+        // commit 뒤에 임대가 끝난 것을 알게 되어도 500 으로 응답하지 않는다.
+        assertDoesNotThrow(() -> lockProvider.unlock("123"));
+        assertThat(localAccountLock.isHeldByCurrentThread("ACLK:123")).isFalse();
+    }
+}
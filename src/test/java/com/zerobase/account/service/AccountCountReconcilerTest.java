@@ -0,0 +1,58 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.repository.AccountUserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCountReconcilerTest {
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @InjectMocks
+    private AccountCountReconciler accountCountReconciler;
+
+    @Test
+    void rebuildOnlyMismatchedUsers() {
+        // given
+        given(accountUserRepository.findIdsWithMismatchedAccountCount())
+                .willReturn(Arrays.asList(1L, 3L));
+        given(accountUserRepository.rebuildAccountCount(any()))
+                .willReturn(2);
+
+        // when
+        int rebuilt = accountCountReconciler.reconcile();
+
+        // then
+        assertEquals(2, rebuilt);
+        verify(accountUserRepository, times(1)).rebuildAccountCount(Arrays.asList(1L, 3L));
+    }
+
+    @Test
+    void nothingToRebuild() {
+        // given
+        given(accountUserRepository.findIdsWithMismatchedAccountCount())
+                .willReturn(Collections.emptyList());
+
+        // when
+        int rebuilt = accountCountReconciler.reconcile();
+
+        // then
+        assertEquals(0, rebuilt);
+        verify(accountUserRepository, never()).rebuildAccountCount(any());
+    }
+}
@@ -0,0 +1,112 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.domain.AccountUser;
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.AccountListVersion;
+import com.zerobase.account.repository.AccountUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AccountUser 를 2차 캐시에서 읽어서 사용자 조회 SQL 이 빠지는지 확인한다.
+ */
+// TransactionServiceSqlCountTest 와 같은 설정이라 컨텍스트를 함께 쓴다.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.redis.port=6393",
+        "spring.datasource.url=jdbc:h2:mem:sql-count"
+})
+class AccountServiceSqlCountTest {
+
+    private static final long USER_ID = 3L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // 캐시를 채워둔다.
+        accountService.getAccountsByUserId(USER_ID);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAccountsByUserId_userFromSecondLevelCache() {
+        // given
+        double hitsBefore = cacheHits();
+
+        // when
+        accountService.getAccountsByUserId(USER_ID);
+
+        // then
+        // 계좌 목록 조회만 나간다.
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertTrue(cacheHits() > hitsBefore);
+    }
+
+    @Test
+    void createAccount_keepsCachedUserUpToDate() {
+        // given
+        accountService.createAccount(USER_ID, 0L);
+        statistics.clear();
+
+        // when
+        List<AccountDto> accounts = accountService.getAccountsByUserId(USER_ID);
+        AccountUser accountUser = accountUserRepository.findById(USER_ID).get();
+
+        // then
+        // 계좌 수 변경이 캐시 영역 전체를 비우지 않고 해당 항목만 갱신한다.
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+        assertEquals(accounts.size(), accountUser.getAccountCount());
+    }
+
+    @Test
+    void getAccountListVersion_singleAggregateQuery() {
+        // given
+        int accounts = accountService.getAccountsByUserId(USER_ID).size();
+        statistics.clear();
+
+        // when
+        AccountListVersion version = accountService.getAccountListVersion(USER_ID).get();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(accounts, version.getCount());
+        assertTrue(version.getVersionSum() >= 0);
+        // lock 모드에서는 원장/슬롯을 조회하지 않는다.
+        assertEquals(0L, version.getModeVersion());
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("region", AccountUser.CACHE_REGION)
+                .tag("result", "hit")
+                .functionCounter().count();
+    }
+}
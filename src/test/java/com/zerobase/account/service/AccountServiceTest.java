@@ -1,11 +1,17 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.cache.NegativeCache;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.domain.AccountUser;
 import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.AccountListVersion;
+import com.zerobase.account.engine.BalanceEngine;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.AccountNumberAllocator;
 import com.zerobase.account.repository.AccountRepository;
 import com.zerobase.account.repository.AccountUserRepository;
+import com.zerobase.account.type.TransactionMode;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +19,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +36,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -37,21 +51,45 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private NegativeCache<Long> missingAccountUserCache;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
+    @Mock
+    private SplitBalanceService splitBalanceService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private AccountService accountService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     void createAccountSuccess() {
         // given
         AccountUser accountUser = AccountUser.builder()
-                .name("Pobi").build();
+                .name("Pobi")
+                .accountCount(1).build();
         accountUser.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012").build()));
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -68,19 +106,21 @@ class AccountServiceTest {
 
         assertThat(12L).isEqualTo(accountDto.getUserId());
         assertThat("1000000013").isEqualTo(captor.getValue().getAccountNumber());
+        assertEquals(2, accountUser.getAccountCount());
     }
 
     @Test
     void createFirstAccount() {
         // given
         AccountUser accountUser = AccountUser.builder()
-                .name("Pobi").build();
+                .name("Pobi")
+                .accountCount(1).build();
         accountUser.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000000");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -105,7 +145,7 @@ class AccountServiceTest {
         AccountUser accountUser = AccountUser.builder()
                 .name("Pobi").build();
         accountUser.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.empty());
 
         // when
@@ -121,19 +161,18 @@ class AccountServiceTest {
     void createAccount_maxAccountIs10() {
         // given
         AccountUser accountUser = AccountUser.builder()
-                .name("Pobi").build();
+                .name("Pobi")
+                .accountCount(10).build();
         accountUser.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
-
         // when
         AccountException accountException = assertThrows(AccountException.class,
                 () -> accountService.createAccount(1L, 1000L));
         // then
         assertEquals(MAX_ACCOUNT_PER_USER_10, accountException.getErrorCode());
+        verify(accountRepository, never()).save(any());
 
     }
 
@@ -141,9 +180,10 @@ class AccountServiceTest {
     void deleteAccountSuccess() {
         // given
         AccountUser accountUser = AccountUser.builder()
-                .name("Pobi").build();
+                .name("Pobi")
+                .accountCount(3).build();
         accountUser.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -158,6 +198,7 @@ class AccountServiceTest {
 
         // then
         verify(accountRepository, times(1)).save(captor.capture());
+        assertEquals(2, accountUser.getAccountCount());
 
         assertThat(12L).isEqualTo(accountDto.getUserId());
         assertThat("1000000012").isEqualTo(captor.getValue().getAccountNumber());
@@ -171,7 +212,7 @@ class AccountServiceTest {
         AccountUser accountUser = AccountUser.builder()
                 .name("Pobi").build();
         accountUser.setId(15L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.empty());
 
         // when
@@ -189,7 +230,7 @@ class AccountServiceTest {
         AccountUser accountUser = AccountUser.builder()
                 .name("Pobi").build();
         accountUser.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(accountUser));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -212,7 +253,7 @@ class AccountServiceTest {
         AccountUser harry = AccountUser.builder()
                 .name("Harry").build();
         harry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -234,7 +275,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -256,7 +297,7 @@ class AccountServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findForUpdateById(anyLong()))
                 .willReturn(Optional.of(pobi));
 
         given(accountRepository.findByAccountNumber(anyString()))
@@ -325,7 +366,70 @@ class AccountServiceTest {
                 () -> accountService.getAccountsByUserId(1L));
 
         assertThat(USER_NOT_FOUND).isEqualTo(accountException.getErrorCode());
+        verify(missingAccountUserCache).markMissing(1L);
     }
 
+    @Test
+    void failedToGetAccounts_missingUserCached() {
+        // given
+        given(missingAccountUserCache.isMissing(1L))
+                .willReturn(true);
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> accountService.getAccountsByUserId(1L));
+
+        // then
+        assertThat(USER_NOT_FOUND).isEqualTo(accountException.getErrorCode());
+        verify(accountUserRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getAccountListVersion_ledgerAddsLastSequences() {
+        // given
+        ReflectionTestUtils.setField(accountService, "transactionMode", TransactionMode.LEDGER);
+        given(accountRepository.findListVersionByAccountUserId(1L))
+                .willReturn(new AccountListVersion(2L, 5L, LocalDateTime.now()));
+        given(ledgerService.getLastSequenceSum(1L))
+                .willReturn(42L);
+
+        // when
+        AccountListVersion version = accountService.getAccountListVersion(1L).get();
+
+        // then
+        assertEquals(2L, version.getCount());
+        assertEquals(42L, version.getModeVersion());
+        verify(splitBalanceService, never()).getSlotVersionSum(anyLong());
+    }
+
+    @Test
+    void getAccountListVersion_memoryAddsJournalOffset() {
+        // given
+        ReflectionTestUtils.setField(accountService, "transactionMode", TransactionMode.MEMORY);
+        BalanceEngine engine = mock(BalanceEngine.class);
+        given(accountRepository.findListVersionByAccountUserId(1L))
+                .willReturn(new AccountListVersion(2L, 5L, LocalDateTime.now()));
+        given(balanceEngine.getObject()).willReturn(engine);
+        given(engine.journalOffset()).willReturn(1024L);
+
+        // when
+        AccountListVersion version = accountService.getAccountListVersion(1L).get();
+
+        // then
+        // 계좌 행을 바꾸기 전의 잔액 변경도 ETag 를 바꾼다.
+        assertEquals(1024L, version.getModeVersion());
+    }
+
+    @Test
+    void getAccountListVersion_noAccounts() {
+        // given
+        ReflectionTestUtils.setField(accountService, "transactionMode", TransactionMode.LEDGER);
+        given(accountRepository.findListVersionByAccountUserId(1L))
+                .willReturn(new AccountListVersion(0L, 0L, null));
 
-}
\ No newline at end of file
+        // when
+        // then
+        assertThat(accountService.getAccountListVersion(1L)).isEmpty();
+        verify(ledgerService, never()).getLastSequenceSum(anyLong());
+    }
+}
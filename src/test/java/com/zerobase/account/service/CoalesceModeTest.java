@@ -0,0 +1,116 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.zerobase.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.zerobase.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.zerobase.account.type.ErrorCode.USER_NOT_FOUND;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * account.transaction.mode=coalesce 에서 동시에 들어온 잔액 사용이 묶여서 처리되고,
+ * 요청마다 자기 결과를 받는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "account.transaction.mode=coalesce",
+        "account.coalesce.window-ms=20",
+        "account.coalesce.max-batch-size=16",
+        "spring.redis.port=6397",
+        "spring.datasource.url=jdbc:h2:mem:coalesce"
+})
+class CoalesceModeTest {
+
+    private static final long USER_ID = 3L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentUses_coalescedWithOwnResults() throws Exception {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 1000L).getAccountNumber();
+        long transactionsBefore = transactionRepository.count();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Long> balanceSnapshots = new ArrayList<>();
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        TransactionDto used = transactionService.useBalance(USER_ID, accountNumber, 10L);
+                        balanceSnapshots.add(used.getBalanceSnapshot());
+                    } catch (AccountException e) {
+                        assertEquals(AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                    }
+                }
+                return balanceSnapshots;
+            }));
+        }
+        start.countDown();
+        List<Long> balanceSnapshots = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            balanceSnapshots.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(balanceSnapshots).hasSize(100).doesNotHaveDuplicates().contains(0L, 990L);
+        assertEquals(0L, balanceOf(accountNumber));
+        // 실패한 요청은 여기서 기록하지 않는다. (컨트롤러가 기록)
+        assertEquals(transactionsBefore + 100, transactionRepository.count());
+        assertThat(meterRegistry.get("account.coalesce.batch.size").summary().max()).isGreaterThan(1.0);
+    }
+
+    @Test
+    void missingAccount_keepsErrorPrecedence() {
+        // given
+        // when
+        AccountException accountNotFound = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(USER_ID, "9999999999", 10L));
+        AccountException userNotFound = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(999L, "9999999999", 10L));
+
+        // then
+        assertEquals(ACCOUNT_NOT_FOUND, accountNotFound.getErrorCode());
+        assertEquals(USER_NOT_FOUND, userNotFound.getErrorCode());
+    }
+
+    private Long balanceOf(String accountNumber) {
+        return accountService.getAccountsByUserId(USER_ID).stream()
+                .filter(account -> account.getAccountNumber().equals(accountNumber))
+                .map(AccountDto::getBalance)
+                .findFirst()
+                .get();
+    }
+}
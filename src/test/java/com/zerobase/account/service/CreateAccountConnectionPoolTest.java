@@ -0,0 +1,69 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.dto.AccountDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 커넥션 풀보다 많은 계좌 생성이 동시에 블록을 다 써도, 블록 예약이 커넥션을 기다리다 실패하지 않는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        // 매번 블록을 예약한다.
+        "account.account-number.block-size=1",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000",
+        "spring.redis.port=6402",
+        "spring.datasource.url=jdbc:h2:mem:create-account-pool"
+})
+class CreateAccountConnectionPoolTest {
+
+    private static final int USERS = 4;
+    private static final int ACCOUNTS_PER_USER = 5;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Test
+    void concurrentCreates_reserveBlocksWithoutExhaustingPool() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+
+        // when
+        for (long userId = 1; userId <= USERS; userId++) {
+            long user = userId;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<String> accountNumbers = new ArrayList<>();
+                for (int i = 0; i < ACCOUNTS_PER_USER; i++) {
+                    AccountDto account = accountService.createAccount(user, 1000L);
+                    accountNumbers.add(account.getAccountNumber());
+                }
+                return accountNumbers;
+            }));
+        }
+        start.countDown();
+        Set<String> accountNumbers = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            accountNumbers.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(USERS * ACCOUNTS_PER_USER, accountNumbers.size());
+    }
+}
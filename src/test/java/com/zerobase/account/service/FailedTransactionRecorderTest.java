@@ -0,0 +1,166 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.aop.AfterUnlock;
+import com.zerobase.account.dto.FailedTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static com.zerobase.account.type.TransactionType.CANCEL;
+import static com.zerobase.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void writeBufferedFailuresInOneBatch() throws InterruptedException {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 100, 500, 100L, "sync");
+        given(transactionService.saveFailedTransactions(anyList()))
+                .willAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        recorder.record(USE, "1000000012", 1000L);
+        recorder.record(CANCEL, "1000000012", 2000L);
+        recorder.record(USE, "1000000013", 3000L);
+        recorder.start();
+        recorder.stop();
+
+        // then
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertThat(captor.getValue()).extracting(FailedTransaction::getAmount)
+                .containsExactly(1000L, 2000L, 3000L);
+        assertThat(recorder.pending()).isZero();
+        assertThat(meterRegistry.counter("account.failure.written").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void overflowDrop_doNotWrite() {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 1, 500, 100L, "drop");
+
+        // when
+        recorder.record(USE, "1000000012", 1000L);
+        recorder.record(USE, "1000000012", 2000L);
+
+        // then
+        verify(transactionService, never()).saveFailedTransactions(anyList());
+        assertThat(recorder.pending()).isEqualTo(1);
+        assertThat(meterRegistry.counter("account.failure.dropped").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void overflowSync_writeInCallerThread() throws InterruptedException {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 1, 500, 100L, "sync");
+        CountDownLatch written = new CountDownLatch(1);
+        Thread caller = Thread.currentThread();
+        given(transactionService.saveFailedTransactions(anyList()))
+                .willAnswer(invocation -> {
+                    assertThat(Thread.currentThread()).isSameAs(caller);
+                    written.countDown();
+                    return 1;
+                });
+
+        // when
+        recorder.record(USE, "1000000012", 1000L);
+        recorder.record(USE, "1000000012", 2000L);
+
+        // then
+        assertThat(written.getCount()).isZero();
+        assertThat(recorder.pending()).isEqualTo(1);
+        assertThat(meterRegistry.counter("account.failure.overflow").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void overflowSync_writeAfterUnlock() {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 1, 500, 100L, "sync");
+        given(transactionService.saveFailedTransactions(anyList()))
+                .willReturn(1);
+
+        // when
+        AfterUnlock.open();
+        try {
+            recorder.record(USE, "1000000012", 1000L);
+            recorder.record(USE, "1000000012", 2000L);
+
+            // then
+            // lock 을 잡은 동안에는 저장하지 않는다.
+            verify(transactionService, never()).saveFailedTransactions(anyList());
+        } finally {
+            AfterUnlock.runPending();
+        }
+        verify(transactionService, times(1)).saveFailedTransactions(anyList());
+    }
+
+    @Test
+    void stop_doesNotInterruptWrite() throws InterruptedException {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 100, 500, 100L, "sync");
+        CountDownLatch saving = new CountDownLatch(1);
+        given(transactionService.saveFailedTransactions(anyList()))
+                .willAnswer(invocation -> {
+                    saving.countDown();
+                    // interrupt 되면 여기서 InterruptedException 으로 저장이 끊긴다.
+                    Thread.sleep(200L);
+                    return 1;
+                });
+        recorder.start();
+        recorder.record(USE, "1000000012", 1000L);
+        saving.await();
+
+        // when
+        recorder.stop();
+
+        // then
+        assertThat(meterRegistry.counter("account.failure.written").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void retryFailedBatch() throws InterruptedException {
+        // given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(
+                transactionService, meterRegistry, 100, 500, 10L, "sync");
+        given(transactionService.saveFailedTransactions(anyList()))
+                .willThrow(new IllegalStateException("connection lost"))
+                .willReturn(2);
+
+        // when
+        recorder.record(USE, "1000000012", 1000L);
+        recorder.record(USE, "1000000012", 2000L);
+        recorder.start();
+        while (meterRegistry.counter("account.failure.written").count() == 0.0) {
+            Thread.sleep(5L);
+        }
+        recorder.stop();
+
+        // then
+        verify(transactionService, times(2)).saveFailedTransactions(anyList());
+        assertThat(meterRegistry.counter("account.failure.write.error").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("account.failure.written").count()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,173 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.AccountListVersion;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.LedgerEntryRepository;
+import com.zerobase.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * account.transaction.mode=ledger 에서 잔액 변경이 원장 INSERT 로만 처리되는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "account.transaction.mode=ledger",
+        // 스냅샷은 테스트에서 직접 실행한다.
+        "account.ledger.snapshot-interval-ms=3600000",
+        "account.ledger.min-entries=1",
+        "spring.redis.port=6394",
+        "spring.datasource.url=jdbc:h2:mem:ledger"
+})
+class LedgerModeTest {
+
+    private static final long USER_ID = 4L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerSnapshotter ledgerSnapshotter;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Test
+    void useAndCancel_appendOnly() {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 10000L).getAccountNumber();
+
+        // when
+        TransactionDto used = transactionService.useBalance(USER_ID, accountNumber, 3000L);
+        Long balanceAfterUse = balanceOf(accountNumber);
+        TransactionDto canceled = transactionService.cancelBalance(used.getTransactionId(), accountNumber, 3000L);
+
+        // then
+        assertEquals(7000L, used.getBalanceSnapshot());
+        assertEquals(7000L, balanceAfterUse);
+        assertEquals(10000L, canceled.getBalanceSnapshot());
+        assertEquals(10000L, balanceOf(accountNumber));
+        // 계좌 행은 개설 시 값 그대로다.
+        assertEquals(10000L, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+    }
+
+    @Test
+    void accountListVersion_growsWithLedgerEntries() {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 10000L).getAccountNumber();
+        AccountListVersion before = accountService.getAccountListVersion(USER_ID).get();
+
+        // when
+        transactionService.useBalance(USER_ID, accountNumber, 1000L);
+        AccountListVersion after = accountService.getAccountListVersion(USER_ID).get();
+
+        // then
+        // 계좌 행은 그대로라도 원장 순번이 커져서 ETag 가 달라진다.
+        assertEquals(before.getVersionSum(), after.getVersionSum());
+        assertEquals(before.getModeVersion() + 1, after.getModeVersion());
+    }
+
+    @Test
+    void concurrentUses_neverOverdraw() throws Exception {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 1000L).getAccountNumber();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int succeeded = 0;
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        transactionService.useBalance(USER_ID, accountNumber, 100L);
+                        succeeded++;
+                    } catch (OptimisticLockingFailureException | AccountException e) {
+                        // 순번 충돌 또는 잔액 부족
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        start.countDown();
+        int succeeded = 0;
+        for (Future<Integer> future : futures) {
+            succeeded += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(succeeded).isBetween(1, 10);
+        assertEquals(1000L - succeeded * 100L, balanceOf(accountNumber));
+    }
+
+    @Test
+    void snapshot_compactsEntriesAndKeepsHistory() throws Exception {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 10000L).getAccountNumber();
+        transactionService.useBalance(USER_ID, accountNumber, 3000L);
+        Thread.sleep(10);
+        LocalDateTime afterFirstUse = LocalDateTime.now();
+        Thread.sleep(10);
+        transactionService.useBalance(USER_ID, accountNumber, 2000L);
+
+        // when
+        int snapshotted = ledgerSnapshotter.snapshot();
+
+        // then
+        assertThat(snapshotted).isPositive();
+        assertEquals(5000L, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+        assertEquals(2L, accountRepository.findByAccountNumber(accountNumber).get().getLedgerSequence());
+        assertEquals(5000L, balanceOf(accountNumber));
+        assertEquals(7000L, accountService.getBalanceAt(accountNumber, afterFirstUse).getBalance());
+        assertThat(ledgerEntryRepository.count()).isGreaterThanOrEqualTo(2L);
+    }
+
+    @Test
+    void getBalanceAt_beforeRegistered() {
+        // given
+        LocalDateTime beforeRegistered = LocalDateTime.now().minusSeconds(1);
+        String accountNumber = accountService.createAccount(USER_ID, 10000L).getAccountNumber();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.getBalanceAt(accountNumber, beforeRegistered));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private Long balanceOf(String accountNumber) {
+        return accountService.getAccountsByUserId(USER_ID).stream()
+                .filter(account -> account.getAccountNumber().equals(accountNumber))
+                .map(AccountDto::getBalance)
+                .findFirst()
+                .get();
+    }
+}
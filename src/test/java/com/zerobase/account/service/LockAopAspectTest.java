@@ -1,19 +1,34 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.aop.AccountLock;
+import com.zerobase.account.aop.AfterUnlock;
 import com.zerobase.account.dto.UseBalance;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.lock.AccountLockProvider;
+import com.zerobase.account.lock.LockTiming;
+import com.zerobase.account.lock.LockTimingPolicy;
 import com.zerobase.account.type.ErrorCode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,14 +36,33 @@ import static org.mockito.Mockito.verify;
 class LockAopAspectTest {
 
     @Mock
-    private LockService lockService;
+    private AccountLockProvider lockProvider;
+
+    @Spy
+    private LockTimingPolicy lockTimingPolicy = new LockTimingPolicy(false);
 
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private Signature signature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    private AccountLock accountLock;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        accountLock = getClass().getDeclaredMethod("lockedEndpoint").getAnnotation(AccountLock.class);
+        given(proceedingJoinPoint.getSignature()).willReturn(signature);
+        given(signature.toShortString()).willReturn("LockAopAspectTest.lockedEndpoint()");
+    }
+
+    @AccountLock(tryLockTime = 3000L, leaseTime = 7000L)
+    private void lockedEndpoint() {
+    }
+
     @Test
     void lockAndUnlock() throws Throwable {
         // given
@@ -38,11 +72,11 @@ class LockAopAspectTest {
 
         UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
         // when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request);
         // then
 
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
+        verify(lockProvider, times(1)).lock(lockArgumentCaptor.capture(), any());
+        verify(lockProvider, times(1)).unlock(unLockArgumentCaptor.capture());
 
         assertThat("1234").isEqualTo(lockArgumentCaptor.getValue());
         assertThat("1234").isEqualTo(unLockArgumentCaptor.getValue());
@@ -63,16 +97,53 @@ class LockAopAspectTest {
 
         // when
 
-        assertThrows(AccountException.class, () -> lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+        assertThrows(AccountException.class, () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request));
 
         // then
 
-        verify(lockService, times(1)).lock(lockArgumentCaptor.capture());
-        verify(lockService, times(1)).unlock(unLockArgumentCaptor.capture());
+        verify(lockProvider, times(1)).lock(lockArgumentCaptor.capture(), any());
+        verify(lockProvider, times(1)).unlock(unLockArgumentCaptor.capture());
 
         assertThat("54321").isEqualTo(lockArgumentCaptor.getValue());
         assertThat("54321").isEqualTo(unLockArgumentCaptor.getValue());
 
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void useAnnotationTiming() throws Throwable {
+        // given
+        ArgumentCaptor<LockTiming> timingCaptor = ArgumentCaptor.forClass(LockTiming.class);
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request);
+
+        // then
+        verify(lockProvider, times(1)).lock(anyString(), timingCaptor.capture());
+        assertThat(timingCaptor.getValue().getWaitTimeMillis()).isEqualTo(3000L);
+        assertThat(timingCaptor.getValue().getLeaseTimeMillis()).isEqualTo(7000L);
+        verify(lockTimingPolicy, times(1)).record(anyString(), anyLong());
+    }
+
+    @Test
+    void runDeferredTasksAfterUnlock() throws Throwable {
+        // given
+        UseBalance.Request request = new UseBalance.Request(123L, "1234", 1000L);
+        Runnable task = mock(Runnable.class);
+        given(proceedingJoinPoint.proceed())
+                .willAnswer(invocation -> {
+                    AfterUnlock.run(task);
+                    verify(task, never()).run();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                });
+
+        // when
+        assertThrows(AccountException.class, () -> lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request));
+
+        // then
+        InOrder inOrder = inOrder(lockProvider, task);
+        inOrder.verify(lockProvider).unlock("1234");
+        inOrder.verify(task).run();
+    }
+}
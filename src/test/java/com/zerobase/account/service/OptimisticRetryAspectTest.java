@@ -0,0 +1,98 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticRetryAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OptimisticRetryAspect optimisticRetryAspect =
+            new OptimisticRetryAspect(meterRegistry, 2, 1L, 2L);
+
+    @Test
+    void retryOnConflict() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L))
+                .willReturn("result");
+
+        // when
+        Object result = optimisticRetryAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        assertThat(result).isEqualTo("result");
+        verify(proceedingJoinPoint, times(2)).proceed();
+        assertThat(meterRegistry.counter("account.optimistic.attempts").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("account.optimistic.conflicts").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void retryExhausted() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryAspect.aroundMethod(proceedingJoinPoint));
+
+        // then
+        assertThat(ErrorCode.ACCOUNT_TRANSACTION_LOCK).isEqualTo(exception.getErrorCode());
+        verify(proceedingJoinPoint, times(3)).proceed();
+        assertThat(meterRegistry.counter("account.optimistic.exhausted").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void doNotRetryBusinessException() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryAspect.aroundMethod(proceedingJoinPoint));
+
+        // then
+        assertThat(ErrorCode.AMOUNT_EXCEED_BALANCE).isEqualTo(exception.getErrorCode());
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+
+    @Test
+    void doNotRetryInsideOuterTransaction() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new ObjectOptimisticLockingFailureException("Account", 1L));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // when
+        try {
+            assertThrows(ObjectOptimisticLockingFailureException.class,
+                    () -> optimisticRetryAspect.aroundMethod(proceedingJoinPoint));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // then
+        // 바깥 트랜잭션이 충돌을 받는다.
+        verify(proceedingJoinPoint, times(1)).proceed();
+    }
+}
@@ -0,0 +1,123 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint proceedingJoinPoint;
+
+    @Mock
+    private MethodSignature methodSignature;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SingleFlightAspect singleFlightAspect = new SingleFlightAspect(meterRegistry, true);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        given(proceedingJoinPoint.getSignature()).willReturn(methodSignature);
+        given(methodSignature.getMethod())
+                .willReturn(TransactionService.class.getMethod("queryTransaction", String.class));
+        given(proceedingJoinPoint.getArgs()).willReturn(new Object[]{"transactionId"});
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Throwable {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(proceedingJoinPoint.proceed()).willAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "result";
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<Object> leader = executorService.submit(() -> call());
+        started.await(5, TimeUnit.SECONDS);
+        Future<Object> follower = executorService.submit(() -> call());
+        while (requests("follower") < 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        // then
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        verify(proceedingJoinPoint, times(1)).proceed();
+        assertThat(meterRegistry.get("single.flight.coalescing.ratio").gauge().value()).isEqualTo(0.5);
+        executorService.shutdown();
+    }
+
+    @Test
+    void sequentialCallsAreNotCached() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed()).willReturn("first", "second");
+
+        // when
+        Object first = singleFlightAspect.aroundMethod(proceedingJoinPoint);
+        Object second = singleFlightAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        assertThat(first).isEqualTo("first");
+        assertThat(second).isEqualTo("second");
+        assertThat(requests("leader")).isEqualTo(2.0);
+    }
+
+    @Test
+    void exceptionIsPropagated() throws Throwable {
+        // given
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ErrorCode.TRANSACTION_NOT_FOUND))
+                .willReturn("result");
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> singleFlightAspect.aroundMethod(proceedingJoinPoint));
+        Object retried = singleFlightAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        // 실패한 실행도 끝나면 지우므로 다음 요청은 다시 실행한다.
+        assertThat(ErrorCode.TRANSACTION_NOT_FOUND).isEqualTo(exception.getErrorCode());
+        assertThat(retried).isEqualTo("result");
+    }
+
+    private Object call() throws Exception {
+        try {
+            return singleFlightAspect.aroundMethod(proceedingJoinPoint);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double requests(String role) {
+        return meterRegistry.counter("single.flight.requests",
+                "method", "TransactionService.queryTransaction", "role", role).count();
+    }
+}
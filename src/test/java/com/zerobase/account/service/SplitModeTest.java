@@ -0,0 +1,183 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.dto.AccountDto;
+import com.zerobase.account.dto.FailedTransaction;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.zerobase.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.zerobase.account.type.ErrorCode.AMOUNT_EXCEED_BALANCE;
+import static com.zerobase.account.type.ErrorCode.BALANCE_NOT_EMPTY;
+import static com.zerobase.account.type.TransactionResultType.FAIL;
+import static com.zerobase.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * account.transaction.mode=split 에서 슬롯에 나눠 담은 잔액이 합계로 검증되는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "account.transaction.mode=split",
+        "account.split.slots=4",
+        "spring.redis.port=6399",
+        "spring.datasource.url=jdbc:h2:mem:split"
+})
+class SplitModeTest {
+
+    private static final long USER_ID = 1L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentUses_neverOverdrawTotal() throws Exception {
+        // given
+        // 슬롯마다 250 씩 나눠 담는다. 30 씩 8번 쓰면 슬롯마다 10 이 남는다.
+        String accountNumber = accountService.createAccount(USER_ID, 1000L).getAccountNumber();
+        double rebalancesBefore = meterRegistry.get("account.split.rebalances").counter().count();
+        double attemptsBefore = meterRegistry.get("account.optimistic.attempts").counter().count();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int used = 0;
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        useBalance(accountNumber, 30L);
+                        used++;
+                    } catch (AccountException e) {
+                        assertEquals(AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                    }
+                }
+                return used;
+            }));
+        }
+        start.countDown();
+        int used = 0;
+        for (Future<Integer> future : futures) {
+            used += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        // 어느 슬롯도 30 이 안 되어도 합계(40)로 한 건 더 쓴다.
+        assertEquals(33, used);
+        assertEquals(10L, balanceOf(accountNumber));
+        assertThat(meterRegistry.get("account.split.rebalances").counter().count()).isGreaterThan(rebalancesBefore);
+        // 서비스 호출마다 OptimisticRetryAspect 를 거친다.
+        assertThat(meterRegistry.get("account.optimistic.attempts").counter().count()).isGreaterThan(attemptsBefore);
+    }
+
+    @Test
+    void useLargerThanAnySlot_rebalancesAndKeepsTotal() {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 1000L).getAccountNumber();
+        // 처음 사용할 때 990 을 슬롯 4개에 나눈다. (248, 248, 247, 247)
+        transactionService.useBalance(USER_ID, accountNumber, 10L);
+
+        // when
+        TransactionDto used = transactionService.useBalance(USER_ID, accountNumber, 900L);
+        AccountException exceeded = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(USER_ID, accountNumber, 91L));
+        TransactionDto canceled = transactionService.cancelBalance(used.getTransactionId(), accountNumber, 900L);
+
+        // then
+        assertEquals(90L, used.getBalanceSnapshot());
+        assertEquals(AMOUNT_EXCEED_BALANCE, exceeded.getErrorCode());
+        assertEquals(990L, canceled.getBalanceSnapshot());
+        assertEquals(990L, balanceOf(accountNumber));
+    }
+
+    @Test
+    void deleteAccount_checksSlotBalances() {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 100L).getAccountNumber();
+        transactionService.useBalance(USER_ID, accountNumber, 10L);
+
+        // when
+        AccountException notEmpty = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(USER_ID, accountNumber));
+        transactionService.useBalance(USER_ID, accountNumber, 90L);
+        AccountDto deleted = accountService.deleteAccount(USER_ID, accountNumber);
+
+        // then
+        assertEquals(BALANCE_NOT_EMPTY, notEmpty.getErrorCode());
+        assertEquals(accountNumber, deleted.getAccountNumber());
+    }
+
+    @Test
+    void saveFailedTransactions_snapshotsSlotTotal() {
+        // given
+        String accountNumber = accountService.createAccount(USER_ID, 1000L).getAccountNumber();
+        transactionService.useBalance(USER_ID, accountNumber, 10L);
+        AccountException exceeded = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(USER_ID, accountNumber, 5000L));
+
+        // when
+        // 컨트롤러에서는 FailedTransactionRecorder 가 모아서 부른다.
+        int saved = transactionService.saveFailedTransactions(List.of(
+                new FailedTransaction(USE, accountNumber, 5000L, LocalDateTime.now())));
+
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, exceeded.getErrorCode());
+        assertEquals(1, saved);
+        // 계좌 행의 balance(0) 가 아니라 슬롯 잔액 합이다.
+        assertThat(transactionRepository.findAll())
+                .filteredOn(transaction -> transaction.getTransactionResultType() == FAIL
+                        && transaction.getAmount() == 5000L)
+                .extracting(Transaction::getBalanceSnapshot)
+                .containsExactly(990L);
+    }
+
+    // 충돌은 OptimisticRetryAspect 가 다시 실행하고, 그래도 안 되면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다.
+    private void useBalance(String accountNumber, Long amount) {
+        while (true) {
+            try {
+                transactionService.useBalance(USER_ID, accountNumber, amount);
+                return;
+            } catch (AccountException e) {
+                if (e.getErrorCode() != ACCOUNT_TRANSACTION_LOCK) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Long balanceOf(String accountNumber) {
+        return accountService.getAccountsByUserId(USER_ID).stream()
+                .filter(account -> account.getAccountNumber().equals(accountNumber))
+                .map(AccountDto::getBalance)
+                .findFirst()
+                .get();
+    }
+}
@@ -0,0 +1,213 @@
+package com.zerobase.account.service;
+
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.domain.Account;
+import com.zerobase.account.domain.AccountUser;
+import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.TransactionHistory;
+import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.repository.AccountRepository;
+import com.zerobase.account.repository.AccountUserRepository;
+import com.zerobase.account.repository.TransactionRepository;
+import com.zerobase.account.type.ErrorCode;
+import com.zerobase.account.type.TransactionResultType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.cache.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.zerobase.account.type.AccountStatus.IN_USE;
+import static com.zerobase.account.type.TransactionResultType.FAIL;
+import static com.zerobase.account.type.TransactionResultType.SUCCESS;
+import static com.zerobase.account.type.TransactionType.USE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 요청 하나가 실행하는 SQL 수를 hibernate 통계로 확인한다.
+ * 연관 관계가 EAGER 로 돌아가거나 조회가 늘어나면 실패한다.
+ */
+// 설정이 달라 컨텍스트가 따로 뜨므로 내장 redis 포트와 H2 DB 를 다른 테스트와 겹치지 않게 한다.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.redis.port=6393",
+        "spring.datasource.url=jdbc:h2:mem:sql-count"
+})
+class TransactionServiceSqlCountTest {
+
+    private static final String ACCOUNT_NUMBER = "9000000001";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private Cache<String, AccountSnapshot> accountSnapshotCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        AccountUser accountUser = accountUserRepository.findById(1L).get();
+        Account account = accountRepository.findByAccountNumber(ACCOUNT_NUMBER)
+                .orElseGet(() -> Account.builder()
+                        .accountUser(accountUser)
+                        .accountNumber(ACCOUNT_NUMBER)
+                        .accountStatus(IN_USE)
+                        .registeredAt(LocalDateTime.now())
+                        .build());
+        account.setBalance(10_000L);
+        accountRepository.save(account);
+        // 계좌 캐시를 채워둔다. (엔티티 변경은 commit 뒤에 캐시에 반영된다.)
+        accountCache.get(ACCOUNT_NUMBER);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void useBalance() {
+        // when
+        transactionService.useBalance(1L, ACCOUNT_NUMBER, 1000L);
+
+        // then
+        // 계좌는 캐시에서 : 잔액 update + 거래 id 시퀀스 + 거래 insert
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void useBalance_accountNotCached() {
+        // given
+        accountSnapshotCache.remove(ACCOUNT_NUMBER);
+
+        // when
+        transactionService.useBalance(1L, ACCOUNT_NUMBER, 1000L);
+
+        // then
+        // 계좌 조회 + 잔액 update + 거래 id 시퀀스 + 거래 insert
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void useBalance_userUnMatch() {
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(2L, ACCOUNT_NUMBER, 1000L));
+
+        // then
+        // 계좌는 캐시에서, 소유주가 다를 때만 사용자 존재 확인
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, accountException.getErrorCode());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cancelBalance() {
+        // given
+        TransactionDto used = transactionService.useBalance(1L, ACCOUNT_NUMBER, 1000L);
+        statistics.clear();
+
+        // when
+        transactionService.cancelBalance(used.getTransactionId(), ACCOUNT_NUMBER, 1000L);
+
+        // then
+        // 거래 + 계좌 fetch join 조회 + 거래 id 시퀀스 + 거래 insert + 잔액 update
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void queryTransaction() {
+        // given
+        TransactionDto used = transactionService.useBalance(1L, ACCOUNT_NUMBER, 1000L);
+        statistics.clear();
+
+        // when
+        transactionService.queryTransaction(used.getTransactionId());
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTransactionHistory() {
+        // given
+        transactionService.useBalance(1L, ACCOUNT_NUMBER, 1000L);
+        statistics.clear();
+
+        // when
+        transactionService.getTransactionHistory(ACCOUNT_NUMBER, null, null, null, 20);
+
+        // then
+        // 계좌 id 는 캐시에서, 내역 조회만 (count 쿼리 없음)
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTransactionHistory_seeksPastCursorWithFilter() {
+        // given
+        Account account = accountRepository.findByAccountNumber(ACCOUNT_NUMBER).get();
+        LocalDateTime at = LocalDateTime.now().plusDays(1).withNano(0);
+        // 같은 시각의 거래는 id 로 나눠서 읽는다.
+        List<Transaction> saved = transactionRepository.saveAll(Arrays.asList(
+                historyTransaction(account, "history-1", SUCCESS, at.minusSeconds(1)),
+                historyTransaction(account, "history-2", SUCCESS, at),
+                historyTransaction(account, "history-3", FAIL, at),
+                historyTransaction(account, "history-4", SUCCESS, at)));
+        List<String> expected = Arrays.asList("history-4", "history-2", "history-1");
+
+        // when
+        List<String> read = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            TransactionHistory.Response response = transactionService.getTransactionHistory(
+                    ACCOUNT_NUMBER, USE, SUCCESS, cursor, 1);
+            assertEquals(1, statistics.getPrepareStatementCount());
+            response.getTransactions().forEach(item -> read.add(item.getTransactionId()));
+            cursor = response.getNextCursor();
+        } while (cursor != null && read.size() < expected.size());
+
+        // then
+        assertThat(read).containsExactlyElementsOf(expected);
+        transactionRepository.deleteAll(saved);
+    }
+
+    private static Transaction historyTransaction(Account account, String transactionId,
+                                                  TransactionResultType transactionResultType,
+                                                  LocalDateTime transactedAt) {
+        return Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(transactionResultType)
+                .amount(100L)
+                .balanceSnapshot(0L)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
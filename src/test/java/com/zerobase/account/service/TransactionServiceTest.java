@@ -1,22 +1,49 @@
 package com.zerobase.account.service;
 
+import com.zerobase.account.cache.AccountCache;
+import com.zerobase.account.cache.AccountSnapshot;
+import com.zerobase.account.cache.NegativeCache;
 import com.zerobase.account.domain.Account;
 import com.zerobase.account.domain.AccountUser;
 import com.zerobase.account.domain.Transaction;
+import com.zerobase.account.dto.AccountBalance;
+import com.zerobase.account.dto.FailedTransaction;
+import com.zerobase.account.dto.LedgerBalance;
 import com.zerobase.account.dto.TransactionDto;
+import com.zerobase.account.dto.TransactionHistory;
+import com.zerobase.account.dto.TransactionSummary;
+import com.zerobase.account.dto.UseBalance;
+import com.zerobase.account.dto.UseBalanceBatch;
+import com.zerobase.account.engine.BalanceEngine;
+import com.zerobase.account.engine.JournalRecord;
 import com.zerobase.account.exception.AccountException;
+import com.zerobase.account.id.SnowflakeTransactionIdGenerator;
+import com.zerobase.account.id.TransactionIdFilter;
+import com.zerobase.account.id.TransactionIdGenerator;
 import com.zerobase.account.repository.AccountRepository;
 import com.zerobase.account.repository.AccountUserRepository;
 import com.zerobase.account.repository.TransactionRepository;
+import com.zerobase.account.type.AccountStatus;
+import com.zerobase.account.type.TransactionMode;
+import com.zerobase.account.type.TransactionResultType;
+import com.zerobase.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.zerobase.account.type.AccountStatus.IN_USE;
@@ -31,6 +58,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -48,6 +77,27 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private TransactionIdFilter transactionIdFilter;
+
+    @Mock
+    private NegativeCache<Long> missingAccountUserCache;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
+
+    @Mock
+    private SplitBalanceService splitBalanceService;
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new SnowflakeTransactionIdGenerator(1L);
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -64,11 +114,10 @@ class TransactionServiceTest {
                 .accountNumber("1000000012")
                 .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(accountUser));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 10000L)));
+        given(accountRepository.updateBalance(eq(7L), eq(3L), eq(9800L), any()))
+                .willReturn(1);
 
         given(transactionRepository.save(any()))
                 .willReturn(Transaction.builder()
@@ -84,14 +133,18 @@ class TransactionServiceTest {
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
 
         // when
-        TransactionDto transactionDto = transactionService.useBalance(1L,
-                "1000000000", USE_AMOUNT);
+        TransactionDto transactionDto = transactionService.useBalance(12L,
+                "1000000012", USE_AMOUNT);
 
         verify(transactionRepository, times(1)).save(captor.capture());
 
         // then
         assertThat(USE_AMOUNT).isEqualTo(captor.getValue().getAmount());
         assertThat(9800L).isEqualTo(captor.getValue().getBalanceSnapshot());
+        // 계좌를 읽지 않고 version 조건 UPDATE 후 새 값을 캐시에 넣는다.
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        verify(accountCache, times(1)).putAfterCommit(
+                new AccountSnapshot(7L, "1000000012", 12L, IN_USE, 9800L, 4L));
 
         assertThat(SUCCESS).isEqualTo(transactionDto.getTransactionResultType());
         assertThat(USE).isEqualTo(transactionDto.getTransactionType());
@@ -100,13 +153,187 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("캐시 값이 오래돼서 UPDATE 가 실패하면 DB 에서 다시 읽고 한 번 더 시도")
+    void useBalance_staleCache_reloadAndRetry() {
+        // given
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 10000L)));
+        given(accountRepository.updateBalance(eq(7L), eq(3L), anyLong(), any()))
+                .willReturn(0);
+        given(accountCache.reload("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(7L, "1000000012", 12L, IN_USE, 5000L, 5L)));
+        given(accountRepository.updateBalance(eq(7L), eq(5L), eq(4800L), any()))
+                .willReturn(1);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", USE_AMOUNT);
+
+        // then
+        assertThat(transactionDto.getBalanceSnapshot()).isEqualTo(4800L);
+        assertThat(transactionDto.getAccountNumber()).isEqualTo("1000000012");
+        verify(accountCache, times(1)).putAfterCommit(
+                new AccountSnapshot(7L, "1000000012", 12L, IN_USE, 4800L, 6L));
+    }
+
+    @Test
+    @DisplayName("다시 읽은 값으로도 UPDATE 가 실패하면 version 충돌")
+    void useBalance_versionConflict() {
+        // given
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 10000L)));
+        given(accountCache.reload("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 10000L)));
+        given(accountRepository.updateBalance(anyLong(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+
+        // when
+        // then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> transactionService.useBalance(12L, "1000000012", USE_AMOUNT));
+        verify(transactionRepository, times(0)).save(any());
+        verify(accountCache, times(0)).putAfterCommit(any());
+    }
+
+    @Test
+    void successUseBalanceBatch_perItemResult() {
+        // given
+        AccountUser accountUser = AccountUser.builder()
+                .name("Pobi").build();
+        accountUser.setId(12L);
+        Account account = Account.builder()
+                .accountUser(accountUser)
+                .accountStatus(IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012")
+                .build();
+        UseBalanceBatch.AccountRequests accountRequests = new UseBalanceBatch.Request(Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(13L, "1000000012", 100L),
+                new UseBalance.Request(12L, "1000000012", 400L)))
+                .groupByAccount().get(0);
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountUserRepository.findAllById(Collections.singleton(13L)))
+                .willReturn(Collections.emptyList());
+        given(transactionRepository.saveAll(anyList()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        List<TransactionDto> transactionDtos = transactionService.useBalanceBatch(accountRequests);
+
+        // then
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(transactionRepository, times(0)).save(any());
+        assertThat(transactionDtos).extracting(TransactionDto::getTransactionResultType)
+                .containsExactly(SUCCESS, FAIL, FAIL, SUCCESS);
+        assertThat(transactionDtos).extracting(TransactionDto::getErrorCode)
+                .containsExactly(null, AMOUNT_EXCEED_BALANCE, USER_NOT_FOUND, null);
+        assertThat(transactionDtos).extracting(TransactionDto::getBalanceSnapshot)
+                .containsExactly(400L, 400L, 400L, 0L);
+        assertThat(0L).isEqualTo(account.getBalance());
+    }
+
+    @Test
+    @DisplayName("해당 계좌 없음 - 잔액 일괄 사용 건별 실패")
+    void useBalanceBatch_AccountNotFound() {
+        // given
+        UseBalanceBatch.AccountRequests accountRequests = new UseBalanceBatch.Request(Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(13L, "1000000012", 600L)))
+                .groupByAccount().get(0);
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.empty());
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+        given(accountUserRepository.existsById(13L))
+                .willReturn(false);
+
+        // when
+        List<TransactionDto> transactionDtos = transactionService.useBalanceBatch(accountRequests);
+
+        // then
+        assertThat(transactionDtos).extracting(TransactionDto::getErrorCode)
+                .containsExactly(ACCOUNT_NOT_FOUND, USER_NOT_FOUND);
+        assertThat(transactionDtos).extracting(TransactionDto::getTransactionResultType)
+                .containsExactly(FAIL, FAIL);
+        verify(transactionRepository, times(0)).saveAll(anyList());
+    }
+
+    @Test
+    void useBalanceCoalesced_returnsFailuresWithoutRecording() {
+        // given
+        AccountUser accountUser = AccountUser.builder()
+                .name("Pobi").build();
+        accountUser.setId(12L);
+        Account account = Account.builder()
+                .accountUser(accountUser)
+                .accountStatus(IN_USE)
+                .balance(1000L)
+                .accountNumber("1000000012")
+                .build();
+        UseBalanceBatch.AccountRequests accountRequests = new UseBalanceBatch.Request(Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(12L, "1000000012", 400L)))
+                .groupByAccount().get(0);
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.saveAll(anyList()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        List<TransactionDto> transactionDtos = transactionService.useBalanceCoalesced(accountRequests);
+
+        // then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(Transaction::getTransactionResultType)
+                .containsExactly(SUCCESS, SUCCESS);
+        assertThat(transactionDtos).extracting(TransactionDto::getErrorCode)
+                .containsExactly(null, AMOUNT_EXCEED_BALANCE, null);
+        assertThat(transactionDtos).extracting(TransactionDto::getBalanceSnapshot)
+                .containsExactly(400L, null, 0L);
+    }
+
+    @Test
+    void useBalanceCoalesced_AccountNotFound_checksUserFirst() {
+        // given
+        UseBalanceBatch.AccountRequests accountRequests = new UseBalanceBatch.Request(Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 600L),
+                new UseBalance.Request(13L, "1000000012", 600L)))
+                .groupByAccount().get(0);
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.empty());
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
+        given(accountUserRepository.existsById(13L))
+                .willReturn(false);
+
+        // when
+        List<TransactionDto> transactionDtos = transactionService.useBalanceCoalesced(accountRequests);
+
+        // then
+        assertThat(transactionDtos).extracting(TransactionDto::getErrorCode)
+                .containsExactly(ACCOUNT_NOT_FOUND, USER_NOT_FOUND);
+        verify(transactionRepository, times(0)).saveAll(anyList());
+    }
+
     @Test
     @DisplayName("해당 유저 없음 - 잔액 사용 실패")
     void useBalance_UerNotFound() {
         // given
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -121,13 +348,10 @@ class TransactionServiceTest {
     @DisplayName("해당 계좌 없음 - 잔액 사용 실패")
     void deleteAccount_AccountNotFound() {
         // given
-        AccountUser accountUser = AccountUser.builder()
-                .name("Pobi").build();
-        accountUser.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(accountUser));
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
 
-        given(accountRepository.findByAccountNumber(anyString()))
+        given(accountCache.get(anyString()))
                 .willReturn(Optional.empty());
 
         // when
@@ -147,17 +371,14 @@ class TransactionServiceTest {
         AccountUser harry = AccountUser.builder()
                 .name("Harry").build();
         harry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(pobi));
+        given(accountUserRepository.existsById(12L))
+                .willReturn(true);
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(harry)
-                        .balance(0L)
-                        .accountNumber("1000000012").build()));
+        given(accountCache.get(anyString()))
+                .willReturn(Optional.of(snapshot(harry.getId(), IN_USE, 0L)));
         // when
         AccountException accountException = assertThrows(AccountException.class,
-                () -> transactionService.useBalance(1L, "1234567890", 1000L));
+                () -> transactionService.useBalance(12L, "1234567890", 1000L));
 
         assertThat(USER_ACCOUNT_UN_MATCH).isEqualTo(accountException.getErrorCode());
     }
@@ -168,18 +389,13 @@ class TransactionServiceTest {
         AccountUser pobi = AccountUser.builder()
                 .name("Pobi").build();
         pobi.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(pobi));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(pobi)
-                        .balance(0L)
-                        .accountStatus(UNREGISTERED)
-                        .accountNumber("1000000012").build()));
+        given(accountCache.get(anyString()))
+                .willReturn(Optional.of(snapshot(pobi.getId(), UNREGISTERED, 0L)));
+        given(accountCache.reload(anyString()))
+                .willReturn(Optional.of(snapshot(pobi.getId(), UNREGISTERED, 0L)));
         // when
         AccountException accountException = assertThrows(AccountException.class,
-                () -> transactionService.useBalance(1L, "1234567890", 1000L));
+                () -> transactionService.useBalance(12L, "1234567890", 1000L));
 
         assertThat(ACCOUNT_ALREADY_UNREGISTERED).isEqualTo(accountException.getErrorCode());
     }
@@ -191,71 +407,85 @@ class TransactionServiceTest {
         AccountUser accountUser = AccountUser.builder()
                 .name("Pobi").build();
         accountUser.setId(12L);
-        Account account = Account.builder()
-                .accountUser(accountUser)
-                .accountStatus(IN_USE)
-                .balance(100L)
-                .accountNumber("1000000012")
-                .build();
 
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(accountUser));
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
+        // 캐시 값으로 부족하면 DB 값으로 한 번 더 확인한 뒤에 실패한다.
+        given(accountCache.get(anyString()))
+                .willReturn(Optional.of(snapshot(accountUser.getId(), IN_USE, 100L)));
+        given(accountCache.reload(anyString()))
+                .willReturn(Optional.of(snapshot(accountUser.getId(), IN_USE, 100L)));
 
         // when
         // then
         AccountException accountException = assertThrows(AccountException.class,
-                () -> transactionService.useBalance(1L, "1234567890", 1000L));
+                () -> transactionService.useBalance(12L, "1234567890", 1000L));
 
         assertThat(AMOUNT_EXCEED_BALANCE).isEqualTo(accountException.getErrorCode());
 
         verify(transactionRepository, times(0)).save(any());
+        verify(accountRepository, times(0)).updateBalance(anyLong(), anyLong(), anyLong(), any());
 
     }
 
     @Test
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedUseTransaction() {
+    @DisplayName("실패 트랜잭션 일괄 저장 - 없는 계좌는 건너뜀")
+    void saveFailedTransactions() {
         // given
         AccountUser accountUser = AccountUser.builder()
                 .name("Pobi").build();
         accountUser.setId(12L);
-        Account account = Account.builder()
-                .accountUser(accountUser)
-                .accountStatus(IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000012")
-                .build();
-
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
 
-        given(transactionRepository.save(any()))
-                .willReturn(Transaction.builder()
-                        .account(account)
-                        .transactionType(USE)
-                        .transactionResultType(SUCCESS)
-                        .transactionId("transactionId")
-                        .transactedAt(LocalDateTime.now())
-                        .amount(1000L)
-                        .balanceSnapshot(9000L)
-                        .build());
+        given(accountCache.getAll(anyCollection()))
+                .willReturn(Map.of("1000000012", snapshot(accountUser.getId(), IN_USE, 10000L)));
 
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
 
         // when
-        transactionService.saveFailedUseTransaction("1000000000", USE_AMOUNT);
+        int saved = transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransaction(USE, "1000000012", USE_AMOUNT, failedAt),
+                new FailedTransaction(CANCEL, "1000000099", CANCEL_AMOUNT, failedAt),
+                new FailedTransaction(CANCEL, "1000000012", CANCEL_AMOUNT, failedAt)));
 
-        verify(transactionRepository, times(1)).save(captor.capture());
+        verify(accountCache, times(1)).getAll(anyCollection());
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
 
         // then
-        assertThat(USE_AMOUNT).isEqualTo(captor.getValue().getAmount());
-        assertThat(10000L).isEqualTo(captor.getValue().getBalanceSnapshot());
-        assertThat(FAIL).isEqualTo(captor.getValue().getTransactionResultType());
+        assertThat(saved).isEqualTo(2);
+        assertThat(captor.getValue()).extracting(Transaction::getTransactionType)
+                .containsExactly(USE, CANCEL);
+        assertThat(captor.getValue()).extracting(Transaction::getTransactionResultType)
+                .containsOnly(FAIL);
+        assertThat(captor.getValue()).extracting(Transaction::getTransactedAt)
+                .containsOnly(failedAt);
+        assertThat(10000L).isEqualTo(captor.getValue().get(0).getBalanceSnapshot());
     }
 
+    @Test
+    @DisplayName("ledger 모드 - 실패 트랜잭션 스냅샷은 원장 잔액")
+    void saveFailedTransactions_ledger() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.LEDGER);
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+
+        // 계좌 행은 마지막 스냅샷(10000)이고, 이후 원장 기록까지 더하면 7000 이다.
+        given(accountCache.getAll(anyCollection()))
+                .willReturn(Map.of("1000000012", snapshot(12L, IN_USE, 10000L)));
+        given(ledgerService.getBalance(7L))
+                .willReturn(Optional.of(new LedgerBalance(7L, "1000000012", 12L, IN_USE, 7000L, 5L)));
+
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        // when
+        transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransaction(USE, "1000000012", USE_AMOUNT, failedAt),
+                new FailedTransaction(CANCEL, "1000000012", CANCEL_AMOUNT, failedAt)));
+
+        // then
+        verify(ledgerService, times(1)).getBalance(7L);
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(Transaction::getBalanceSnapshot)
+                .containsOnly(7000L);
+    }
 
     @Test
     void successCancelBalance() {
@@ -280,12 +510,11 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
         given(transactionRepository.save(any()))
                 .willReturn(Transaction.builder()
                         .account(account)
@@ -301,7 +530,7 @@ class TransactionServiceTest {
 
         // when
         TransactionDto transactionDto = transactionService.cancelBalance("transactionId",
-                "1000000000", CANCEL_AMOUNT);
+                "1000000012", CANCEL_AMOUNT);
 
         verify(transactionRepository, times(1)).save(captor.capture());
 
@@ -316,16 +545,220 @@ class TransactionServiceTest {
 
     }
 
+    @Test
+    @DisplayName("atomic 모드 - 조건부 UPDATE 로 잔액 사용")
+    void successUseBalance_atomic() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.ATOMIC);
+        AccountBalance accountBalance = accountBalance(7L, 9800L);
+
+        given(accountRepository.debit(eq("1000000012"), eq(12L), eq(USE_AMOUNT), any()))
+                .willReturn(1);
+        given(accountRepository.findBalanceByAccountNumber("1000000012"))
+                .willReturn(Optional.of(accountBalance));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", USE_AMOUNT);
+
+        verify(transactionRepository, times(1)).save(captor.capture());
+
+        // then
+        verify(accountUserRepository, times(0)).findById(anyLong());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        assertThat(9800L).isEqualTo(captor.getValue().getBalanceSnapshot());
+        assertThat(captor.getValue().getTransactionId()).hasSize(11);
+        assertThat(SUCCESS).isEqualTo(transactionDto.getTransactionResultType());
+        assertThat("1000000012").isEqualTo(transactionDto.getAccountNumber());
+        assertThat(9800L).isEqualTo(transactionDto.getBalanceSnapshot());
+        verify(accountCache, times(1)).evictAfterCommit("1000000012");
+    }
+
+    @Test
+    @DisplayName("atomic 모드 - UPDATE 실패 시 실패 사유 조회")
+    void useBalance_atomic_amountExceedBalance() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.ATOMIC);
+        AccountUser accountUser = AccountUser.builder()
+                .name("Pobi").build();
+        accountUser.setId(12L);
+
+        given(accountRepository.debit(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+        given(accountCache.reload(anyString()))
+                .willReturn(Optional.of(snapshot(accountUser.getId(), IN_USE, 100L)));
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", USE_AMOUNT));
+
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("ledger 모드 - 계좌를 바꾸지 않고 원장에 기록")
+    void successUseBalance_ledger() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.LEDGER);
+        LedgerBalance ledgerBalance = new LedgerBalance(7L, "1000000012", 12L, IN_USE, 10000L, 3L);
+
+        given(ledgerService.getBalance("1000000012"))
+                .willReturn(Optional.of(ledgerBalance));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", USE_AMOUNT);
+
+        // then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        verify(ledgerService, times(1)).append(ledgerBalance, -USE_AMOUNT, captor.getValue().getTransactionId());
+        verify(accountRepository, times(0)).updateBalance(anyLong(), any(), anyLong(), any());
+        assertThat(9800L).isEqualTo(captor.getValue().getBalanceSnapshot());
+        assertThat(9800L).isEqualTo(transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("ledger 모드 - 원장 잔액이 부족하면 기록하지 않음")
+    void useBalance_ledger_amountExceedBalance() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.LEDGER);
+        given(ledgerService.getBalance("1000000012"))
+                .willReturn(Optional.of(new LedgerBalance(7L, "1000000012", 12L, IN_USE, 100L, 3L)));
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", USE_AMOUNT));
+
+        // then
+        assertEquals(AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+        verify(ledgerService, times(0)).append(any(), anyLong(), anyString());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("split 모드 - 계좌 잔액이 아닌 슬롯에서 차감")
+    void successUseBalance_split() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.SPLIT);
+        // 슬롯으로 옮긴 뒤라 계좌 행의 잔액은 0 이다.
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(7L, "1000000012", 12L, IN_USE, 0L, 3L)));
+        given(splitBalanceService.use(7L, USE_AMOUNT))
+                .willReturn(9800L);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", USE_AMOUNT);
+
+        // then
+        verify(accountRepository, times(0)).updateBalance(anyLong(), any(), anyLong(), any());
+        assertThat(9800L).isEqualTo(transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("split 모드 - 해지된 계좌는 슬롯을 건드리지 않음")
+    void useBalance_split_accountAlreadyUnregistered() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.SPLIT);
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(new AccountSnapshot(7L, "1000000012", 12L, UNREGISTERED, 0L, 3L)));
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(12L, "1000000012", USE_AMOUNT));
+
+        // then
+        assertEquals(ACCOUNT_ALREADY_UNREGISTERED, accountException.getErrorCode());
+        verify(splitBalanceService, times(0)).use(anyLong(), anyLong());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("atomic 모드 - 조건부 UPDATE 로 잔액 사용 취소")
+    void successCancelBalance_atomic() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.ATOMIC);
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000012")
+                .build();
+        account.setId(7L);
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(SUCCESS)
+                .transactionId("transactionId")
+                .transactedAt(LocalDateTime.now())
+                .amount(CANCEL_AMOUNT)
+                .balanceSnapshot(10000L)
+                .build();
+
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
+        given(transactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(transaction));
+        given(accountRepository.findBalanceById(7L))
+                .willReturn(Optional.of(accountBalance(7L, 10500L)));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        TransactionDto transactionDto = transactionService.cancelBalance("transactionId",
+                "1000000012", CANCEL_AMOUNT);
+
+        // then
+        verify(accountRepository, times(1)).credit(eq(7L), eq(CANCEL_AMOUNT), any());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+        assertThat(10000L).isEqualTo(account.getBalance());
+        assertThat(10500L).isEqualTo(transactionDto.getBalanceSnapshot());
+        assertThat(CANCEL).isEqualTo(transactionDto.getTransactionType());
+        verify(accountCache, times(1)).evictAfterCommit("1000000012");
+    }
+
+    // 계좌 id 7, version 3 인 캐시 항목
+    private static AccountSnapshot snapshot(Long ownerId, AccountStatus accountStatus, Long balance) {
+        return new AccountSnapshot(7L, "1000000012", ownerId, accountStatus, balance, 3L);
+    }
+
+    private static AccountBalance accountBalance(Long id, Long balance) {
+        return new AccountBalance() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getBalance() {
+                return balance;
+            }
+        };
+    }
+
     @Test
     @DisplayName("해당 계좌 없음 - 잔액 사용 취소 실패")
     void cancelTransaction_AccountNotFound() {
         // given
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(Transaction.builder().build()));
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder()
+                                .accountNumber("1000000012").build())
+                        .build()));
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.empty());
+        given(accountRepository.existsByAccountNumber("1234567890"))
+                .willReturn(false);
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -340,6 +773,8 @@ class TransactionServiceTest {
     void cancelTransaction_TransactionNotFound() {
         // given
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
@@ -364,13 +799,6 @@ class TransactionServiceTest {
                 .accountNumber("1000000012")
                 .build();
         account.setId(1L);
-        Account accountNotUse = Account.builder()
-                .accountUser(accountUser)
-                .accountStatus(IN_USE)
-                .balance(10000L)
-                .accountNumber("1000000013")
-                .build();
-        accountNotUse.setId(2L);
         Transaction transaction = Transaction.builder()
                 .account(account)
                 .transactionType(USE)
@@ -381,11 +809,13 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(accountNotUse));
+        given(accountRepository.existsByAccountNumber("1234567890"))
+                .willReturn(true);
 
         // when
         AccountException accountException = assertThrows(AccountException.class,
@@ -419,16 +849,15 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
         // when
         AccountException accountException = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance("transactionId",
-                        "1234567890", CANCEL_AMOUNT));
+                        "1000000012", CANCEL_AMOUNT));
 
         assertThat(CANCEL_MUST_FULLY).isEqualTo(accountException.getErrorCode());
     }
@@ -457,20 +886,155 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
         // when
         AccountException accountException = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance("transactionId",
-                        "1234567890", CANCEL_AMOUNT));
+                        "1000000012", CANCEL_AMOUNT));
 
         assertThat(TOO_OLD_ORDER_TO_CANCEL).isEqualTo(accountException.getErrorCode());
     }
 
+    @Test
+    @DisplayName("거래 내역 - 한 건 더 읽어서 다음 커서 생성")
+    void getTransactionHistory_nextCursor() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 0L)));
+        given(transactionRepository.findHistoryByType(eq(7L), eq(USE), any()))
+                .willReturn(Arrays.asList(
+                        transactionSummary(30L, 300L, now),
+                        transactionSummary(20L, 200L, now.minusSeconds(1)),
+                        transactionSummary(10L, 100L, now.minusSeconds(2))));
+
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000012", USE, null, null, 2);
+
+        // then
+        assertThat(response.getTransactions()).extracting(TransactionHistory.Item::getAmount)
+                .containsExactly(300L, 200L);
+        TransactionHistory.Cursor cursor = TransactionHistory.Cursor.decode(response.getNextCursor());
+        assertEquals(20L, cursor.getId());
+        assertEquals(now.minusSeconds(1), cursor.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 커서 이후 마지막 페이지")
+    void getTransactionHistory_lastPage() {
+        // given
+        LocalDateTime cursorAt = LocalDateTime.now();
+
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 0L)));
+        given(transactionRepository.findHistoryAfter(eq(7L), eq(cursorAt), eq(20L), any()))
+                .willReturn(Collections.singletonList(
+                        transactionSummary(10L, 100L, cursorAt.minusSeconds(1))));
+
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000012", null, null, new TransactionHistory.Cursor(cursorAt, 20L).encode(), 2);
+
+        // then
+        assertThat(response.getTransactions()).hasSize(1);
+        assertThat(response.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("거래 내역 - memory 모드는 저널에만 있는 거래도 포함")
+    void getTransactionHistory_memoryIncludesUnpersisted() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "transactionMode", TransactionMode.MEMORY);
+        LocalDateTime now = LocalDateTime.now();
+        BalanceEngine engine = mock(BalanceEngine.class);
+
+        given(accountCache.get("1000000012"))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 0L)));
+        given(transactionRepository.findHistory(eq(7L), any()))
+                .willReturn(Arrays.asList(
+                        transactionSummary(30L, 300L, now),
+                        transactionSummary(20L, 200L, now.minusSeconds(1)),
+                        transactionSummary(10L, 100L, now.minusSeconds(2))));
+        given(balanceEngine.getObject()).willReturn(engine);
+        given(engine.findUnpersisted(7L))
+                .willReturn(Arrays.asList(
+                        // 조회 사이에 DB 에 저장된 거래
+                        new JournalRecord(USE, 7L, "1000000012", 300L, 0L, "transactionId30", now),
+                        new JournalRecord(USE, 7L, "1000000012", 500L, 0L, "journalId", now.plusSeconds(1))));
+
+        // when
+        TransactionHistory.Response response = transactionService.getTransactionHistory(
+                "1000000012", null, null, null, 2);
+
+        // then
+        assertThat(response.getTransactions()).extracting(TransactionHistory.Item::getTransactionId)
+                .containsExactly("journalId", "transactionId30");
+        TransactionHistory.Cursor cursor = TransactionHistory.Cursor.decode(response.getNextCursor());
+        assertEquals(Long.MAX_VALUE, cursor.getId());
+        assertEquals(now, cursor.getTransactedAt());
+    }
+
+    @Test
+    @DisplayName("거래 내역 - 잘못된 커서")
+    void getTransactionHistory_invalidCursor() {
+        // given
+        given(accountCache.get(anyString()))
+                .willReturn(Optional.of(snapshot(12L, IN_USE, 0L)));
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory(
+                        "1000000012", null, null, "not-a-cursor", 2));
+
+        // then
+        assertEquals(INVALID_REQUEST, accountException.getErrorCode());
+    }
+
+    private static TransactionSummary transactionSummary(Long id, Long amount, LocalDateTime transactedAt) {
+        return new TransactionSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTransactionId() {
+                return "transactionId" + id;
+            }
+
+            @Override
+            public TransactionType getTransactionType() {
+                return USE;
+            }
+
+            @Override
+            public TransactionResultType getTransactionResultType() {
+                return SUCCESS;
+            }
+
+            @Override
+            public Long getAmount() {
+                return amount;
+            }
+
+            @Override
+            public Long getBalanceSnapshot() {
+                return 0L;
+            }
+
+            @Override
+            public LocalDateTime getTransactedAt() {
+                return transactedAt;
+            }
+        };
+    }
+
     @Test
     void successQueryTransaction() {
         // given
@@ -494,6 +1058,8 @@ class TransactionServiceTest {
                 .balanceSnapshot(9000L)
                 .build();
 
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
@@ -512,6 +1078,8 @@ class TransactionServiceTest {
     @DisplayName("원거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound() {
         // given
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(true);
         given(transactionRepository.findByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
@@ -520,6 +1088,23 @@ class TransactionServiceTest {
                 () -> transactionService.queryTransaction("transactionId"));
 
         assertThat(TRANSACTION_NOT_FOUND).isEqualTo(accountException.getErrorCode());
+        verify(transactionIdFilter).recordNotFound("transactionId");
+    }
+
+    @Test
+    @DisplayName("발급한 적 없는 거래 ID - DB 조회 없이 거래 조회 실패")
+    void queryTransaction_rejectedByTransactionIdFilter() {
+        // given
+        given(transactionIdFilter.mightExist(anyString()))
+                .willReturn(false);
+
+        // when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionService.queryTransaction("transactionId"));
+
+        // then
+        assertThat(TRANSACTION_NOT_FOUND).isEqualTo(accountException.getErrorCode());
+        verify(transactionRepository, never()).findByTransactionId(anyString());
     }
 }
 